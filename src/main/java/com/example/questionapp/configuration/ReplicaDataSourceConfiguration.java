@@ -0,0 +1,80 @@
+package com.example.questionapp.configuration;
+
+import com.example.questionapp.services.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optionaler Betriebsmodus: lesende Transaktionen auf Replikas, schreibende auf dem Primary (siehe ReplicaRoutingDataSource)
+ * Ersetzt die DataSource von Spring Boot. Der Primary kommt wie bisher aus spring.datasource.*, die Replikas aus
+ * datasource.replicas.urls (kommagetrennt) mit denselben Zugangsdaten, sofern datasource.replicas.username/password
+ * nicht gesetzt sind. Alle Pools übernehmen spring.datasource.hikari.* und erscheinen in den hikaricp-Metriken
+ * als pool=primary bzw. pool=replica-1, replica-2, ...
+ *
+ * Aktivieren mit datasource.replicas.urls, lokal z.B. mit den Profilen "embedded,replica".
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReplicaDataSourceConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    /**
+     * @param replicaUrls JDBC-URLs der Replikas
+     * @param replicaUsername Benutzer der Replikas, leer = wie der Primary
+     * @param replicaPassword Passwort der Replikas, leer = wie der Primary
+     * @param selection round-robin oder least-busy
+     */
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               @Value("${datasource.replicas.urls}") List<String> replicaUrls,
+                                               @Value("${datasource.replicas.username:}") String replicaUsername,
+                                               @Value("${datasource.replicas.password:}") String replicaPassword,
+                                               @Value("${datasource.replicas.selection:round-robin}") String selection,
+                                               ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        if (!selection.equals("round-robin") && !selection.equals("least-busy")) {
+            throw new IllegalStateException("datasource.replicas.selection must be round-robin or least-busy, was " + selection);
+        }
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configurePool(primary, "primary", environment, meterRegistry);
+
+        String username = replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername;
+        String password = replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword;
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = DataSourceBuilder.create(properties.getClassLoader())
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            configurePool(replica, "replica-" + (replicas.size() + 1), environment, meterRegistry);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        logger.info("Routing read-only transactions to {} replica(s), selection {}", replicas.size(), selection);
+        return new ReplicaRoutingDataSource(primary, replicas, selection.equals("least-busy"), readYourWrites);
+    }
+
+    /** spring.datasource.hikari.* wie bei der DataSource von Spring Boot, dann eigener Poolname und Metriken */
+    private static void configurePool(HikariDataSource pool, String name, Environment environment, MeterRegistry meterRegistry) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricRegistry(meterRegistry);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.questionapp.configuration;
+
+import com.example.questionapp.services.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource mit einem Primary für Schreibzugriffe und Replikas für @Transactional(readOnly = true)
+ * Die Verbindung wird erst beim ersten SQL-Befehl geholt (LazyConnectionDataSourceProxy) - erst dann hat der
+ * Transaktionsmanager die Transaktion als readOnly markiert und das Ziel steht fest.
+ *
+ * Zum Primary gehen:
+ * - alle schreibenden Transaktionen und Zugriffe ohne Transaktion (JdbcTemplate in Hintergrundaufgaben)
+ * - lesende Transaktionen eines Benutzers der innerhalb des Read-your-writes-Zeitraums geschrieben hat
+ * - lesende Transaktionen wenn das gewählte Replika keine Verbindung liefert
+ * Ein lesender Aufruf innerhalb einer schreibenden Transaktion nimmt deren Verbindung, bleibt also auf dem Primary.
+ *
+ * Auswahl des Replikas reihum (round-robin) oder nach den wenigsten aktiven Verbindungen im Pool (least-busy).
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final boolean leastBusy;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary Pool des Primary
+     * @param replicas Pools der Replikas, mindestens einer
+     * @param leastBusy true = Replika mit den wenigsten aktiven Verbindungen, false = reihum
+     * @param readYourWrites Benutzer die gerade geschrieben haben
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, boolean leastBusy,
+                                    ReadYourWrites readYourWrites) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.leastBusy = leastBusy;
+        this.readYourWrites = readYourWrites;
+        setTargetDataSource(new Router());
+    }
+
+    /** Schließt alle Pools (Destroy-Methode der Bean) */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private Connection route() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || readYourWrites.currentUserWroteRecently()) {
+            return primary.getConnection();
+        }
+        HikariDataSource replica = selectReplica();
+        try {
+            Connection connection = replica.getConnection();
+            logger.trace("Read-only transaction on {}", replica.getPoolName());
+            return connection;
+        } catch (SQLException e) {
+            logger.warn("No connection from {}, reading from primary: {}", replica.getPoolName(), e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    private HikariDataSource selectReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (!leastBusy) {
+            return replicas.get(start);
+        }
+        // Bei Gleichstand reihum, damit nicht immer das erste Replika gewinnt
+        HikariDataSource selected = null;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get((start + i) % replicas.size());
+            HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+            int active = pool != null ? pool.getActiveConnections() : 0;  // null solange der Pool nicht gestartet ist
+            if (active < fewest) {
+                selected = replica;
+                fewest = active;
+            }
+        }
+        return selected;
+    }
+
+    /** Ziel des LazyConnectionDataSourceProxy, entscheidet beim Holen der eigentlichen Verbindung */
+    private class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("the connection pools are configured with fixed credentials");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+    }
+}
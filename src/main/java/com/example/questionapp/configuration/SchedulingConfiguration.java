@@ -0,0 +1,13 @@
+package com.example.questionapp.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Aktiviert @Scheduled für Hintergrundaufgaben
+ * (z.B. Flush und Abgleich der Like- und Kommentarzähler)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -1,4 +1,5 @@
 package com.example.questionapp.configuration;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,6 +17,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import com.example.questionapp.security.JWTAuthenticationEntryPoint;
 import com.example.questionapp.security.JWTAuthenticationFilter;
+import com.example.questionapp.security.JWTUserDetails;
 import com.example.questionapp.services.UserDetailsServiceImplementation;
 
 /**
@@ -120,12 +122,21 @@ public class SecurityConfiguration{
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 // Autorisierungsregeln definieren
                 .authorizeHttpRequests()
+                    // Asynchrone Dispatches (NDJSON-Export) gehören zu einer bereits autorisierten Anfrage
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     // Authentifizierungsendpunkte öffentlich zugänglich (kein Token erforderlich)
                     .requestMatchers("/auth/**").permitAll()
                     // GET-Anfragen für Posts öffentlich (zum Lesen ohne Login)
-                    .requestMatchers(HttpMethod.GET, "/posts").permitAll()
+                    .requestMatchers(HttpMethod.GET, "/posts", "/posts/stream", "/posts/trending").permitAll()
                     // GET-Anfragen für Kommentare öffentlich
-                    .requestMatchers(HttpMethod.GET, "/comments").permitAll()
+                    .requestMatchers(HttpMethod.GET, "/comments", "/comments/stream").permitAll()
+                    // Volltextsuche öffentlich, wie die Listen
+                    .requestMatchers(HttpMethod.GET, "/search").permitAll()
+                    // Health-Check für Load Balancer öffentlich, die übrigen Actuator-Endpunkte (Metriken) nur für Betreiber
+                    .requestMatchers("/actuator/health").permitAll()
+                    .requestMatchers("/actuator/**").hasAuthority(JWTUserDetails.OPERATOR)
+                    // Bulk-Import legt Benutzer mit beliebigen Passwort-Hashes an, nur für Betreiber (security.operator.ids)
+                    .requestMatchers("/import/**").hasAuthority(JWTUserDetails.OPERATOR)
                     // Alle anderen Anfragen erfordern Authentifizierung
                     .anyRequest().authenticated();
 
@@ -0,0 +1,83 @@
+package com.example.questionapp.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optionaler Betriebsmodus: HTTP-Anfragen laufen auf virtuellen Threads statt im Tomcat-Worker-Pool
+ * Blockierende JDBC-Aufrufe und BCrypt belegen dann keinen der begrenzten Plattform-Threads mehr.
+ * Damit die vielen virtuellen Threads nicht alle gleichzeitig auf eine Hikari-Verbindung warten, begrenzt
+ * ein Semaphor die gleichzeitigen Datenbankzugriffe auf die Poolgröße (siehe ConnectionLimitingDataSource).
+ *
+ * Aktivieren mit virtual.threads.enabled=true, benötigt zur Laufzeit Java 21 (das Projekt wird weiter für Java 17 gebaut).
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual.threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Ersetzt den Executor des Tomcat-Connectors durch einen Executor mit einem virtuellen Thread pro Anfrage
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        logger.info("Handling HTTP requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * Umhüllt die DataSource mit dem Semaphor, static damit der BeanPostProcessor früh erzeugt werden kann
+     * @param limit Gleichzeitige Verbindungen, 0 = maximale Poolgröße von Hikari
+     * @param timeoutMs Maximale Wartezeit auf eine Freigabe
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(@Value("${db.concurrency.limit:0}") int limit,
+                                                                              @Value("${db.concurrency.timeout.ms:30000}") long timeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                int permits = limit;
+                if (permits <= 0 && bean instanceof HikariDataSource hikari) {
+                    // -1 solange der Pool nicht gestartet ist, dann gilt der Hikari-Standard
+                    permits = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                }
+                if (permits <= 0) {
+                    return bean;
+                }
+                logger.info("Limiting concurrent database access to {} connections", permits);
+                return new ConnectionLimitingDataSource((DataSource) bean, permits, timeoutMs);
+            }
+        };
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() per Reflection, da das Projekt für Java 17 kompiliert wird
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual.threads.enabled=true requires Java 21 or newer, running on " + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.questionapp.controllers;
 
 import com.example.questionapp.dataAccess.UserRepository;
-import com.example.questionapp.entities.RefreshToken;
 import com.example.questionapp.entities.User;
 import com.example.questionapp.requests.RefreshTokenRequest;
 import com.example.questionapp.requests.UserRequest;
@@ -92,17 +91,15 @@ public class AuthenticationController {
     @PostMapping("/refresh")
     public ResponseEntity<AuthenticationResponse> refresh(@RequestBody RefreshTokenRequest refreshTokenRequest) {
         AuthenticationResponse authResponse = new AuthenticationResponse();
-        RefreshToken token = refreshTokenService.getByUser(refreshTokenRequest.getUserId());
         
-        // Prüfen ob Refresh-Token gültig und nicht abgelaufen ist
-        if(token.getToken().equals(refreshTokenRequest.getRefreshToken()) &&
-                !refreshTokenService.isRefreshExpired(token)) {
-            User user = token.getUser();
+        // Prüfen ob Refresh-Token zum Benutzer gehört und nicht abgelaufen ist (aus dem Token-Index, ohne Datenbankzugriff)
+        if(refreshTokenService.isValid(refreshTokenRequest.getUserId(), refreshTokenRequest.getRefreshToken())) {
+            Long userId = refreshTokenRequest.getUserId();
             // Neuen Access-Token für den Benutzer generieren
-            String jwtToken = jwtTokenProvider.generateJwtTokenByUserId(user.getId());
+            String jwtToken = jwtTokenProvider.generateJwtTokenByUserId(userId);
             authResponse.setMessage("token successfully refreshed.");
             authResponse.setAccessToken("Bearer " + jwtToken);
-            authResponse.setUserId(user.getId());
+            authResponse.setUserId(userId);
             return new ResponseEntity<>(authResponse, HttpStatus.OK);
         } else {
             authResponse.setMessage("refresh token is not valid.");
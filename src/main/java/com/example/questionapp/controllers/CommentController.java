@@ -2,27 +2,68 @@ package com.example.questionapp.controllers;
 
 
 import com.example.questionapp.entities.Comment;
+import com.example.questionapp.exceptions.InvalidCursorException;
 import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.PageCursor;
 import com.example.questionapp.requests.UpdateCommentRequest;
-import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.JsonFragments;
+import com.example.questionapp.responses.NdjsonWriter;
+import com.example.questionapp.responses.ResourceVersion;
 import com.example.questionapp.services.CommentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/comments")
 public class CommentController {
     private CommentService commentService;
+    private ObjectMapper objectMapper;
 
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, ObjectMapper objectMapper) {
         this.commentService = commentService;
+        this.objectMapper = objectMapper;
     }
 
-    @GetMapping
-    public List<CommentResponse> getAllComments(@RequestParam Optional<Long> userId, @RequestParam Optional<Long> postId) {
-        return commentService.getAllComments(userId, postId);
+    @GetMapping  // seitenweise, neueste zuerst - Cursor der nächsten Seite im Header X-Next-Cursor
+    public ResponseEntity<JsonFragments> getAllComments(@RequestParam Optional<Long> userId, @RequestParam Optional<Long> postId,
+                                                                @RequestParam Optional<String> after, @RequestParam Optional<Integer> limit,
+                                                                WebRequest request) {
+        PageCursor cursor = PageCursor.parse(after);  // ungültiger Cursor => 400, auch vor einem 304
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String eTag = null;
+        if (postId.isPresent() && userId.isEmpty()) {
+            // Kommentare eines Posts: ETag und Last-Modified wie bei posts/{postId}, 304 nach einer Abfrage über den Index
+            ResourceVersion version = commentService.getCommentsVersion(postId.get());
+            if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+                return null;
+            }
+            response.cacheControl(CacheControl.noCache());
+            eTag = version.getETag();  // die Seite kommt dann aus dem JsonFragmentCache
+        }
+        CursorPage<byte[]> page = commentService.getAllCommentsJson(userId, postId, cursor, PageCursor.limit(limit), eTag);
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(JsonFragments.array(page.getItems()));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)  // Export als NDJSON, eine Zeile pro Element, nach ID sortiert
+    public ResponseEntity<StreamingResponseBody> streamComments(@RequestParam Optional<Long> userId, @RequestParam Optional<Long> postId) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            commentService.streamComments(userId, postId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping
@@ -45,6 +86,11 @@ public class CommentController {
         commentService.deleteCommentById(commentId);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private void handleInvalidCursorException(){
+    }
+
 
 
 
@@ -0,0 +1,65 @@
+package com.example.questionapp.controllers;
+
+import com.example.questionapp.entities.ImportJob;
+import com.example.questionapp.exceptions.ImportAlreadyRunningException;
+import com.example.questionapp.exceptions.ImportJobNotFoundException;
+import com.example.questionapp.services.ImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+/**
+ * REST Controller für den Bulk-Import von Benutzern, Posts, Kommentaren und Likes
+ * Format der Datei siehe ImportService
+ */
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+
+    private ImportService importService;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param importService Service für den Bulk-Import
+     */
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Importiert eine NDJSON-Datei (Request-Body) bzw. setzt den Import mit dieser ID fort
+     * Beispiel: curl -X POST -H "Authorization: Bearer ..." -H "Content-Type: application/x-ndjson" --data-binary @export.ndjson .../import/migration-1
+     * @param jobId Name des Imports, beim Fortsetzen nach einem Abbruch derselbe Name und dieselbe Datei
+     * @param body Die Datei, wird zeilenweise gelesen
+     * @return Stand des Imports mit Zählern und den ersten Ablehnungsgründen
+     */
+    @PostMapping("/{jobId}")
+    public ImportJob importNdjson(@PathVariable String jobId, InputStream body) {
+        return importService.importNdjson(jobId, body);
+    }
+
+    /**
+     * Fortschritt eines laufenden oder abgeschlossenen Imports
+     * @param jobId Name des Imports
+     * @return Stand des Imports (committedLines, Zähler, Status)
+     */
+    @GetMapping("/{jobId}")
+    public ImportJob getImportJob(@PathVariable String jobId) {
+        ImportJob job = importService.getImportJob(jobId);
+        if (job == null) {
+            throw new ImportJobNotFoundException("Import " + jobId + " not found");
+        }
+        return job;
+    }
+
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    private void handleImportJobNotFoundException() {
+    }
+
+    @ExceptionHandler(ImportAlreadyRunningException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    private void handleImportAlreadyRunningException() {
+    }
+}
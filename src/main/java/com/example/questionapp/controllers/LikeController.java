@@ -2,10 +2,22 @@ package com.example.questionapp.controllers;
 
 
 import com.example.questionapp.entities.Like;
+import com.example.questionapp.exceptions.DuplicateLikeException;
+import com.example.questionapp.exceptions.InvalidCursorException;
+import com.example.questionapp.exceptions.LikeQueueFullException;
 import com.example.questionapp.requests.CreateLikeRequest;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.NdjsonWriter;
 import com.example.questionapp.responses.LikeResponse;
 import com.example.questionapp.services.LikeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,19 +27,50 @@ import java.util.Optional;
 public class LikeController {
 
     private LikeService likeService;
+    private ObjectMapper objectMapper;
 
-    public LikeController(LikeService likeService) {
+    /** Mit Warteschlange: false => 202 Accepted sobald das Like eingereiht ist, ohne auf den Commit zu warten */
+    private boolean waitForCommit;
+
+    public LikeController(LikeService likeService, ObjectMapper objectMapper, @Value("${like.write.async.wait:true}") boolean waitForCommit) {
         this.likeService = likeService;
+        this.objectMapper = objectMapper;
+        this.waitForCommit = waitForCommit;
+    }
+
+    @GetMapping  // seitenweise nach ID absteigend - Cursor der nächsten Seite im Header X-Next-Cursor
+    public ResponseEntity<List<LikeResponse>> getAllLikes(@RequestParam Optional<Long> userId,@RequestParam Optional<Long> postId,
+                                                          @RequestParam Optional<String> after, @RequestParam Optional<Integer> limit) {
+        CursorPage<LikeResponse> page = likeService.getAllLikes(userId, postId, PageCursor.parseId(after), PageCursor.limit(limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
-    @GetMapping
-    public List<LikeResponse> getAllLikes(@RequestParam Optional<Long> userId,@RequestParam Optional<Long> postId) {
-        return likeService.getAllLikes(userId, postId);
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)  // Export als NDJSON, eine Zeile pro Element, nach ID sortiert
+    public ResponseEntity<StreamingResponseBody> streamLikes(@RequestParam Optional<Long> userId, @RequestParam Optional<Long> postId) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            likeService.streamLikes(userId, postId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping
-    public Like createLike(@RequestBody CreateLikeRequest createLikeRequest) {
-        return likeService.createLike(createLikeRequest);
+    public ResponseEntity<Like> createLike(@RequestBody CreateLikeRequest createLikeRequest) {
+        if(likeService.isQueued() && !waitForCommit) {
+            likeService.enqueueLike(createLikeRequest);
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.ok(likeService.createLike(createLikeRequest));
+    }
+
+    @GetMapping("/liked")  // likes/liked?userId=1&postIds=10,11,12 => welche dieser Posts der Benutzer geliked hat
+    public List<Long> getLikedPostIds(@RequestParam Long userId, @RequestParam List<Long> postIds) {
+        return likeService.getLikedPostIds(userId, postIds);
     }
 
     @GetMapping("/{likeId}")
@@ -39,4 +82,24 @@ public class LikeController {
     public void deleteLikeById(@PathVariable Long likeId) {
         likeService.deleteLikeById(likeId);
     }
+
+    @DeleteMapping  // likes?userId=1&postId=10 => Unlike ohne die ID des Likes
+    public void deleteLike(@RequestParam Long userId, @RequestParam Long postId) {
+        likeService.deleteLike(userId, postId);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private void handleInvalidCursorException() {
+    }
+
+    @ExceptionHandler(DuplicateLikeException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    private void handleDuplicateLikeException() {
+    }
+
+    @ExceptionHandler(LikeQueueFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    private void handleLikeQueueFullException() {
+    }
 }
\ No newline at end of file
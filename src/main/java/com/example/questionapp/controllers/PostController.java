@@ -1,11 +1,24 @@
 package com.example.questionapp.controllers;
 
 import com.example.questionapp.entities.Post;
+import com.example.questionapp.exceptions.InvalidCursorException;
 import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.requests.PageCursor;
 import com.example.questionapp.requests.UpdatePostRequest;
-import com.example.questionapp.responses.PostResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.JsonFragments;
+import com.example.questionapp.responses.NdjsonWriter;
+import com.example.questionapp.responses.ResourceVersion;
+import com.example.questionapp.responses.TrendingPostResponse;
 import com.example.questionapp.services.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,24 +31,63 @@ import java.util.Optional;
 @RequestMapping("/posts")
 public class PostController {
     private PostService postService;
+    private ObjectMapper objectMapper;
 
     /**
      * Konstruktor für Dependency Injection
      * @param postService Service für Post-Geschäftslogik
+     * @param objectMapper Für den NDJSON-Export
      */
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Ruft alle Posts ab, optional gefiltert nach Benutzer-ID
+     * Ruft eine Seite von Posts ab (neueste zuerst), optional gefiltert nach Benutzer-ID
+     * Der Cursor für die nächste Seite steht im Header "X-Next-Cursor" (fehlt auf der letzten Seite)
      * @param userId Optionale Benutzer-ID als Query-Parameter (posts?userId=123)
-     * @return Liste aller Posts oder Posts eines spezifischen Benutzers
+     * @param after Optionaler Cursor "createDate,id" der vorherigen Seite (posts?after=...)
+     * @param limit Optionale Seitengröße, begrenzt auf PageCursor.MAX_LIMIT
+     * @return Eine Seite aller Posts oder der Posts eines spezifischen Benutzers, als JSON-Array von PostResponse
      */
     @GetMapping  // RequestParam => posts?userId=userId - liest Parameter aus der URL-Abfrage
-    public List<PostResponse> getAllPosts(@RequestParam Optional<Long> userId) {
-        // Wenn keine userId angegeben ist, werden alle Posts zurückgegeben
-        return postService.getAllPosts(userId);
+    public ResponseEntity<JsonFragments> getAllPosts(@RequestParam Optional<Long> userId, @RequestParam Optional<String> after, @RequestParam Optional<Integer> limit) {
+        // Wenn keine userId angegeben ist, werden alle Posts seitenweise zurückgegeben
+        // Das JSON der einzelnen Posts kommt aus dem JsonFragmentCache und wird nur aneinandergehängt
+        CursorPage<byte[]> page = postService.getAllPostsJson(userId, PageCursor.parse(after), PageCursor.limit(limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(JsonFragments.array(page.getItems()));
+    }
+
+    /**
+     * Exportiert alle Posts (optional eines Benutzers) als NDJSON, ein Post pro Zeile, nach ID sortiert
+     * Die Posts werden während des Lesens aus der Datenbank geschrieben, der Speicherbedarf hängt nicht von der Anzahl ab
+     * @param userId Optionale Benutzer-ID (posts/stream?userId=123)
+     * @return Der Ausgabestrom, wird nach der Rückkehr der Methode asynchron geschrieben
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPosts(@RequestParam Optional<Long> userId) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            postService.streamPosts(userId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Die Posts mit den meisten Likes und Kommentaren der letzten Stunde, jüngere Aktivität zählt mehr
+     * Wird vollständig aus dem Speicher beantwortet (siehe TrendingPosts), die Details liefert posts/{postId}
+     * @param limit Optionale Anzahl, begrenzt auf trending.top.k
+     * @return Post-IDs mit Score, absteigend
+     */
+    @GetMapping("/trending")
+    public List<TrendingPostResponse> getTrendingPosts(@RequestParam Optional<Integer> limit) {
+        return postService.getTrendingPosts(PageCursor.limit(limit));
     }
 
     /**
@@ -58,12 +110,21 @@ public class PostController {
 
     /**
      * Ruft einen Post anhand der ID ab, inklusive Likes
+     * Mit ETag und Last-Modified: passt If-None-Match bzw. If-Modified-Since zum aktuellen Stand, wird nach einer
+     * einzigen Abfrage der Version mit 304 ohne Body geantwortet
      * @param postId Die ID des gewünschten Posts (aus dem URL-Pfad: posts/123)
-     * @return Post-Response mit Details und Likes
+     * @return Post-Response mit Details und Likes (als fertiges JSON aus dem JsonFragmentCache)
      */
     @GetMapping("/{postId}")  // PathVariable => posts/postId - liest ID direkt aus dem URL-Pfad
-    public PostResponse getPostById(@PathVariable Long postId) {
-        return postService.getPostByIdWithLikes(postId);
+    public ResponseEntity<JsonFragments> getPostById(@PathVariable Long postId, WebRequest request) {
+        // Version vor dem Post lesen: eine Änderung dazwischen führt höchstens zu einem veralteten ETag, also einem 200 zu viel
+        ResourceVersion version = postService.getPostVersion(postId);
+        if (version != null && request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;  // 304 - Status und Header hat checkNotModified gesetzt
+        }
+        // no-cache statt des no-store von Spring Security, damit Clients speichern und nachfragen
+        byte[] json = version == null ? null : postService.getPostJson(postId, version.getETag());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(json == null ? null : JsonFragments.of(json));
     }
 
     /**
@@ -86,4 +147,12 @@ public class PostController {
         postService.deletePostById(postId);
     }
 
+    /**
+     * Behandelt ungültige Paginierungs-Cursor mit 400 Bad Request
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private void handleInvalidCursorException(){
+    }
+
 }
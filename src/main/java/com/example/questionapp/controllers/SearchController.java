@@ -0,0 +1,41 @@
+package com.example.questionapp.controllers;
+
+import com.example.questionapp.exceptions.InvalidCursorException;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.requests.SearchCursor;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.SearchHitResponse;
+import com.example.questionapp.services.SearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    private SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping  // search?q=spring boot => Posts und Kommentare nach Relevanz - Cursor der nächsten Seite im Header X-Next-Cursor
+    public ResponseEntity<List<SearchHitResponse>> search(@RequestParam String q, @RequestParam Optional<String> after,
+                                                          @RequestParam Optional<Integer> limit) {
+        CursorPage<SearchHitResponse> page = searchService.search(q, SearchCursor.parse(after), PageCursor.limit(limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private void handleInvalidCursorException() {
+    }
+}
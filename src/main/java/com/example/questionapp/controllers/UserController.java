@@ -2,11 +2,19 @@ package com.example.questionapp.controllers;
 
 import com.example.questionapp.dataAccess.UserRepository;
 import com.example.questionapp.entities.User;
+import com.example.questionapp.exceptions.InvalidCursorException;
 import com.example.questionapp.exceptions.UserNotFoundException;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.ActivityResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.ResourceVersion;
 import com.example.questionapp.responses.UserResponse;
 import com.example.questionapp.services.UserService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -31,13 +39,17 @@ public class UserController {
         return userService.createUser(user);
     }
 
-    @GetMapping("/{userId}")
-    public UserResponse getUserById(@PathVariable Long userId){  //custom exception yapıcaz bütün metodlarda yapmamız gerekir aslında. custom exception = mesela bir user kontrolünde user db de yoksa not found hatası dönmemiz gerekir
+    @GetMapping("/{userId}")  // mit ETag / Last-Modified, 304 nach einer Abfrage der Version (wie posts/{postId})
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long userId, WebRequest request){
+        ResourceVersion version = userService.getUserVersion(userId);
+        if(version != null && request.checkNotModified(version.getETag(), version.getLastModified())){
+            return null;
+        }  //custom exception yapıcaz bütün metodlarda yapmamız gerekir aslında. custom exception = mesela bir user kontrolünde user db de yoksa not found hatası dönmemiz gerekir
         User user = userService.getUserById(userId);
         if(user==null){
             throw new UserNotFoundException();
         }
-        return new UserResponse(user);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(new UserResponse(user));
     }
 
     @PutMapping("/{userId}")   //update
@@ -50,9 +62,22 @@ public class UserController {
         userService.deleteUserById(userId);
     }
 
+    /**
+     * Aktivitäten auf den Posts eines Benutzers, neueste zuerst
+     * Der Cursor der nächsten Seite steht im Header X-Next-Cursor
+     * @param userId Die Benutzer-ID
+     * @param after Optionaler Cursor "createDate,id" der vorherigen Seite
+     * @param limit Optionale Seitengröße, begrenzt auf PageCursor.MAX_LIMIT
+     * @return Eine Seite der Aktivitäten
+     */
     @GetMapping("/activity/{userId}")
-    public List<Object> getUserActivityById(@PathVariable Long userId){
-        return userService.getUserActivityById(userId);
+    public ResponseEntity<List<ActivityResponse>> getUserActivityById(@PathVariable Long userId, @RequestParam Optional<String> after, @RequestParam Optional<Integer> limit){
+        CursorPage<ActivityResponse> page = userService.getUserActivityById(userId, PageCursor.parse(after), PageCursor.limit(limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     /*@ResponseBody*/
@@ -61,4 +86,9 @@ public class UserController {
     private void handleUserNotFoundException(){ //bir UserNotFoundException handler bir (user bulunamadı hatasında bu metod çalışır) yazdık ne döneceğini filan yazdık. istersek bu handleUserNotFoundException fonksiyonun içine body de ekleyebiliriz.
 
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private void handleInvalidCursorException(){
+    }
 }
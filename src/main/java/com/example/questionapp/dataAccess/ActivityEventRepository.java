@@ -0,0 +1,33 @@
+package com.example.questionapp.dataAccess;
+
+import com.example.questionapp.entities.ActivityEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ActivityEventRepository extends JpaRepository<ActivityEvent, Long> {
+
+    // Keyset-Paginierung: neueste Ereignisse zuerst - nutzt idx_activity_recipient_create_date_id
+    @Query("select e from ActivityEvent e where e.recipientId = :recipientId "
+            + "and (e.createDate < :createDate or (e.createDate = :createDate and e.id < :id)) "
+            + "order by e.createDate desc, e.id desc")
+    List<ActivityEvent> findPageByRecipientId(@Param("recipientId") Long recipientId, @Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    // Ereignisse eines gelöschten Benutzers, als Empfänger und als Beteiligter
+    @Transactional
+    @Modifying
+    @Query("delete from ActivityEvent e where e.recipientId = :userId or e.actorId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // Ereignisse eines gelöschten Posts
+    @Transactional
+    @Modifying
+    @Query("delete from ActivityEvent e where e.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+}
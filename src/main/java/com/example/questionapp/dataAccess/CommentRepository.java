@@ -1,24 +1,100 @@
 package com.example.questionapp.dataAccess;
 
 import com.example.questionapp.entities.Comment;
+import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.ResourceVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.Optional;
 
 
 public interface CommentRepository extends JpaRepository<Comment,Long> {
 
 
+    // der Entity-Graph lädt den Benutzer mit derselben Abfrage
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByUserIdAndPostId(Long userId, Long postId);
 
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByUserId(Long userId);
 
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByPostId(Long postId);
 
-    @Query(value = "select 'commented on', c.post_id, u.image, u.username from comment c left join user u on u.id=c.user_id where c.post_id in :postIds limit 5",nativeQuery=true)
-    List<Object> findUserCommentsByPostId(@Param("postIds") List<Long> postIds);
+    // Stand der Kommentare eines Posts für bedingte GET-Anfragen: Anzahl und letzte Änderung über den Index (post_id, ...),
+    // dazu die letzte Änderung des Posts - nach dem Löschen eines Kommentars ändert sie sich mit dem comment_count
+    @Query("select new com.example.questionapp.responses.ResourceVersion(count(c), max(coalesce(c.lastModified, c.createDate)), "
+            + "(select coalesce(p.lastModified, p.createDate) from Post p where p.id = :postId)) from Comment c where c.post.id = :postId")
+    ResourceVersion findVersionByPostId(@Param("postId") Long postId);
+
+    // Keyset-Paginierung: neueste Kommentare zuerst, Seite beginnt nach (createDate, id) des Cursors
+    // Projektion: nur die Spalten der CommentResponse, keine Entitäten im Persistence Context und kein Join
+    // (den Benutzernamen liefert das UserDirectory)
+    @Query("select new com.example.questionapp.responses.CommentResponse(c.id, c.user.id, c.text, c.createDate) from Comment c "
+            + "where c.createDate < :createDate or (c.createDate = :createDate and c.id < :id) "
+            + "order by c.createDate desc, c.id desc")
+    List<CommentResponse> findPage(@Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.CommentResponse(c.id, c.user.id, c.text, c.createDate) from Comment c "
+            + "where c.user.id = :userId and (c.createDate < :createDate or (c.createDate = :createDate and c.id < :id)) "
+            + "order by c.createDate desc, c.id desc")
+    List<CommentResponse> findPageByUserId(@Param("userId") Long userId, @Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.CommentResponse(c.id, c.user.id, c.text, c.createDate) from Comment c "
+            + "where c.post.id = :postId and (c.createDate < :createDate or (c.createDate = :createDate and c.id < :id)) "
+            + "order by c.createDate desc, c.id desc")
+    List<CommentResponse> findPageByPostId(@Param("postId") Long postId, @Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.CommentResponse(c.id, c.user.id, c.text, c.createDate) from Comment c "
+            + "where c.user.id = :userId and c.post.id = :postId and (c.createDate < :createDate or (c.createDate = :createDate and c.id < :id)) "
+            + "order by c.createDate desc, c.id desc")
+    List<CommentResponse> findPageByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId, @Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    // Export: Kommentare nach ID gestreamt, die Zeilen werden in Blöcken der Fetch-Size gelesen statt komplett geladen
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select c from Comment c order by c.id")
+    Stream<Comment> streamAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select c from Comment c where c.user.id = :userId order by c.id")
+    Stream<Comment> streamByUserId(@Param("userId") Long userId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select c from Comment c where c.post.id = :postId order by c.id")
+    Stream<Comment> streamByPostId(@Param("postId") Long postId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select c from Comment c where c.user.id = :userId and c.post.id = :postId order by c.id")
+    Stream<Comment> streamByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    // Kommentare eines Benutzers je Post, ohne seine eigenen Posts - beim Löschen des Benutzers fallen sie per Cascade weg
+    @Query("select c.post.id, count(c) from Comment c where c.user.id = :userId and c.post.user.id <> :userId group by c.post.id")
+    List<Object[]> countByUserIdOnOtherPosts(@Param("userId") Long userId);
+
+    // Kommentare eines Benutzers auf fremden Posts - die auf seinen eigenen Posts entfernt schon SearchIndex.removePost
+    @Query("select c.id from Comment c where c.user.id = :userId and c.post.user.id <> :userId")
+    List<Long> findIdsByUserIdOnOtherPosts(@Param("userId") Long userId);
+
+    // Posts auf denen der Benutzer kommentiert hat
+    @Query("select distinct c.post.id from Comment c where c.user.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId);
+
+    // Umbenennung des Autors: der Benutzername steht in der Antwort, deshalb ändert sich der Stand der Kommentarlisten
+    @Transactional
+    @Modifying
+    @Query("update Comment c set c.version = c.version + 1, c.lastModified = :now where c.user.id = :userId")
+    int touchByUserId(@Param("userId") Long userId, @Param("now") Date now);
 }
 /* @Query(value = "select * from comment where post_id in :postIds limit 5", nativeQuery=true)*/
\ No newline at end of file
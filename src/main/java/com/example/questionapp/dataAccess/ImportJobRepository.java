@@ -0,0 +1,7 @@
+package com.example.questionapp.dataAccess;
+
+import com.example.questionapp.entities.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+}
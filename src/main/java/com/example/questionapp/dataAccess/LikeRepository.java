@@ -2,24 +2,82 @@ package com.example.questionapp.dataAccess;
 
 import com.example.questionapp.entities.Comment;
 import com.example.questionapp.entities.Like;
+import com.example.questionapp.responses.LikeResponse;
 import com.example.questionapp.entities.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface LikeRepository extends JpaRepository<Like,Long> {
 
 
     List<Like> findByUserIdAndPostId(Long userId, Long postId);
 
+    boolean existsByUserIdAndPostId(Long userId, Long postId);
+
     List<Like> findByUserId(Long userId);
 
     List<Like> findByPostId(Long postId);
 
-    @Query(value = 	"select 'liked', l.post_id, u.image, u.username from "
-            + "post_like l left join user u on u.id = l.user_id "
-            + "where l.post_id in :postIds limit 5", nativeQuery = true)
-    List<Object> findUserLikesByPostId(@Param("postIds") List<Long> postIds);
-}
\ No newline at end of file
+    // Likes mehrerer Posts mit einer IN-Abfrage laden, als Projektion nur die ID-Spalten (kein Join)
+    @Query("select new com.example.questionapp.responses.LikeResponse(l.id, l.user.id, l.post.id) from Like l where l.post.id in :postIds order by l.id")
+    List<LikeResponse> findResponsesByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Aufbau des PostLikeIndex: nur die IDs, keine Entitäten
+    @Query("select l.user.id from Like l where l.post.id = :postId")
+    List<Long> findUserIdsByPostId(@Param("postId") Long postId);
+
+    // Likes eines Benutzers je Post, ohne seine eigenen Posts - beim Löschen des Benutzers fallen sie per Cascade weg
+    @Query("select l.post.id, count(l) from Like l where l.user.id = :userId and l.post.user.id <> :userId group by l.post.id")
+    List<Object[]> countByUserIdOnOtherPosts(@Param("userId") Long userId);
+
+    @Query("select l.post.id, l.user.id from Like l where l.post.id in :postIds")
+    List<Object[]> findPostAndUserIdsByPostIdIn(@Param("postIds") Collection<? extends Long> postIds);
+
+    // Unlike über (Benutzer, Post) ohne vorheriges Laden des Likes, schreibende Transaktion (nicht readOnly wie die Abfragen)
+    @Transactional
+    @Modifying
+    @Query("delete from Like l where l.user.id = :userId and l.post.id = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    // Keyset-Paginierung über die ID (Likes haben kein Erstellungsdatum), neueste zuerst
+    // Projektion: LikeResponse braucht nur die drei ID-Spalten der Tabelle post_like, keine Entitäten und keinen Join
+    @Query("select new com.example.questionapp.responses.LikeResponse(l.id, l.user.id, l.post.id) from Like l where l.id < :id order by l.id desc")
+    List<LikeResponse> findPage(@Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.LikeResponse(l.id, l.user.id, l.post.id) from Like l where l.user.id = :userId and l.id < :id order by l.id desc")
+    List<LikeResponse> findPageByUserId(@Param("userId") Long userId, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.LikeResponse(l.id, l.user.id, l.post.id) from Like l where l.post.id = :postId and l.id < :id order by l.id desc")
+    List<LikeResponse> findPageByPostId(@Param("postId") Long postId, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.LikeResponse(l.id, l.user.id, l.post.id) from Like l where l.user.id = :userId and l.post.id = :postId and l.id < :id order by l.id desc")
+    List<LikeResponse> findPageByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId, @Param("id") Long id, Pageable pageable);
+
+    // Export: Likes nach ID gestreamt, User und Post bleiben Proxies (LikeResponse braucht nur deren IDs)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select l from Like l order by l.id")
+    Stream<Like> streamAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select l from Like l where l.user.id = :userId order by l.id")
+    Stream<Like> streamByUserId(@Param("userId") Long userId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select l from Like l where l.post.id = :postId order by l.id")
+    Stream<Like> streamByPostId(@Param("postId") Long postId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select l from Like l where l.user.id = :userId and l.post.id = :postId order by l.id")
+    Stream<Like> streamByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
+}
@@ -1,15 +1,71 @@
 package com.example.questionapp.dataAccess;
 
 import com.example.questionapp.entities.Post;
+import com.example.questionapp.responses.PostResponse;
+import com.example.questionapp.responses.ResourceVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post,Long> {
+    @EntityGraph(attributePaths = "user")
     List<Post> findByUserId(Long userId);
 
-    @Query(value="select id from post where user_id = :userId order by create_date desc limit 5", nativeQuery=true )
-    List<Long> findTopByUserId(@Param("userId") Long userId);
+    // join fetch lädt den Benutzer in derselben Abfrage statt einer Abfrage pro Benutzer
+    @Query("select p from Post p join fetch p.user where p.id = :postId")
+    Optional<Post> findByIdWithUser(@Param("postId") Long postId);
+
+    // Projektionen für die Listen: nur die Spalten der PostResponse ohne Join, Likes und Benutzernamen ergänzt der PostFeedAssembler
+    @Query("select new com.example.questionapp.responses.PostResponse(p.id, p.user.id, p.title, p.text, p.likeCount, p.commentCount, p.createDate, p.version, coalesce(p.lastModified, p.createDate)) from Post p where p.id in :postIds")
+    List<PostResponse> findResponsesByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Stand eines Posts für bedingte GET-Anfragen, eine Zeile über den Primärschlüssel
+    @Query("select new com.example.questionapp.responses.ResourceVersion(p.version, coalesce(p.lastModified, p.createDate)) from Post p where p.id = :postId")
+    Optional<ResourceVersion> findVersionById(@Param("postId") Long postId);
+
+    // ID und Erstellungszeit der neuesten Posts eines Benutzers für den UserTimelineIndex
+    @Query("select p.id, p.createDate from Post p where p.user.id = :userId order by p.createDate desc, p.id desc")
+    List<Object[]> findTimelineByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset-Paginierung: neueste Posts zuerst, Seite beginnt nach (createDate, id) des Cursors - nutzt idx_post_create_date_id
+    @Query("select new com.example.questionapp.responses.PostResponse(p.id, p.user.id, p.title, p.text, p.likeCount, p.commentCount, p.createDate, p.version, coalesce(p.lastModified, p.createDate)) from Post p "
+            + "where p.createDate < :createDate or (p.createDate = :createDate and p.id < :id) "
+            + "order by p.createDate desc, p.id desc")
+    List<PostResponse> findPage(@Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.questionapp.responses.PostResponse(p.id, p.user.id, p.title, p.text, p.likeCount, p.commentCount, p.createDate, p.version, coalesce(p.lastModified, p.createDate)) from Post p "
+            + "where p.user.id = :userId and (p.createDate < :createDate or (p.createDate = :createDate and p.id < :id)) "
+            + "order by p.createDate desc, p.id desc")
+    List<PostResponse> findPageByUserId(@Param("userId") Long userId, @Param("createDate") Date createDate, @Param("id") Long id, Pageable pageable);
+
+    // Export: Posts nach ID gestreamt, die Zeilen werden in Blöcken der Fetch-Size gelesen statt komplett geladen
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select p from Post p order by p.id")
+    Stream<Post> streamAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select p from Post p where p.user.id = :userId order by p.id")
+    Stream<Post> streamByUserId(@Param("userId") Long userId);
+
+    @Query("select p.id from Post p where p.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    // Umbenennung des Autors: der Benutzername steht in der Antwort, deshalb neue Version (ETag) für alle seine Posts
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1, p.lastModified = :now where p.user.id = :userId")
+    int touchByUserId(@Param("userId") Long userId, @Param("now") Date now);
 }
@@ -2,8 +2,22 @@ package com.example.questionapp.dataAccess;
 
 import com.example.questionapp.entities.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
     RefreshToken findByUserId(Long userId);
+
+    List<RefreshToken> findByUserIdIn(Collection<Long> userIds);  // für das gebündelte Schreiben mehrerer Tokens
+
+    // löscht höchstens batchSize abgelaufene Tokens, damit eine Transaktion nicht die ganze Tabelle sperrt
+    @Modifying
+    @Query(value = "delete from refresh_token where expiry_date < :now limit :batchSize", nativeQuery = true)
+    int deleteExpired(@Param("now") Date now, @Param("batchSize") int batchSize);
 }
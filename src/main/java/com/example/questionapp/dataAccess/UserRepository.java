@@ -1,9 +1,18 @@
 package com.example.questionapp.dataAccess;
 
 import com.example.questionapp.entities.User;
+import com.example.questionapp.responses.ResourceVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 
 public interface UserRepository extends JpaRepository<User,Long> {
     User findByUsername(String username);
+
+    // Stand eines Benutzers für bedingte GET-Anfragen, ohne das Passwort mitzulesen
+    @Query("select new com.example.questionapp.responses.ResourceVersion(u.version, u.lastModified) from User u where u.id = :userId")
+    Optional<ResourceVersion> findVersionById(@Param("userId") Long userId);
 }
@@ -0,0 +1,46 @@
+package com.example.questionapp.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Aktivitäts-Ereignis für die Aktivitätsanzeige eines Benutzers (GET /users/activity/{userId})
+ * Wird beim Erstellen eines Likes oder Kommentars angehängt und danach nie geändert (append-only),
+ * nur mit dem Post oder einem beteiligten Benutzer gelöscht.
+ * Die Beteiligten werden nur als IDs gespeichert, damit das Schreiben keine Joins benötigt.
+ */
+@Entity
+@Data
+@Table(name = "activity_event", indexes = {
+        @Index(name = "idx_activity_recipient_create_date_id", columnList = "recipient_id, createDate, id"),  // Keyset-Paginierung je Empfänger
+        @Index(name = "idx_activity_actor", columnList = "actor_id"),  // Löschen eines Benutzers
+        @Index(name = "idx_activity_post", columnList = "post_id")     // Löschen eines Posts
+})
+public class ActivityEvent {
+
+    @Id
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.example.questionapp.entities.SnowflakeIdGenerator")
+    private Long id;
+
+    /** Besitzer des Posts - in dessen Aktivitätsanzeige erscheint das Ereignis */
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    /** Benutzer der geliked bzw. kommentiert hat */
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ActivityType type;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createDate;
+}
@@ -0,0 +1,11 @@
+package com.example.questionapp.entities;
+
+/**
+ * Art eines Aktivitäts-Ereignisses auf einem Post
+ */
+public enum ActivityType {
+    /** Ein Benutzer hat den Post geliked */
+    LIKED,
+    /** Ein Benutzer hat den Post kommentiert */
+    COMMENTED
+}
@@ -3,6 +3,7 @@ package com.example.questionapp.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -10,10 +11,15 @@ import java.util.Date;
 
 @Entity
 @Data
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        @Index(name = "idx_comment_create_date_id", columnList = "createDate, id"),
+        @Index(name = "idx_comment_post_create_date_id", columnList = "post_id, createDate, id"),
+        @Index(name = "idx_comment_user_create_date_id", columnList = "user_id, createDate, id")
+})
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.example.questionapp.entities.SnowflakeIdGenerator")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,4 +40,12 @@ public class Comment {
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date createDate;
+
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;  // bei jeder Änderung erhöht, für bedingte GET-Anfragen (siehe Post.version)
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @JsonIgnore
+    private Date lastModified;
 }
@@ -0,0 +1,56 @@
+package com.example.questionapp.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Fortschritt eines Bulk-Imports (POST /import/{jobId})
+ * Wird in derselben Transaktion wie jeder importierte Block aktualisiert. committedLines ist damit immer die Anzahl
+ * der Zeilen der Datei, deren Daten sicher gespeichert sind, und ein erneuter Aufruf setzt genau dahinter fort.
+ */
+@Entity
+@Data
+@Table(name = "import_job")
+public class ImportJob {
+
+    /** Vom Aufrufer vergebener Name des Imports, z.B. "migration-2024-05" */
+    @Id
+    @Column(length = 100)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportStatus status;
+
+    /** Zeilen der Datei die verarbeitet und committed sind (importiert oder abgelehnt) */
+    @Column(name = "committed_lines", nullable = false)
+    private long committedLines;
+
+    private long users;
+
+    private long posts;
+
+    private long comments;
+
+    private long likes;
+
+    /** Abgelehnte Zeilen: ungültiges JSON, fehlende Pflichtfelder, doppelte IDs oder unbekannte Referenzen */
+    private long rejected;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createDate;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updateDate;
+
+    /** Die ersten Ablehnungsgründe dieses Aufrufs mit Zeilennummer, nicht gespeichert */
+    @Transient
+    private List<String> errors = new ArrayList<>();
+}
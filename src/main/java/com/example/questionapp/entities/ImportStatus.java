@@ -0,0 +1,10 @@
+package com.example.questionapp.entities;
+
+/**
+ * Zustand eines Bulk-Imports
+ */
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -3,15 +3,19 @@ package com.example.questionapp.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
 @Entity
 @Data
-@Table(name = "post_like")
+@Table(name = "post_like", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_post_like_post_user", columnNames = {"post_id", "user_id"})  // ein Like pro Benutzer und Post, auch über mehrere Instanzen
+})
 public class Like {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.example.questionapp.entities.SnowflakeIdGenerator")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -4,6 +4,7 @@ package com.example.questionapp.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -15,20 +16,25 @@ import java.util.Date;
  */
 @Entity
 @Data
-@Table(name = "post")
+@Table(name = "post", indexes = {
+        @Index(name = "idx_post_create_date_id", columnList = "createDate, id"),          // Keyset-Paginierung aller Posts
+        @Index(name = "idx_post_user_create_date_id", columnList = "user_id, createDate, id")  // Keyset-Paginierung je Benutzer
+})
 public class Post {
     
     /** Eindeutige ID des Posts */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.example.questionapp.entities.SnowflakeIdGenerator")
     private Long id;
 
     /** 
      * Benutzer der diesen Post erstellt hat
      * Many-to-One Beziehung: Ein Benutzer kann viele Posts haben
      * Cascade: Wenn der Benutzer gelöscht wird, werden auch seine Posts gelöscht
+     * LAZY: Abfragen die den Benutzer brauchen laden ihn per join fetch bzw. Entity-Graph (siehe PostRepository)
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
@@ -51,5 +57,30 @@ public class Post {
     @Temporal(TemporalType.TIMESTAMP)
     private Date createDate;
 
+    /**
+     * Denormalisierte Anzahl der Likes
+     * Wird nur über den PostCounterAccumulator per "like_count = like_count + ?" geändert,
+     * daher updatable = false damit ein Speichern des Posts den Wert nicht überschreibt
+     */
+    @Column(name = "like_count", nullable = false, updatable = false)
+    private long likeCount;
+
+    /** Denormalisierte Anzahl der Kommentare (siehe likeCount) */
+    @Column(name = "comment_count", nullable = false, updatable = false)
+    private long commentCount;
+
+    /**
+     * Version für bedingte GET-Anfragen (ETag), erhöht bei jeder Änderung des Posts und beim Flush seiner Zähler
+     * Bewusst kein @Version: die Zähler werden per SQL am Entity vorbei geändert, ein Speichern darf daran nicht scheitern
+     */
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
+    /** Zeitpunkt der letzten Änderung (Last-Modified), beim Anlegen gleich createDate */
+    @Temporal(TemporalType.TIMESTAMP)
+    @JsonIgnore
+    private Date lastModified;
+
 
 }
@@ -0,0 +1,110 @@
+package com.example.questionapp.entities;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Zeitlich sortierte IDs im Prozess statt der Sequenz-Tabelle von GenerationType.AUTO (Snowflake-Verfahren)
+ * Aufbau einer ID (53 Bit, damit sie in JavaScript-Clients als Number exakt bleibt):
+ * <pre>
+ * | 41 Bit Millisekunden seit 2024-01-01 | 5 Bit Knoten | 7 Bit Zähler |
+ * </pre>
+ * - kein Datenbankzugriff und keine Sperre: der Zustand (Zeit + Zähler) wird per CAS auf einem AtomicLong fortgeschrieben
+ * - eindeutig über mehrere Instanzen, solange jede Instanz eine eigene Knotennummer hat (id.generator.node, 0-31)
+ * - 128 IDs pro Millisekunde und Knoten; läuft der Zähler über, wartet der Aufrufer auf die nächste Millisekunde
+ * - springt die Systemuhr zurück, wird von der zuletzt vergebenen ID aus weitergezählt (die Zeit in den IDs läuft der
+ *   Uhr dann voraus, bis diese aufgeholt hat) - IDs sind damit immer aufsteigend
+ * - eine größere ID ist (bis auf Knotengrenzen innerhalb derselben Millisekunde) auch später erzeugt worden
+ * Eine Instanz für alle Entitäten, IDs sind damit auch tabellenübergreifend eindeutig.
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    /** Hibernate-Einstellung für die Knotennummer, gesetzt über spring.jpa.properties.id.generator.node */
+    public static final String NODE_SETTING = "id.generator.node";
+
+    /** 2024-01-01T00:00:00Z, 41 Bit Millisekunden reichen damit bis 2093 */
+    static final long EPOCH = 1704067200000L;
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    /** (Millisekunden seit EPOCH << SEQUENCE_BITS) | Zähler der zuletzt vergebenen ID */
+    private static final AtomicLong state = new AtomicLong();
+
+    private static volatile long node;
+
+    /** Systemuhr, in Tests ersetzbar (siehe useClock) */
+    private static volatile LongSupplier clock = System::currentTimeMillis;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_SETTING);
+        setNode(setting == null ? 0 : Long.parseLong(setting.toString().trim()));
+    }
+
+    static void setNode(long configured) {
+        if (configured < 0 || configured > MAX_NODE) {
+            throw new IllegalArgumentException(NODE_SETTING + " must be between 0 and " + MAX_NODE + ", was " + configured);
+        }
+        if (node != configured) {
+            logger.info("Generating ids as node {}", configured);
+        }
+        node = configured;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return nextId();
+    }
+
+    /**
+     * Vergibt die nächste ID ohne Sperre, auch für Zeilen die an Hibernate vorbei per JDBC geschrieben werden
+     */
+    public static long nextId() {
+        while (true) {
+            long previous = state.get();
+            long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+            long next;
+            if (now > previous) {
+                next = now;  // neue Millisekunde, Zähler 0
+            } else if (now == (previous & ~MAX_SEQUENCE) && (previous & MAX_SEQUENCE) == MAX_SEQUENCE) {
+                Thread.onSpinWait();  // 128 IDs in dieser Millisekunde vergeben, auf die nächste warten
+                continue;
+            } else {
+                next = previous + 1;  // gleiche Millisekunde oder Uhr zurückgesprungen: weiterzählen
+            }
+            if (state.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * Ersetzt die Uhr und setzt den Zustand zurück, nur für Tests
+     */
+    static void useClock(LongSupplier testClock) {
+        clock = testClock;
+        state.set(0);
+    }
+
+    /**
+     * Erzeugungszeitpunkt einer ID in Millisekunden seit 1970 (für IDs aus diesem Generator)
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
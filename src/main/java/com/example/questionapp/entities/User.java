@@ -1,17 +1,24 @@
 package com.example.questionapp.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
 import lombok.Data;
 import lombok.Getter;
 
+import java.util.Date;
+
 @Entity
-@Table(name = "user")
+@Table(name = "user", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_username", columnNames = "username")  // Anmeldung per Benutzername, siehe findByUsername
+})
 @Data
 @Getter
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.example.questionapp.entities.SnowflakeIdGenerator")
     private Long id;
 
     private String username;
@@ -20,4 +27,12 @@ public class User {
 
     private int image;
 
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;  // bei jeder Änderung erhöht, für bedingte GET-Anfragen (siehe Post.version)
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @JsonIgnore
+    private Date lastModified;
+
 }
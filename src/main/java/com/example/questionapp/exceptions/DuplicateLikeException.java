@@ -0,0 +1,16 @@
+package com.example.questionapp.exceptions;
+
+/**
+ * Ausnahme die geworfen wird, wenn ein Benutzer einen Post ein zweites Mal liken will
+ * Erbt von RuntimeException für unchecked Exception-Behandlung
+ */
+public class DuplicateLikeException extends RuntimeException {
+
+    /**
+     * Konstruktor mit benutzerdefinierten Fehlernachricht
+     * @param message Die Fehlernachricht die angezeigt werden soll
+     */
+    public DuplicateLikeException(String message) {
+        super(message);
+    }
+}
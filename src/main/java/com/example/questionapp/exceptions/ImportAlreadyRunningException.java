@@ -0,0 +1,16 @@
+package com.example.questionapp.exceptions;
+
+/**
+ * Ausnahme die geworfen wird, wenn ein Import mit derselben ID bereits läuft
+ * Erbt von RuntimeException für unchecked Exception-Behandlung
+ */
+public class ImportAlreadyRunningException extends RuntimeException {
+
+    /**
+     * Konstruktor mit benutzerdefinierten Fehlernachricht
+     * @param message Die Fehlernachricht die angezeigt werden soll
+     */
+    public ImportAlreadyRunningException(String message) {
+        super(message);
+    }
+}
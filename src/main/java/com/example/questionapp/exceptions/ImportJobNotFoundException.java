@@ -0,0 +1,16 @@
+package com.example.questionapp.exceptions;
+
+/**
+ * Ausnahme die geworfen wird, wenn ein Import mit der angegebenen ID nicht existiert
+ * Erbt von RuntimeException für unchecked Exception-Behandlung
+ */
+public class ImportJobNotFoundException extends RuntimeException {
+
+    /**
+     * Konstruktor mit benutzerdefinierten Fehlernachricht
+     * @param message Die Fehlernachricht die angezeigt werden soll
+     */
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
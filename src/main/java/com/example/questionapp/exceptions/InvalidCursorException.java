@@ -0,0 +1,16 @@
+package com.example.questionapp.exceptions;
+
+/**
+ * Ausnahme die geworfen wird, wenn ein Paginierungs-Cursor (Parameter "after") nicht gelesen werden kann
+ * Erbt von RuntimeException für unchecked Exception-Behandlung
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    /**
+     * Konstruktor mit benutzerdefinierten Fehlernachricht
+     * @param message Die Fehlernachricht die angezeigt werden soll
+     */
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.questionapp.exceptions;
+
+/**
+ * Ausnahme die geworfen wird, wenn die Warteschlange der Likes voll ist oder die Anwendung herunterfährt
+ * Erbt von RuntimeException für unchecked Exception-Behandlung
+ */
+public class LikeQueueFullException extends RuntimeException {
+
+    /**
+     * Konstruktor mit benutzerdefinierten Fehlernachricht
+     * @param message Die Fehlernachricht die angezeigt werden soll
+     */
+    public LikeQueueFullException(String message) {
+        super(message);
+    }
+}
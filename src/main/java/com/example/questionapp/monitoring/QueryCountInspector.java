@@ -0,0 +1,35 @@
+package com.example.questionapp.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate StatementInspector der jede ausgeführte SQL-Anweisung pro Thread zählt
+ * Wird über "hibernate.session_factory.statement_inspector" in application.properties registriert
+ * Der Zähler wird zu Beginn jeder HTTP-Anfrage vom QueryCountFilter zurückgesetzt
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    /** Anzahl der SQL-Anweisungen des aktuellen Threads (= der aktuellen Anfrage) */
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Wird von Hibernate vor jeder SQL-Anweisung aufgerufen
+     * @param sql Die auszuführende SQL-Anweisung
+     * @return Die unveränderte SQL-Anweisung
+     */
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        return sql;
+    }
+
+    /** Setzt den Zähler des aktuellen Threads auf 0 zurück */
+    public static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    /** @return Anzahl der seit dem letzten reset() ausgeführten SQL-Anweisungen */
+    public static long current() {
+        return COUNTER.get()[0];
+    }
+}
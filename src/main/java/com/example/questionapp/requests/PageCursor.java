@@ -0,0 +1,121 @@
+package com.example.questionapp.requests;
+
+import com.example.questionapp.exceptions.InvalidCursorException;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Optional;
+import java.util.TimeZone;
+
+/**
+ * Cursor für die Keyset-Paginierung der Listen-Endpunkte
+ * Beschreibt das letzte Element der vorherigen Seite, die nächste Seite beginnt direkt danach.
+ * Format als Query-Parameter: "after=createDate,id" (createDate in Millisekunden) bzw. "after=id" für Likes.
+ * Die Abfragen vergleichen (createDate, id) mit dem Cursor und nutzen dafür einen Index statt OFFSET.
+ */
+@Getter
+public class PageCursor {
+
+    /** Seitengröße wenn kein limit angegeben ist */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /** Obergrenze für limit - verhindert dass eine Anfrage eine komplette Tabelle lädt */
+    public static final int MAX_LIMIT = 200;
+
+    /** Größtes Datum das MySQL in einer DATETIME-Spalte speichern kann */
+    private static final Date MAX_DATE = maxDate();
+
+    /** Erstellungsdatum des letzten Elements (null bei reinen ID-Cursorn) */
+    private final Date createDate;
+
+    /** ID des letzten Elements */
+    private final Long id;
+
+    private PageCursor(Date createDate, Long id) {
+        this.createDate = createDate;
+        this.id = id;
+    }
+
+    /**
+     * Cursor auf ein Element mit Erstellungsdatum und ID
+     * @param createDate Erstellungsdatum des letzten Elements
+     * @param id ID des letzten Elements
+     * @return Der Cursor
+     */
+    public static PageCursor of(Date createDate, Long id) {
+        return new PageCursor(createDate, id);
+    }
+
+    /**
+     * Cursor auf ein Element das nur über die ID sortiert wird
+     * @param id ID des letzten Elements
+     * @return Der Cursor
+     */
+    public static PageCursor ofId(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    /**
+     * Liest einen Cursor im Format "createDate,id"
+     * @param after Optionaler Cursor aus der Anfrage
+     * @return Der Cursor oder ein Cursor vor dem ersten Element wenn keiner angegeben ist
+     * @throws InvalidCursorException wenn der Cursor nicht gelesen werden kann
+     */
+    public static PageCursor parse(Optional<String> after) {
+        if(after.isEmpty()) {
+            return new PageCursor(MAX_DATE, Long.MAX_VALUE);
+        }
+        String[] parts = after.get().split(",");
+        if(parts.length != 2) {
+            throw new InvalidCursorException("cursor must have the format createDate,id");
+        }
+        return new PageCursor(new Date(parseLong(parts[0])), parseLong(parts[1]));
+    }
+
+    /**
+     * Liest einen Cursor im Format "id"
+     * @param after Optionaler Cursor aus der Anfrage
+     * @return Der Cursor oder ein Cursor vor dem ersten Element wenn keiner angegeben ist
+     * @throws InvalidCursorException wenn der Cursor nicht gelesen werden kann
+     */
+    public static PageCursor parseId(Optional<String> after) {
+        if(after.isEmpty()) {
+            return new PageCursor(null, Long.MAX_VALUE);
+        }
+        return new PageCursor(null, parseLong(after.get()));
+    }
+
+    /**
+     * Begrenzt die angefragte Seitengröße auf den erlaubten Bereich
+     * @param limit Optionale Seitengröße aus der Anfrage
+     * @return Seitengröße zwischen 1 und MAX_LIMIT
+     */
+    public static int limit(Optional<Integer> limit) {
+        return Math.max(1, Math.min(limit.orElse(DEFAULT_LIMIT), MAX_LIMIT));
+    }
+
+    /** @return Der Cursor im Format "createDate,id" bzw. "id" */
+    @Override
+    public String toString() {
+        if(createDate == null) {
+            return Long.toString(id);
+        }
+        return createDate.getTime() + "," + id;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("invalid cursor value: " + value);
+        }
+    }
+
+    private static Date maxDate() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(9999, 11, 31, 23, 59, 59);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.questionapp.requests;
+
+import com.example.questionapp.exceptions.InvalidCursorException;
+import com.example.questionapp.services.SearchIndex;
+
+import java.util.Optional;
+
+/**
+ * Cursor für die Seiten von GET /search
+ * Beschreibt den letzten Treffer der vorherigen Seite über Bewertung, Typ und ID: "after=score,p123" bzw. "after=score,c456"
+ * (p = Post, c = Kommentar). Die Bewertung wird mit Double.toString geschrieben und damit exakt wieder gelesen.
+ */
+public class SearchCursor {
+
+    private SearchCursor() {
+    }
+
+    /**
+     * Liest einen Cursor
+     * @param after Optionaler Cursor aus der Anfrage
+     * @return Der letzte Treffer der vorherigen Seite oder null für die erste Seite
+     * @throws InvalidCursorException wenn der Cursor nicht gelesen werden kann
+     */
+    public static SearchIndex.Hit parse(Optional<String> after) {
+        if(after.isEmpty()) {
+            return null;
+        }
+        String[] parts = after.get().split(",");
+        if(parts.length != 2 || parts[1].length() < 2 || (parts[1].charAt(0) != 'p' && parts[1].charAt(0) != 'c')) {
+            throw new InvalidCursorException("cursor must have the format score,p<id> or score,c<id>");
+        }
+        try {
+            return SearchIndex.Hit.of(parts[1].charAt(0) == 'p', Long.parseLong(parts[1].substring(1)), Double.parseDouble(parts[0]));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("invalid cursor value: " + after.get());
+        }
+    }
+
+    /** @return Der Cursor hinter einem Treffer */
+    public static String of(SearchIndex.Hit hit) {
+        return hit.getScore() + "," + (hit.isPost() ? "p" : "c") + hit.getId();
+    }
+}
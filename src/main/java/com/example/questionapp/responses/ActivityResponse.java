@@ -0,0 +1,50 @@
+package com.example.questionapp.responses;
+
+import com.example.questionapp.entities.ActivityEvent;
+import com.example.questionapp.entities.ActivityType;
+import com.example.questionapp.services.UserDirectory;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Response-DTO für ein Ereignis der Aktivitätsanzeige
+ *
+ * Beispiel JSON: {"type": "LIKED", "postId": 12, "userId": 3, "username": "ysk", "image": 1, "createDate": "..."}
+ */
+@Data
+public class ActivityResponse {
+
+    /** Art der Aktivität (LIKED, COMMENTED) */
+    private ActivityType type;
+
+    /** ID des betroffenen Posts */
+    private Long postId;
+
+    /** ID des Benutzers der geliked bzw. kommentiert hat */
+    private Long userId;
+
+    /** Benutzername des Benutzers der geliked bzw. kommentiert hat */
+    private String username;
+
+    /** Profilbild des Benutzers der geliked bzw. kommentiert hat */
+    private int image;
+
+    /** Zeitpunkt der Aktivität */
+    private Date createDate;
+
+    /**
+     * @param event Das Ereignis
+     * @param actor Der Benutzer der geliked bzw. kommentiert hat, null wenn er inzwischen gelöscht wurde
+     */
+    public ActivityResponse(ActivityEvent event, UserDirectory.Author actor) {
+        this.type = event.getType();
+        this.postId = event.getPostId();
+        this.userId = event.getActorId();
+        this.createDate = event.getCreateDate();
+        if (actor != null) {
+            this.username = actor.getUsername();
+            this.image = actor.getImage();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.questionapp.responses;
 
 import com.example.questionapp.entities.Comment;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
+import java.util.Date;
+
 @Data
 public class CommentResponse {
 
@@ -12,10 +15,27 @@ public class CommentResponse {
 
     private String username;
 
+    /** Nur für den Cursor der nächsten Seite, nicht Teil des JSON */
+    @JsonIgnore
+    private Date createDate;
+
+    /**
+     * Den Benutzernamen setzt der CommentService aus dem UserDirectory
+     */
     public CommentResponse(Comment comment) {
         this.id = comment.getId();
-        this.userId = comment.getUser().getId();
-        this.username = comment.getUser().getUsername();
+        this.userId = comment.getUser().getId();  // nur die ID - lädt den Benutzer nicht
         this.text = comment.getText();
+        this.createDate = comment.getCreateDate();
+    }
+
+    /**
+     * Für Projektionen ("select new ...CommentResponse(...)") - nur die benötigten Spalten, ohne Entitäten
+     */
+    public CommentResponse(Long id, Long userId, String text, Date createDate) {
+        this.id = id;
+        this.userId = userId;
+        this.text = text;
+        this.createDate = createDate;
     }
 }
@@ -0,0 +1,30 @@
+package com.example.questionapp.responses;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Eine Seite einer Keyset-paginierten Liste
+ * Die Controller geben nur die Elemente als JSON zurück, der Cursor der nächsten Seite
+ * wird im Header "X-Next-Cursor" übertragen, damit das JSON-Format der Listen unverändert bleibt.
+ *
+ * @param <T> Typ der Elemente
+ */
+@Data
+public class CursorPage<T> {
+
+    /** Name des Headers mit dem Cursor der nächsten Seite */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** Elemente dieser Seite */
+    private List<T> items;
+
+    /** Cursor für den Parameter "after" der nächsten Seite, null wenn dies die letzte Seite ist */
+    private String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.questionapp.responses;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Bereits serialisiertes JSON als Antwort: ein einzelnes Fragment oder eine Liste von Fragmenten als JSON-Array
+ * Die Fragmente kommen aus dem JsonFragmentCache und werden beim Schreiben nur aneinandergehängt - ohne Jackson,
+ * ohne Kopie in einen gemeinsamen Puffer (siehe JsonFragmentsHttpMessageConverter).
+ */
+public class JsonFragments {
+
+    private final List<byte[]> fragments;
+    private final boolean array;
+
+    private JsonFragments(List<byte[]> fragments, boolean array) {
+        this.fragments = fragments;
+        this.array = array;
+    }
+
+    /** Die Fragmente als Array "[f1,f2,...]" */
+    public static JsonFragments array(List<byte[]> fragments) {
+        return new JsonFragments(fragments, true);
+    }
+
+    /** Ein einzelnes JSON-Dokument */
+    public static JsonFragments of(byte[] json) {
+        return new JsonFragments(List.of(json), false);
+    }
+
+    /** @return Länge in Bytes, für den Content-Length Header */
+    public long length() {
+        long length = array ? 2 + Math.max(0, fragments.size() - 1) : 0;
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+        return length;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (array) {
+            outputStream.write('[');
+        }
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                outputStream.write(',');
+            }
+            outputStream.write(fragments.get(i));
+        }
+        if (array) {
+            outputStream.write(']');
+        }
+    }
+}
@@ -15,4 +15,13 @@ public class LikeResponse {  // Anstatt User und Post vollständig zurückzugebe
         this.userId = like.getUser().getId();
         this.postId = like.getPost().getId();
     }
+
+    /**
+     * Für Projektionen ("select new ...LikeResponse(...)") - nur die drei ID-Spalten, ohne Entitäten
+     */
+    public LikeResponse(Long id, Long userId, Long postId) {
+        this.id = id;
+        this.userId = userId;
+        this.postId = postId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.questionapp.responses;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Schreibt Objekte als NDJSON (ein JSON-Objekt pro Zeile) direkt in den Ausgabestrom
+ * Jedes Element wird sofort serialisiert, es wird keine Liste im Speicher aufgebaut.
+ * Der Generator puffert intern und gibt volle Puffer an den Ausgabestrom weiter, nicht jede Zeile einzeln.
+ */
+public class NdjsonWriter implements Consumer<Object> {
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);  // Trennzeichen ist der Zeilenumbruch, kein Leerzeichen
+    }
+
+    /**
+     * Schreibt ein Element als eine Zeile
+     * @throws UncheckedIOException wenn der Client die Verbindung abgebrochen hat
+     */
+    @Override
+    public void accept(Object item) {
+        try {
+            writer.writeValue(generator, item);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Gibt den restlichen Puffer an den Client weiter */
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
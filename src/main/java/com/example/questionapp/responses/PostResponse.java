@@ -3,8 +3,10 @@ package com.example.questionapp.responses;
 
 import com.example.questionapp.entities.Like;
 import com.example.questionapp.entities.Post;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -34,20 +36,57 @@ public class PostResponse {
 
     /** Liste der Likes die dieser Post erhalten hat */
     private List<LikeResponse> postLikes;
+
+    /** Anzahl der Likes */
+    private long likeCount;
+
+    /** Anzahl der Kommentare */
+    private long commentCount;
+
+    /** Erstellungsdatum, nur für den Cursor der nächsten Seite und nicht Teil des JSON */
+    @JsonIgnore
+    private Date createDate;
+
+    /** Version und letzte Änderung des Posts, nur für den Stand des gecachten JSON (siehe JsonFragmentCache) */
+    @JsonIgnore
+    private long version;
+    @JsonIgnore
+    private Date lastModified;
     
     /**
      * Konstruktor für die Umwandlung einer Post-Entität in ein Response-DTO
-     * Mapping von Entity-Daten zu Response-Objekten
+     * Mapping von Entity-Daten zu Response-Objekten; den Benutzernamen setzt der PostFeedAssembler aus dem UserDirectory
      * 
      * @param post Die Post-Entität aus der Datenbank
      * @param likes Liste der Like-Responses für diesen Post
      */
     public PostResponse(Post post, List<LikeResponse> likes){
        this.id = post.getId();
-       this.userId = post.getUser().getId();
-       this.username = post.getUser().getUsername();
+       this.userId = post.getUser().getId();  // nur die ID - lädt den Benutzer nicht
        this.title = post.getTitle();
        this.text = post.getText();
        this.postLikes = likes;
+       this.likeCount = post.getLikeCount();
+       this.commentCount = post.getCommentCount();
+       this.createDate = post.getCreateDate();
+       this.version = post.getVersion();
+       this.lastModified = post.getLastModified() == null ? post.getCreateDate() : post.getLastModified();
+    }
+
+    /**
+     * Konstruktor für Projektionen ("select new ...PostResponse(...)")
+     * Liest nur die Spalten der Response statt ganzer Post- und User-Entitäten, Likes und Benutzername setzt der PostFeedAssembler
+     */
+    public PostResponse(Long id, Long userId, String title, String text, long likeCount, long commentCount, Date createDate,
+                        long version, Date lastModified) {
+        this.id = id;
+        this.userId = userId;
+        this.title = title;
+        this.text = text;
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+        this.createDate = createDate;
+        this.version = version;
+        this.lastModified = lastModified;
     }
 }
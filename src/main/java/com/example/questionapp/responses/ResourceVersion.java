@@ -0,0 +1,58 @@
+package com.example.questionapp.responses;
+
+import java.util.Date;
+
+/**
+ * Stand einer Ressource für bedingte GET-Anfragen: ETag und Last-Modified
+ * Wird per Projektion gelesen ("select new ...ResourceVersion(...)"), ohne die Ressource selbst zu laden.
+ * Der Controller prüft damit If-None-Match / If-Modified-Since und antwortet gegebenenfalls mit 304.
+ */
+public class ResourceVersion {
+
+    private final String eTag;
+    /** Millisekunden seit 1970, -1 wenn unbekannt (dann wird nur der ETag verglichen) */
+    private final long lastModified;
+
+    /**
+     * Projektion einer einzelnen Entität
+     * @param version Die Versionsspalte
+     * @param lastModified Letzte Änderung, null bei Zeilen von vor Einführung der Spalte
+     */
+    public ResourceVersion(long version, Date lastModified) {
+        this(version + (lastModified == null ? "" : "-" + lastModified.getTime()), lastModified == null ? -1 : lastModified.getTime());
+    }
+
+    /**
+     * Projektion einer Liste, z.B. der Kommentare eines Posts
+     * @param count Anzahl der Elemente - ändert sich auch wenn eines gelöscht wird
+     * @param lastModified Letzte Änderung eines Elements oder null wenn die Liste leer ist
+     * @param parentLastModified Letzte Änderung der übergeordneten Ressource, erfasst gelöschte Elemente für If-Modified-Since
+     */
+    public ResourceVersion(long count, Date lastModified, Date parentLastModified) {
+        this(count + (lastModified == null ? "" : "-" + lastModified.getTime()), Math.max(
+                lastModified == null ? -1 : lastModified.getTime(), parentLastModified == null ? -1 : parentLastModified.getTime()));
+    }
+
+    private ResourceVersion(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Berücksichtigt noch nicht geschriebene Änderungen (PostCounterAccumulator)
+     * @param changes Anzahl der Änderungen seit dem letzten Flush - steigt nur, anders als das Netto-Delta
+     * @param lastChange Zeitpunkt der letzten dieser Änderungen in Millisekunden, -1 wenn es keine gibt
+     */
+    public ResourceVersion withPending(long changes, long lastChange) {
+        return new ResourceVersion(eTag + "-" + changes, Math.max(lastModified, lastChange));
+    }
+
+    /** Ohne Anführungszeichen, die ergänzt Spring beim Setzen des Headers */
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
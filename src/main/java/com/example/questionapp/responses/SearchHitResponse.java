@@ -0,0 +1,34 @@
+package com.example.questionapp.responses;
+
+import lombok.Data;
+
+/**
+ * Response-DTO für einen Treffer der Volltextsuche
+ * Ein Treffer ist ein Post oder ein Kommentar; bei einem Kommentar verweist postId auf den zugehörigen Post
+ *
+ * Beispiel JSON: {"type": "post", "id": 102, "postId": 102, "userId": 1, "username": "ysk", "title": "Post Titel", "text": "Post Inhalt", "score": 3.21}
+ */
+@Data
+public class SearchHitResponse {
+
+    /** "post" oder "comment" */
+    private String type;
+
+    /** ID des Posts bzw. Kommentars */
+    private Long id;
+
+    /** ID des Posts (bei einem Kommentar der kommentierte Post) */
+    private Long postId;
+
+    private Long userId;
+
+    private String username;
+
+    /** Titel des Posts, bei Kommentaren null */
+    private String title;
+
+    private String text;
+
+    /** BM25-Bewertung, höher = relevanter */
+    private double score;
+}
@@ -0,0 +1,19 @@
+package com.example.questionapp.responses;
+
+import lombok.Data;
+
+/**
+ * Eintrag der Trending-Liste - nur ID und Score, die Details liefert GET /posts/{postId}
+ */
+@Data
+public class TrendingPostResponse {
+
+    private Long postId;
+    /** Gewichtete, mit der Zeit abklingende Anzahl der Likes und Kommentare */
+    private double score;
+
+    public TrendingPostResponse(Long postId, double score) {
+        this.postId = postId;
+        this.score = score;
+    }
+}
@@ -38,12 +38,11 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         try{
             // JWT-Token aus der HTTP-Anfrage extrahieren
             String jwtToken = extractJwtFromRequest(request);
-            // Prüfen ob Token vorhanden und gültig ist
-            if(StringUtils.hasText(jwtToken) && jwtTokenProvider.validateToken(jwtToken)) {
-                // Benutzer-ID aus dem Token extrahieren
-                Long id = jwtTokenProvider.getUserIdFromJWT(jwtToken);
-                // Benutzerdetails anhand der ID laden
-                UserDetails user = userDetailsServiceImplementation.loadUserById(id);
+            // Token einmal prüfen und parsen - null wenn kein Token vorhanden oder ungültig
+            JWTClaims claims = StringUtils.hasText(jwtToken) ? jwtTokenProvider.verifyToken(jwtToken) : null;
+            if(claims != null) {
+                // Benutzerdetails anhand der Benutzer-ID aus dem Token laden
+                UserDetails user = userDetailsServiceImplementation.loadUserById(claims.getUserId());
                 if(user != null){
                     // Authentifizierungs-Token erstellen
                     UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
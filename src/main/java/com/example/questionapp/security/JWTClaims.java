@@ -0,0 +1,29 @@
+package com.example.questionapp.security;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Ergebnis einer erfolgreichen Prüfung eines JWT-Tokens
+ * Enthält die Werte die der JWTAuthenticationFilter benötigt, damit der Token nur einmal geparst werden muss
+ */
+@Getter
+public class JWTClaims {
+
+    /** Benutzer-ID aus dem Subject des Tokens */
+    private final Long userId;
+
+    /** Ablaufzeit des Tokens */
+    private final Date expiration;
+
+    public JWTClaims(Long userId, Date expiration) {
+        this.userId = userId;
+        this.expiration = expiration;
+    }
+
+    /** @return true wenn der Token abgelaufen ist */
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
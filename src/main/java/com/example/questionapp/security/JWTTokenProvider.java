@@ -1,5 +1,8 @@
 package com.example.questionapp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +15,12 @@ import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureException;
 import io.jsonwebtoken.UnsupportedJwtException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT Token Provider - Verantwortlich für die Generierung, Validierung und das Parsen von JWT-Tokens
@@ -27,6 +35,40 @@ public class JWTTokenProvider {
     @Value("${question.expires.in}")  // Token-Gültigkeitsdauer in Millisekunden
     private long EXPIRES_IN;
 
+    /** Cache bereits geprüfter Tokens (Schlüssel: SHA-256 des Tokens), null wenn deaktiviert */
+    private final Cache<String, JWTClaims> verifiedTokens;
+
+    /**
+     * Konstruktor
+     * @param verifiedCacheSize Anzahl gecachter geprüfter Tokens, 0 deaktiviert den Cache
+     */
+    public JWTTokenProvider(@Value("${security.jwt.verified.cache.size:10000}") long verifiedCacheSize) {
+        if (verifiedCacheSize > 0) {
+            this.verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheSize)
+                    .expireAfter(new Expiry<String, JWTClaims>() {
+                        // Eintrag lebt genau so lange wie der Token gültig ist
+                        @Override
+                        public long expireAfterCreate(String key, JWTClaims claims, long currentTime) {
+                            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()));
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, JWTClaims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, JWTClaims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build();
+        } else {
+            this.verifiedTokens = null;
+        }
+    }
+
     /**
      * Generiert einen JWT-Token basierend auf der Authentifizierung
      * @param auth Das Authentifizierungs-Objekt mit Benutzerinformationen
@@ -56,52 +98,64 @@ public class JWTTokenProvider {
     }
 
     /**
-     * Extrahiert die Benutzer-ID aus einem JWT-Token
-     * @param token Der JWT-Token
-     * @return Die Benutzer-ID als Long
+     * Prüft einen JWT-Token und liest dabei die benötigten Claims aus
+     * Der Token wird genau einmal geparst und die Signatur einmal geprüft.
+     * Bereits geprüfte Tokens werden (über einen SHA-256-Hash) bis zu ihrem Ablauf gecacht.
+     * @param token Der zu prüfende JWT-Token
+     * @return Die Claims des Tokens, oder null wenn der Token ungültig oder abgelaufen ist
      */
-    Long getUserIdFromJWT(String token){
-        // Token parsen und Claims extrahieren
-        Claims claims = Jwts.parser().setSigningKey(APP_SECRET).parseClaimsJws(token).getBody();
-        // Subject (Benutzer-ID) aus den Claims extrahieren und in Long konvertieren
-        return Long.parseLong(claims.getSubject());
+    public JWTClaims verifyToken(String token) {
+        if (verifiedTokens == null) {
+            return parseToken(token);
+        }
+        String digest = digest(token);
+        JWTClaims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = parseToken(token);
+            if (claims == null) {
+                return null;  // ungültige Tokens werden nicht gecacht
+            }
+            verifiedTokens.put(digest, claims);
+        }
+        return claims.isExpired() ? null : claims;
     }
 
     /**
-     * Validiert einen JWT-Token auf Gültigkeit und Ablaufzeit
-     * @param token Der zu validierende JWT-Token
-     * @return true wenn der Token gültig ist, false andernfalls
+     * Parst einen JWT-Token, prüft Signatur und Ablaufzeit
+     * @param token Der zu prüfende JWT-Token
+     * @return Die Claims des Tokens, oder null wenn der Token ungültig oder abgelaufen ist
      */
-    boolean validateToken(String token) {
+    private JWTClaims parseToken(String token) {
         try {
             // Token parsen - wenn erfolgreich, ist es ein von uns generierter Token
-            Jwts.parser().setSigningKey(APP_SECRET).parseClaimsJws(token);
+            Claims claims = Jwts.parser().setSigningKey(APP_SECRET).parseClaimsJws(token).getBody();
+            JWTClaims jwtClaims = new JWTClaims(Long.parseLong(claims.getSubject()), claims.getExpiration());
             // Prüfen ob Token nicht abgelaufen ist
-            return !isTokenExpired(token);
+            return jwtClaims.isExpired() ? null : jwtClaims;
         } catch (SignatureException e) {
-            return false;  // Ungültige Signatur
+            return null;  // Ungültige Signatur
         } catch (MalformedJwtException e) {
-            return false;  // Fehlerhaft formatierter Token
+            return null;  // Fehlerhaft formatierter Token
         } catch (ExpiredJwtException e) {
-            return false;  // Abgelaufener Token
+            return null;  // Abgelaufener Token
         } catch (UnsupportedJwtException e) {
-            return false;  // Nicht unterstützter Token-Typ
+            return null;  // Nicht unterstützter Token-Typ
         } catch (IllegalArgumentException e) {
-            return false;  // Ungültige Argumente
+            return null;  // Ungültige Argumente (auch ein Subject das keine Zahl ist)
         }
     }
 
     /**
-     * Prüft ob ein Token abgelaufen ist
-     * @param token Der zu prüfende JWT-Token
-     * @return true wenn der Token abgelaufen ist, false andernfalls
+     * Berechnet den Cache-Schlüssel eines Tokens
+     * Es wird ein Hash statt des Tokens selbst gespeichert, damit keine gültigen Tokens im Speicher liegen
      */
-    private boolean isTokenExpired(String token) {
-        // Ablaufzeit aus dem Token extrahieren
-        Date expiration = Jwts.parser().setSigningKey(APP_SECRET).parseClaimsJws(token).getBody().getExpiration();
-        // Prüfen ob Ablaufzeit vor der aktuellen Zeit liegt
-        return expiration.before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
-
 }
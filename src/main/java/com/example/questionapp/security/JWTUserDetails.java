@@ -22,6 +22,9 @@ import java.util.List;
 @Data
 public class JWTUserDetails implements UserDetails {
 
+    /** Berechtigung für Betriebsendpunkte (Bulk-Import, Actuator-Metriken), vergeben über security.operator.ids */
+    public static final String OPERATOR = "operator";
+
     public Long id;
     private String username;
     private String password;
@@ -47,9 +50,22 @@ public class JWTUserDetails implements UserDetails {
      * @return Ein UserDetails-Objekt für Spring Security
      */
     public static JWTUserDetails create(User user) {
+        return create(user, false);
+    }
+
+    /**
+     * Wie create(User), Betreiber erhalten zusätzlich die Berechtigung OPERATOR
+     * @param user Das User-Entitätsobjekt
+     * @param operator true wenn der Benutzer in security.operator.ids steht
+     * @return Ein UserDetails-Objekt für Spring Security
+     */
+    public static JWTUserDetails create(User user, boolean operator) {
         List<GrantedAuthority> authoritiesList = new ArrayList<>();
-        // Standard-Berechtigung "user" zuweisen (kein Admin-System implementiert)
+        // Standard-Berechtigung "user" zuweisen
         authoritiesList.add(new SimpleGrantedAuthority("user"));
+        if (operator) {
+            authoritiesList.add(new SimpleGrantedAuthority(OPERATOR));
+        }
         return new JWTUserDetails(user.getId(), user.getUsername(), user.getPassword(), authoritiesList);
     }
 
@@ -0,0 +1,83 @@
+package com.example.questionapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache für JWTUserDetails nach Benutzer-ID
+ * Der JWTAuthenticationFilter lädt bei jeder authentifizierten Anfrage den Benutzer - mit diesem Cache
+ * geschieht das nur beim ersten Zugriff bzw. nach Ablauf der TTL, sonst ohne Datenbankabfrage.
+ * Begrenzt nach Anzahl (security.principal.cache.max.size) und Lebensdauer (security.principal.cache.ttl.seconds).
+ * UserService entfernt Einträge beim Ändern oder Löschen eines Benutzers; auf anderen Instanzen
+ * begrenzt die TTL wie lange ein veralteter Eintrag verwendet werden kann.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private final Cache<Long, JWTUserDetails> cache;
+
+    /**
+     * @param maxSize Maximale Anzahl gecachter Benutzer
+     * @param ttlSeconds Lebensdauer eines Eintrags ab dem Laden
+     * @param meterRegistry Für die Trefferquote unter /actuator/metrics/cache.gets?tag=cache:principal
+     */
+    public PrincipalCache(@Value("${security.principal.cache.max.size:10000}") long maxSize,
+                          @Value("${security.principal.cache.ttl.seconds:600}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principal");
+    }
+
+    /**
+     * Liefert den gecachten Benutzer oder lädt ihn über den Loader
+     * @param userId Die Benutzer-ID
+     * @param loader Lädt den Benutzer aus der Datenbank, darf null liefern (wird dann nicht gecacht)
+     * @return Die Benutzerdetails oder null wenn der Benutzer nicht existiert
+     */
+    public JWTUserDetails get(Long userId, Function<Long, JWTUserDetails> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Entfernt einen Benutzer aus dem Cache (nach Änderung oder Löschung)
+     * @param userId Die Benutzer-ID
+     */
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    /** @return Treffer, Fehlschläge und Verdrängungen seit dem Start */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** @return Aktuelle Anzahl der Einträge (Näherungswert) */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /** Protokolliert die Cache-Statistik in regelmäßigen Abständen */
+    @Scheduled(fixedDelayString = "${security.principal.cache.stats.interval.ms:300000}")
+    public void logStats() {
+        CacheStats stats = cache.stats();
+        logger.debug("principal cache: size={} hits={} misses={} evictions={} hitRate={}",
+                cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.questionapp.security;
+
+import com.example.questionapp.services.ReadYourWrites;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Vermerkt jede ändernde Anfrage (POST, PUT, DELETE, ...) eines angemeldeten Benutzers in ReadYourWrites
+ * Läuft nach der Spring-Security-Filterkette (Standardreihenfolge), der Benutzer steht dann im SecurityContext.
+ * Vor der Anfrage, damit Lesezugriffe in derselben Anfrage schon vom Primary kommen, und danach erneut,
+ * damit der Zeitraum erst nach dem Schreiben beginnt.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (SAFE_METHODS.contains(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        readYourWrites.recordCurrentUserWrite();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWrites.recordCurrentUserWrite();
+        }
+    }
+}
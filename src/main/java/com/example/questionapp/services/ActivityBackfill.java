@@ -0,0 +1,111 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.ActivityType;
+import com.example.questionapp.entities.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Legt die Aktivitäts-Ereignisse für Likes und Kommentare an, die es schon vor activity_event gab
+ * Läuft einmalig nach dem Start, solange activity_event leer ist (activity.backfill.on.startup). Neue Likes und
+ * Kommentare hängen ihr Ereignis selbst an (ActivityFeedService.record); nachgetragen werden deshalb nur Zeilen bis
+ * zur höchsten ID beim Start, blockweise nach ID (activity.backfill.batch.size).
+ *
+ * post_like hat keinen Zeitstempel: ein Like bekommt den Zeitpunkt aus seiner Snowflake-ID, mindestens aber den
+ * seines Posts (ältere IDs stammen nicht aus dem Generator).
+ */
+@Component
+public class ActivityBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityBackfill.class);
+
+    private static final String INSERT =
+            "insert into activity_event (id, recipient_id, actor_id, post_id, type, create_date) values (?, ?, ?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${activity.backfill.on.startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${activity.backfill.batch.size:1000}")
+    private int batchSize;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param jdbcTemplate Für das Lesen der Likes und Kommentare und das gebündelte Einfügen der Ereignisse
+     */
+    public ActivityBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if(backfillOnStartup && jdbcTemplate.queryForList("select id from activity_event limit 1", Long.class).isEmpty()) {
+            backfill();
+        }
+    }
+
+    /**
+     * Trägt für alle Likes und Kommentare bis zur aktuell höchsten ID ein Ereignis für den Besitzer des Posts ein
+     * Prüft nicht auf vorhandene Ereignisse - nur auf eine leere Tabelle anwenden.
+     * @return Anzahl der angelegten Ereignisse
+     */
+    public int backfill() {
+        long start = System.currentTimeMillis();
+        int likes = backfill(ActivityType.LIKED,
+                jdbcTemplate.queryForObject("select max(id) from post_like", Long.class),
+                "select l.id, p.user_id, l.user_id, l.post_id, p.create_date from post_like l join post p on p.id = l.post_id "
+                        + "where l.id > ? and l.id <= ? order by l.id limit ?");
+        int comments = backfill(ActivityType.COMMENTED,
+                jdbcTemplate.queryForObject("select max(id) from comment", Long.class),
+                "select c.id, p.user_id, c.user_id, c.post_id, c.create_date from comment c join post p on p.id = c.post_id "
+                        + "where c.id > ? and c.id <= ? order by c.id limit ?");
+        if(likes + comments > 0) {
+            logger.info("backfilled {} like and {} comment activity events in {} ms",
+                    likes, comments, System.currentTimeMillis() - start);
+        }
+        return likes + comments;
+    }
+
+    /**
+     * Liest die Zeilen blockweise nach ID und fügt je Block ein JDBC-Batch ein
+     * @param maxId Höchste ID beim Start, null bei einer leeren Tabelle
+     * @param select Liefert ID, Empfänger, Beteiligten, Post und Zeitpunkt der Zeilen nach einer ID bis maxId
+     */
+    private int backfill(ActivityType type, Long maxId, String select) {
+        if(maxId == null) {
+            return 0;
+        }
+        int inserted = 0;
+        long afterId = Long.MIN_VALUE;
+        while(true) {
+            List<Object[]> events = jdbcTemplate.query(select, (rs, rowNum) -> {
+                Timestamp createDate = rs.getTimestamp(5);
+                if(type == ActivityType.LIKED) {
+                    long fromId = SnowflakeIdGenerator.timestampOf(rs.getLong(1));
+                    createDate = createDate == null || fromId > createDate.getTime() ? new Timestamp(fromId) : createDate;
+                }
+                return new Object[]{SnowflakeIdGenerator.nextId(), rs.getLong(2), rs.getLong(3), rs.getLong(4),
+                        type.name(), createDate, rs.getLong(1)};
+            }, afterId, maxId, batchSize);
+            if(events.isEmpty()) {
+                return inserted;
+            }
+            afterId = (Long) events.get(events.size() - 1)[6];
+            for(int i = 0; i < events.size(); i++) {
+                events.set(i, Arrays.copyOf(events.get(i), 6));  // ohne die ID der Quellzeile
+            }
+            jdbcTemplate.batchUpdate(INSERT, events);
+            inserted += events.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.ActivityEventRepository;
+import com.example.questionapp.entities.ActivityEvent;
+import com.example.questionapp.entities.ActivityType;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.ActivityResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Aktivitätsanzeige eines Benutzers: wer hat seine Posts geliked oder kommentiert
+ * Likes und Kommentare hängen beim Erstellen ein ActivityEvent an (Tabelle activity_event).
+ * Für jeden Benutzer hält der Service einen begrenzten Puffer der neuesten Ereignisse im Speicher
+ * (activity.buffer.capacity), der beim ersten Zugriff mit einer Abfrage geladen und danach bei jedem
+ * neuen Ereignis ergänzt wird. Seiten innerhalb des Puffers kosten damit keine Abfrage auf die Ereignisse,
+ * ältere Seiten werden per Keyset-Abfrage aus activity_event gelesen.
+ */
+@Service
+public class ActivityFeedService {
+
+    private ActivityEventRepository activityEventRepository;
+    private UserDirectory userDirectory;
+
+    private final int capacity;
+
+    private final Cache<Long, ActivityBuffer> buffers;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param activityEventRepository Repository der Aktivitäts-Ereignisse
+     * @param userDirectory Für Benutzername und Bild der beteiligten Benutzer
+     * @param capacity Anzahl der Ereignisse pro Benutzer im Speicher
+     * @param maxUsers Anzahl der Benutzer deren Puffer im Speicher gehalten wird
+     * @param ttlSeconds Lebensdauer eines Puffers bis zum erneuten Laden (Ereignisse anderer Instanzen)
+     */
+    public ActivityFeedService(ActivityEventRepository activityEventRepository, UserDirectory userDirectory,
+                               @Value("${activity.buffer.capacity:100}") int capacity,
+                               @Value("${activity.buffer.max.users:10000}") long maxUsers,
+                               @Value("${activity.buffer.ttl.seconds:300}") long ttlSeconds) {
+        this.activityEventRepository = activityEventRepository;
+        this.userDirectory = userDirectory;
+        this.capacity = capacity;
+        this.buffers = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Hängt ein Ereignis an den Stream an und ergänzt den Puffer des Empfängers
+     * @param type Art der Aktivität
+     * @param recipientId Besitzer des Posts
+     * @param actorId Benutzer der geliked bzw. kommentiert hat
+     * @param postId ID des Posts
+     */
+    public void record(ActivityType type, Long recipientId, Long actorId, Long postId) {
+        ActivityEvent event = new ActivityEvent();
+        event.setType(type);
+        event.setRecipientId(recipientId);
+        event.setActorId(actorId);
+        event.setPostId(postId);
+        event.setCreateDate(new Date());
+        ActivityEvent savedEvent = activityEventRepository.save(event);
+        ActivityBuffer buffer = buffers.getIfPresent(recipientId);
+        if(buffer != null) {
+            buffer.add(savedEvent);
+        }
+    }
+
+    /**
+     * Löscht die Ereignisse eines gelöschten Benutzers und nimmt sie aus allen Puffern
+     * @param userId Die Benutzer-ID, als Empfänger und als Beteiligter
+     */
+    public void removeUser(Long userId) {
+        activityEventRepository.deleteByUserId(userId);
+        buffers.invalidate(userId);
+        // seine Likes und Kommentare können in den Puffern beliebiger anderer Benutzer stehen
+        buffers.asMap().values().forEach(buffer -> buffer.removeIf(event -> userId.equals(event.getActorId())));
+    }
+
+    /**
+     * Löscht die Ereignisse eines gelöschten Posts und nimmt sie aus dem Puffer seines Besitzers
+     * @param postId ID des Posts
+     * @param ownerId Besitzer des Posts, nur in dessen Puffer stehen Ereignisse des Posts
+     */
+    public void removePost(Long postId, Long ownerId) {
+        activityEventRepository.deleteByPostId(postId);
+        ActivityBuffer buffer = buffers.getIfPresent(ownerId);
+        if(buffer != null) {
+            buffer.removeIf(event -> postId.equals(event.getPostId()));
+        }
+    }
+
+    /**
+     * Liefert eine Seite der Aktivitäten auf den Posts eines Benutzers, neueste zuerst
+     * @param userId Die Benutzer-ID
+     * @param after Cursor der vorherigen Seite
+     * @param limit Seitengröße
+     * @return Die Seite mit dem Cursor der nächsten Seite
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ActivityResponse> getActivity(Long userId, PageCursor after, int limit) {
+        List<ActivityEvent> events = buffers.get(userId, this::load).page(after, limit);
+        if(events == null) {
+            // Seite liegt hinter dem Puffer => aus der Datenbank
+            events = activityEventRepository.findPageByRecipientId(userId, after.getCreateDate(), after.getId(), PageRequest.of(0, limit));
+        }
+        String nextCursor = null;
+        if(events.size() == limit) {
+            ActivityEvent last = events.get(events.size() - 1);
+            nextCursor = PageCursor.of(last.getCreateDate(), last.getId()).toString();
+        }
+        return new CursorPage<>(toResponses(events), nextCursor);
+    }
+
+    /** Wandelt Ereignisse in Responses um, die beteiligten Benutzer kommen aus dem UserDirectory */
+    private List<ActivityResponse> toResponses(List<ActivityEvent> events) {
+        Set<Long> actorIds = new HashSet<>();
+        for(ActivityEvent event : events) {
+            actorIds.add(event.getActorId());
+        }
+        Map<Long, UserDirectory.Author> actors = userDirectory.getAll(actorIds);
+        List<ActivityResponse> responses = new ArrayList<>(events.size());
+        for(ActivityEvent event : events) {
+            responses.add(new ActivityResponse(event, actors.get(event.getActorId())));
+        }
+        return responses;
+    }
+
+    private ActivityBuffer load(Long userId) {
+        PageCursor first = PageCursor.parse(Optional.empty());
+        List<ActivityEvent> events = activityEventRepository.findPageByRecipientId(userId, first.getCreateDate(), first.getId(), PageRequest.of(0, capacity));
+        return new ActivityBuffer(events, capacity);
+    }
+
+    /**
+     * Puffer der neuesten Ereignisse eines Benutzers, absteigend nach (createDate, id)
+     */
+    static final class ActivityBuffer {
+        private final ArrayList<ActivityEvent> events;
+        private final int capacity;
+        /** true solange der Puffer alle Ereignisse des Benutzers enthält */
+        private boolean complete;
+
+        ActivityBuffer(List<ActivityEvent> newestFirst, int capacity) {
+            this.events = new ArrayList<>(newestFirst);
+            this.capacity = capacity;
+            this.complete = newestFirst.size() < capacity;
+        }
+
+        /**
+         * Fügt ein Ereignis an seiner Position nach (createDate, id) ein
+         * Gleichzeitige record()-Aufrufe kommen nicht unbedingt in der Reihenfolge ihrer Zeitstempel an.
+         */
+        synchronized void add(ActivityEvent event) {
+            long date = event.getCreateDate().getTime();
+            int index = 0;
+            while(index < events.size() && isNotAfter(events.get(index), date, event.getId())) {
+                if(events.get(index).getId().equals(event.getId())) {
+                    return;  // schon enthalten
+                }
+                index++;
+            }
+            if(index == events.size() && !complete) {
+                return;  // älter als der Puffer, steht dahinter in der Datenbank
+            }
+            events.add(index, event);
+            if(events.size() > capacity) {
+                events.remove(events.size() - 1);
+                complete = false;
+            }
+        }
+
+        /** Entfernt Ereignisse, z.B. eines gelöschten Posts - die Reihenfolge bleibt erhalten */
+        synchronized void removeIf(Predicate<ActivityEvent> filter) {
+            events.removeIf(filter);
+        }
+
+        /**
+         * @return Die Ereignisse nach dem Cursor, oder null wenn die Seite über den Puffer hinausreicht
+         */
+        synchronized List<ActivityEvent> page(PageCursor after, int limit) {
+            long afterDate = after.getCreateDate().getTime();
+            int start = 0;
+            while(start < events.size() && isNotAfter(events.get(start), afterDate, after.getId())) {
+                start++;
+            }
+            int end = Math.min(start + limit, events.size());
+            if(end - start < limit && !complete) {
+                return null;
+            }
+            return new ArrayList<>(events.subList(start, end));
+        }
+
+        private static boolean isNotAfter(ActivityEvent event, long afterDate, long afterId) {
+            long date = event.getCreateDate().getTime();
+            return date > afterDate || (date == afterDate && event.getId() >= afterId);
+        }
+    }
+}
@@ -3,45 +3,155 @@ package com.example.questionapp.services;
 
 import com.example.questionapp.dataAccess.CommentRepository;
 import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.ActivityType;
 import com.example.questionapp.entities.Post;
 import com.example.questionapp.entities.User;
 import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.PageCursor;
 import com.example.questionapp.requests.UpdateCommentRequest;
 import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.CursorPage;
 import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.ResourceVersion;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CommentService {
     private CommentRepository commentRepository;
     private UserService userService;
     private PostService postService;
+    private PostCounterAccumulator postCounterAccumulator;
+    private ActivityFeedService activityFeedService;
+    private SearchIndex searchIndex;
+    private TrendingPosts trendingPosts;
+    private UserDirectory userDirectory;
+    private JsonFragmentCache jsonFragmentCache;
+    private EntityManager entityManager;
 
-    public CommentService(CommentRepository commentRepository, UserService userService, PostService postService) {
+    /** Zeilen zwischen zwei clear() des Persistence Context beim Export, entspricht der Fetch-Size */
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    public CommentService(CommentRepository commentRepository, UserService userService, PostService postService, PostCounterAccumulator postCounterAccumulator,
+                          ActivityFeedService activityFeedService, SearchIndex searchIndex, TrendingPosts trendingPosts,
+                          UserDirectory userDirectory, JsonFragmentCache jsonFragmentCache, EntityManager entityManager) {
         this.commentRepository = commentRepository;
         this.userService = userService;
         this.postService = postService;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.activityFeedService = activityFeedService;
+        this.searchIndex = searchIndex;
+        this.trendingPosts = trendingPosts;
+        this.userDirectory = userDirectory;
+        this.jsonFragmentCache = jsonFragmentCache;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<CommentResponse> getAllComments(Optional<Long> userId, Optional<Long> postId, PageCursor after, int limit) {
+        return findPage(userId, postId, after, limit);
     }
 
-    public List<CommentResponse> getAllComments(Optional<Long> userId, Optional<Long> postId) {
-        List<Comment> comments;
+    /**
+     * Wie getAllComments, aber als fertiges JSON je Kommentar
+     * Mit eTag (nur Kommentare eines Posts, siehe getCommentsVersion) kommt die Seite aus dem JsonFragmentCache.
+     * Ohne eigene Transaktion: ein Treffer braucht keine Datenbankverbindung, die Abfrage sonst läuft in der des Repositorys.
+     * @param eTag Der zuvor gelesene ETag der Kommentare des Posts oder null
+     */
+    public CursorPage<byte[]> getAllCommentsJson(Optional<Long> userId, Optional<Long> postId, PageCursor after, int limit, String eTag) {
+        if(eTag == null || userId.isPresent() || postId.isEmpty()) {
+            return jsonFragmentCache.serialize(findPage(userId, postId, after, limit));
+        }
+        String pageKey = after + "/" + limit;
+        CursorPage<byte[]> page = jsonFragmentCache.getCommentPage(postId.get(), pageKey, eTag);
+        if(page == null) {
+            page = jsonFragmentCache.putCommentPage(postId.get(), pageKey, eTag, findPage(userId, postId, after, limit));
+        }
+        return page;
+    }
+
+    private CursorPage<CommentResponse> findPage(Optional<Long> userId, Optional<Long> postId, PageCursor after, int limit) {
+        List<CommentResponse> comments;  // Projektion, siehe CommentRepository.findPage
+        Pageable page = PageRequest.of(0, limit);  // nur LIMIT, kein OFFSET - der Cursor ersetzt den Offset
         if(userId.isPresent() && postId.isPresent()) {
-            comments = commentRepository.findByUserIdAndPostId(userId.get(), postId.get());  // get() gibt den Wert innerhalb zurück
+            comments = commentRepository.findPageByUserIdAndPostId(userId.get(), postId.get(), after.getCreateDate(), after.getId(), page);  // get() gibt den Wert innerhalb zurück
         }else if(userId.isPresent()){  // wenn nur userId kommt
-            comments =  commentRepository.findByUserId(userId.get());
+            comments =  commentRepository.findPageByUserId(userId.get(), after.getCreateDate(), after.getId(), page);
         }else if (postId.isPresent()){  // wenn nur postId kommt
-            comments = commentRepository.findByPostId(postId.get());
+            comments = commentRepository.findPageByPostId(postId.get(), after.getCreateDate(), after.getId(), page);
+        }else
+            comments =  commentRepository.findPage(after.getCreateDate(), after.getId(), page);  // wenn beide Parameter nicht kommen
+        String nextCursor = null;
+        if(comments.size() == limit) {  // volle Seite => es kann weitere Kommentare geben
+            CommentResponse last = comments.get(comments.size() - 1);
+            nextCursor = PageCursor.of(last.getCreateDate(), last.getId()).toString();
+        }
+        Set<Long> userIds = new HashSet<>();
+        for(CommentResponse comment : comments) {
+            userIds.add(comment.getUserId());
+        }
+        Map<Long, UserDirectory.Author> authors = userDirectory.getAll(userIds);  // Benutzernamen ohne Datenbankzugriff
+        for(CommentResponse comment : comments) {
+            UserDirectory.Author author = authors.get(comment.getUserId());
+            comment.setUsername(author == null ? null : author.getUsername());
+        }
+        return new CursorPage<>(comments, nextCursor);
+    }
+
+    /**
+     * Exportiert alle Kommentare (optional gefiltert) nach ID sortiert an den consumer
+     * Nach jeweils STREAM_CHUNK_SIZE Zeilen wird der Persistence Context geleert, der Speicherbedarf bleibt konstant
+     */
+    @Transactional(readOnly = true)
+    public void streamComments(Optional<Long> userId, Optional<Long> postId, Consumer<? super CommentResponse> consumer) {
+        Stream<Comment> comments;
+        if(userId.isPresent() && postId.isPresent()) {
+            comments = commentRepository.streamByUserIdAndPostId(userId.get(), postId.get());
+        }else if(userId.isPresent()) {
+            comments = commentRepository.streamByUserId(userId.get());
+        }else if(postId.isPresent()) {
+            comments = commentRepository.streamByPostId(postId.get());
         }else
-            comments =  commentRepository.findAll();  // wenn beide Parameter nicht kommen
-        return comments.stream().map(comment -> new CommentResponse(comment)).collect(Collectors.toList());
+            comments = commentRepository.streamAll();
+        try (Stream<Comment> stream = comments) {
+            int rows = 0;
+            Iterator<Comment> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                CommentResponse response = new CommentResponse(iterator.next());
+                response.setUsername(userDirectory.username(response.getUserId()));
+                consumer.accept(response);
+                if (++rows % STREAM_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stand der Kommentare eines Posts für bedingte GET-Anfragen (GET /comments?postId=), ohne sie zu laden
+     * Neue und gelöschte Kommentare, die noch nicht im comment_count stehen, zählen wie beim Post mit.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getCommentsVersion(Long postId) {
+        return commentRepository.findVersionByPostId(postId)
+                .withPending(postCounterAccumulator.commentChanges(postId), postCounterAccumulator.lastChange(postId));
     }
 
+    @Transactional(readOnly = true)
     public Comment getCommentById(Long commentId) {
         return commentRepository.findById(commentId).orElse(null);
     }
@@ -56,7 +166,18 @@ public class CommentService {
             comment.setUser(user);
             comment.setText(createCommentRequest.getText());
             comment.setCreateDate(new Date());
-            return commentRepository.save(comment);
+            comment.setLastModified(comment.getCreateDate());
+            Comment savedComment = postCounterAccumulator.counted(post.getId(), () -> {
+                Comment saved = commentRepository.save(comment);
+                postCounterAccumulator.addComments(post.getId(), 1);  // comment_count wird gebündelt aktualisiert
+                return saved;
+            });
+            trendingPosts.recordComment(post.getId());
+            jsonFragmentCache.invalidatePost(post.getId());  // commentCount
+            jsonFragmentCache.invalidateComments(post.getId());
+            searchIndex.indexComment(savedComment.getId(), post.getId(), savedComment.getText());
+            activityFeedService.record(ActivityType.COMMENTED, post.getUser().getId(), user.getId(), post.getId());  // Aktivität für den Besitzer des Posts
+            return savedComment;
         }
         return null;
     }
@@ -66,13 +187,28 @@ public class CommentService {
         if(comment.isPresent()){
             Comment updateComment = comment.get();
             updateComment.setText(updateCommentRequest.getText());
-            return commentRepository.save(updateComment);
+            updateComment.setVersion(updateComment.getVersion() + 1);
+            updateComment.setLastModified(new Date());
+            Comment savedComment = commentRepository.save(updateComment);
+            searchIndex.indexComment(savedComment.getId(), savedComment.getPost().getId(), savedComment.getText());
+            jsonFragmentCache.invalidateComments(savedComment.getPost().getId());
+            return savedComment;
         }else
             return null;
     }
 
     public void deleteCommentById(Long commentId) {
-        commentRepository.deleteById(commentId);
+        Optional<Comment> comment = commentRepository.findById(commentId);
+        if(comment.isPresent()) {
+            postCounterAccumulator.counted(comment.get().getPost().getId(), () -> {
+                commentRepository.delete(comment.get());
+                postCounterAccumulator.addComments(comment.get().getPost().getId(), -1);
+                return null;
+            });
+            searchIndex.removeComment(commentId);
+            jsonFragmentCache.invalidatePost(comment.get().getPost().getId());
+            jsonFragmentCache.invalidateComments(comment.get().getPost().getId());
+        }
     }
 }
 
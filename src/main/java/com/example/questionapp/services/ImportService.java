@@ -0,0 +1,386 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.ImportJobRepository;
+import com.example.questionapp.entities.ImportJob;
+import com.example.questionapp.entities.ImportStatus;
+import com.example.questionapp.exceptions.ImportAlreadyRunningException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk-Import von Benutzern, Posts, Kommentaren und Likes aus einer NDJSON-Datei
+ * Eine Zeile pro Datensatz, z.B.
+ * <pre>
+ * {"type":"user","id":1,"username":"ysk","password":"$2a$10$...","image":2}
+ * {"type":"post","id":10,"userId":1,"title":"Titel","text":"Text","createDate":"2024-05-01T10:00:00Z"}
+ * {"type":"comment","id":20,"postId":10,"userId":1,"text":"Kommentar","createDate":"2024-05-01T11:00:00Z"}
+ * {"type":"like","id":30,"postId":10,"userId":1}
+ * </pre>
+ * Nur für Betreiber (Berechtigung OPERATOR, siehe SecurityConfiguration). Benutzernamen müssen eindeutig sein, auch
+ * gegenüber vorhandenen Benutzern - sonst könnte ein Import ein zweites Konto mit bekanntem Namen und eigenem Passwort anlegen.
+ * Die IDs der Datei werden übernommen; sie kollidieren nicht mit neuen IDs, da der SnowflakeIdGenerator zeitbasierte,
+ * deutlich größere Werte vergibt. Referenzen werden gegen ID-Mengen im Speicher geprüft (vorhandene Daten plus bereits
+ * importierte Zeilen), es gibt also kein findById pro Zeile. Gültige Zeilen werden blockweise mit JDBC-Batches eingefügt,
+ * pro Block in der Reihenfolge user, post, comment, post_like, und zusammen mit dem Fortschritt in ImportJob committed.
+ * Nach einem Absturz setzt ein erneuter Aufruf mit derselben Job-ID und derselben Datei hinter der letzten committeten Zeile fort.
+ * Passwörter müssen bereits als BCrypt-Hash vorliegen. Importierte Likes und Kommentare erzeugen keine Aktivitäts-Ereignisse.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    private static final String INSERT_USER = "insert into user (id, username, password, image, version, last_modified) values (?, ?, ?, ?, 0, ?)";
+    private static final String INSERT_POST = "insert into post (id, user_id, title, text, create_date, like_count, comment_count, version, last_modified) values (?, ?, ?, ?, ?, 0, 0, 0, ?)";
+    private static final String INSERT_COMMENT = "insert into comment (id, post_id, user_id, text, create_date, version, last_modified) values (?, ?, ?, ?, ?, 0, ?)";
+    private static final String INSERT_LIKE = "insert into post_like (id, post_id, user_id) values (?, ?, ?)";
+    private static final String UPDATE_COUNTERS = "update post set like_count = like_count + ?, comment_count = comment_count + ?, version = version + 1, last_modified = ? where id = ?";
+
+    private ImportJobRepository importJobRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ObjectMapper objectMapper;
+    private UserTimelineIndex userTimelineIndex;
+    private PostLikeIndex postLikeIndex;
+    private SearchIndex searchIndex;
+    private UserDirectory userDirectory;
+
+    private final int chunkSize;
+    private final int maxErrors;
+
+    /** Laufende Imports, ein Job darf nicht zweimal gleichzeitig laufen */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param chunkSize Zeilen pro Transaktion
+     * @param maxErrors Anzahl der Ablehnungsgründe in der Antwort
+     */
+    public ImportService(ImportJobRepository importJobRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                         ObjectMapper objectMapper, UserTimelineIndex userTimelineIndex, PostLikeIndex postLikeIndex,
+                         SearchIndex searchIndex, UserDirectory userDirectory,
+                         @Value("${import.chunk.size:1000}") int chunkSize,
+                         @Value("${import.max.errors:100}") int maxErrors) {
+        this.importJobRepository = importJobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.userTimelineIndex = userTimelineIndex;
+        this.postLikeIndex = postLikeIndex;
+        this.searchIndex = searchIndex;
+        this.userDirectory = userDirectory;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportJob getImportJob(String jobId) {
+        return importJobRepository.findById(jobId).orElse(null);
+    }
+
+    /**
+     * Importiert die NDJSON-Datei bzw. setzt einen abgebrochenen Import fort
+     * @param jobId Name des Imports, derselbe Name beim Fortsetzen
+     * @param input Die Datei, Zeile für Zeile gelesen
+     * @return Der Stand des Imports, Status FAILED mit lastError wenn der Import abgebrochen ist
+     * @throws ImportAlreadyRunningException wenn der Import gerade läuft
+     */
+    public ImportJob importNdjson(String jobId, InputStream input) {
+        if (!running.add(jobId)) {
+            throw new ImportAlreadyRunningException("Import " + jobId + " is already running");
+        }
+        try {
+            ImportJob job = importJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                job = new ImportJob();
+                job.setId(jobId);
+                job.setCreateDate(new Date());
+            } else if (job.getStatus() == ImportStatus.COMPLETED) {
+                return job;
+            }
+            job.setStatus(ImportStatus.RUNNING);
+            job.setLastError(null);
+            job.setUpdateDate(new Date());
+            job = importJobRepository.save(job);
+            try {
+                run(job, input);
+                job.setStatus(ImportStatus.COMPLETED);
+            } catch (Exception e) {
+                logger.error("Import {} failed after line {}", jobId, job.getCommittedLines(), e);
+                job.setStatus(ImportStatus.FAILED);
+                job.setLastError(truncate(e.toString()));
+            }
+            job.setUpdateDate(new Date());
+            List<String> errors = job.getErrors();
+            job = importJobRepository.save(job);
+            job.setErrors(errors);
+            userTimelineIndex.invalidateAll();  // importierte Posts sind an den Timeline-Ringen vorbei geschrieben
+            postLikeIndex.invalidateAll();  // ebenso die Likes an den Like-Bitmaps
+            return job;
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    private void run(ImportJob job, InputStream input) throws IOException {
+        IdSets ids = loadIds();
+        logger.info("Import {} starting after line {} ({} users, {} posts, {} comments, {} likes already present)", job.getId(),
+                job.getCommittedLines(), ids.users.size(), ids.posts.size(), ids.comments.size(), ids.likes.size());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        Chunk chunk = new Chunk();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber <= job.getCommittedLines()) {
+                continue;  // bereits in einem früheren Aufruf committed
+            }
+            if (!line.isBlank()) {
+                String error = chunk.add(line, ids);
+                if (error != null) {
+                    chunk.rejected++;
+                    if (job.getErrors().size() < maxErrors) {
+                        job.getErrors().add("line " + lineNumber + ": " + error);
+                    }
+                }
+            }
+            if (lineNumber - job.getCommittedLines() >= chunkSize) {
+                commit(job, chunk, lineNumber);
+                chunk = new Chunk();
+            }
+        }
+        if (lineNumber > job.getCommittedLines()) {
+            commit(job, chunk, lineNumber);
+        }
+    }
+
+    /**
+     * Schreibt einen Block und den Fortschritt in einer Transaktion
+     */
+    private void commit(ImportJob job, Chunk chunk, long lineNumber) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Reihenfolge wegen der Fremdschlüssel: Benutzer vor Posts vor Kommentaren und Likes
+            jdbcTemplate.batchUpdate(INSERT_USER, chunk.users);
+            jdbcTemplate.batchUpdate(INSERT_POST, chunk.posts);
+            jdbcTemplate.batchUpdate(INSERT_COMMENT, chunk.comments);
+            jdbcTemplate.batchUpdate(INSERT_LIKE, chunk.likes);
+            List<Object[]> counters = new ArrayList<>(chunk.counters.size());
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            chunk.counters.forEach((postId, delta) -> counters.add(new Object[]{delta[0], delta[1], now, postId}));
+            jdbcTemplate.batchUpdate(UPDATE_COUNTERS, counters);
+            jdbcTemplate.update("update import_job set committed_lines = ?, users = users + ?, posts = posts + ?, comments = comments + ?, "
+                            + "likes = likes + ?, rejected = rejected + ?, update_date = ? where id = ?",
+                    lineNumber, chunk.users.size(), chunk.posts.size(), chunk.comments.size(), chunk.likes.size(), chunk.rejected,
+                    new Timestamp(System.currentTimeMillis()), job.getId());
+        });
+        // erst nach dem Commit ins Benutzerverzeichnis und in die Volltextsuche
+        for (Object[] user : chunk.users) {
+            userDirectory.put((Long) user[0], (String) user[1], (Integer) user[3]);
+        }
+        for (Object[] post : chunk.posts) {
+            searchIndex.indexPost((Long) post[0], (String) post[2], (String) post[3]);
+        }
+        for (Object[] comment : chunk.comments) {
+            searchIndex.indexComment((Long) comment[0], (Long) comment[1], (String) comment[3]);
+        }
+        job.setCommittedLines(lineNumber);
+        job.setUsers(job.getUsers() + chunk.users.size());
+        job.setPosts(job.getPosts() + chunk.posts.size());
+        job.setComments(job.getComments() + chunk.comments.size());
+        job.setLikes(job.getLikes() + chunk.likes.size());
+        job.setRejected(job.getRejected() + chunk.rejected);
+        logger.info("Import {}: {} lines committed ({} users, {} posts, {} comments, {} likes, {} rejected)", job.getId(),
+                lineNumber, job.getUsers(), job.getPosts(), job.getComments(), job.getLikes(), job.getRejected());
+    }
+
+    /** Vorhandene IDs aller Tabellen, jede Tabelle mit einer Abfrage */
+    private IdSets loadIds() {
+        IdSets ids = new IdSets();
+        ids.users = loadIds("select id from user");
+        ids.posts = loadIds("select id from post");
+        ids.comments = loadIds("select id from comment");
+        ids.likes = loadIds("select id from post_like");
+        jdbcTemplate.query("select username from user", resultSet -> {
+            ids.usernames.add(resultSet.getString(1).toLowerCase(Locale.ROOT));
+        });
+        jdbcTemplate.query("select post_id, user_id from post_like", resultSet -> {
+            ids.likers.computeIfAbsent(resultSet.getLong(1), postId -> new LongIdSet(4)).add(resultSet.getLong(2));
+        });
+        return ids;
+    }
+
+    private LongIdSet loadIds(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql.replace("select id", "select count(*)"), Long.class);
+        LongIdSet set = new LongIdSet((int) Math.min(count == null ? 0 : count, Integer.MAX_VALUE / 4));
+        jdbcTemplate.query(sql, resultSet -> {
+            set.add(resultSet.getLong(1));
+        });
+        return set;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static final class IdSets {
+        private LongIdSet users;
+        private LongIdSet posts;
+        private LongIdSet comments;
+        private LongIdSet likes;
+        /** Vorhandene und bereits importierte Benutzernamen, klein geschrieben wie der Vergleich in MySQL */
+        private final Set<String> usernames = new HashSet<>();
+        /** Post-ID -> Benutzer die ihn geliked haben, ein Benutzer darf einen Post nur einmal liken */
+        private final Map<Long, LongIdSet> likers = new HashMap<>();
+    }
+
+    /**
+     * Die gültigen Zeilen eines Blocks als Parameter der Batch-Anweisungen
+     */
+    private final class Chunk {
+        private final List<Object[]> users = new ArrayList<>();
+        private final List<Object[]> posts = new ArrayList<>();
+        private final List<Object[]> comments = new ArrayList<>();
+        private final List<Object[]> likes = new ArrayList<>();
+        /** Post-ID -> {Likes, Kommentare} für like_count und comment_count */
+        private final Map<Long, long[]> counters = new HashMap<>();
+        private int rejected;
+
+        /**
+         * Prüft eine Zeile und übernimmt sie in den Block
+         * @return Ablehnungsgrund oder null
+         */
+        String add(String line, IdSets ids) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return "invalid JSON";
+            }
+            long id = node.path("id").asLong(0);
+            if (id <= 0) {
+                return "missing or invalid id";
+            }
+            String type = node.path("type").asText();
+            switch (type) {
+                case "user": {
+                    String username = node.path("username").asText(null);
+                    if (username == null || username.isBlank()) {
+                        return "user without username";
+                    }
+                    if (ids.users.contains(id)) {
+                        return "duplicate user id " + id;
+                    }
+                    if (!ids.usernames.add(username.toLowerCase(Locale.ROOT))) {
+                        return "username '" + username + "' already exists";
+                    }
+                    ids.users.add(id);
+                    users.add(new Object[]{id, username, node.path("password").asText(null), node.path("image").asInt(0),
+                            new Timestamp(System.currentTimeMillis())});
+                    return null;
+                }
+                case "post": {
+                    long userId = node.path("userId").asLong(0);
+                    if (!ids.users.contains(userId)) {
+                        return "unknown userId " + userId;
+                    }
+                    Timestamp createDate = parseDate(node.path("createDate"));
+                    if (createDate == null) {
+                        return "invalid createDate";
+                    }
+                    if (!ids.posts.add(id)) {
+                        return "duplicate post id " + id;
+                    }
+                    posts.add(new Object[]{id, userId, node.path("title").asText(null), node.path("text").asText(null), createDate, createDate});
+                    return null;
+                }
+                case "comment": {
+                    String error = checkReferences(node, ids);
+                    if (error != null) {
+                        return error;
+                    }
+                    Timestamp createDate = parseDate(node.path("createDate"));
+                    if (createDate == null) {
+                        return "invalid createDate";
+                    }
+                    if (!ids.comments.add(id)) {
+                        return "duplicate comment id " + id;
+                    }
+                    long postId = node.path("postId").asLong();
+                    comments.add(new Object[]{id, postId, node.path("userId").asLong(), node.path("text").asText(null), createDate, createDate});
+                    counters.computeIfAbsent(postId, key -> new long[2])[1]++;
+                    return null;
+                }
+                case "like": {
+                    String error = checkReferences(node, ids);
+                    if (error != null) {
+                        return error;
+                    }
+                    if (ids.likes.contains(id)) {
+                        return "duplicate like id " + id;
+                    }
+                    long postId = node.path("postId").asLong();
+                    long userId = node.path("userId").asLong();
+                    if (!ids.likers.computeIfAbsent(postId, key -> new LongIdSet(4)).add(userId)) {
+                        return "user " + userId + " already likes post " + postId;
+                    }
+                    ids.likes.add(id);
+                    likes.add(new Object[]{id, postId, userId});
+                    counters.computeIfAbsent(postId, key -> new long[2])[0]++;
+                    return null;
+                }
+                default:
+                    return "unknown type '" + type + "'";
+            }
+        }
+
+        private String checkReferences(JsonNode node, IdSets ids) {
+            long userId = node.path("userId").asLong(0);
+            if (!ids.users.contains(userId)) {
+                return "unknown userId " + userId;
+            }
+            long postId = node.path("postId").asLong(0);
+            if (!ids.posts.contains(postId)) {
+                return "unknown postId " + postId;
+            }
+            return null;
+        }
+
+        /** ISO-8601 oder Epoch-Millisekunden, ohne Angabe der aktuelle Zeitpunkt */
+        private Timestamp parseDate(JsonNode node) {
+            if (node.isMissingNode() || node.isNull()) {
+                return new Timestamp(System.currentTimeMillis());
+            }
+            if (node.isNumber()) {
+                return new Timestamp(node.asLong());
+            }
+            try {
+                return Timestamp.from(Instant.parse(node.asText()));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.PostResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache für bereits serialisiertes JSON (UTF-8): ein Fragment pro Post und die Seiten der Kommentare eines Posts
+ * Ein viel abgerufener Post wird so nicht bei jeder Anfrage neu zusammengebaut und von Jackson serialisiert,
+ * die Controller hängen die Fragmente nur aneinander (siehe JsonFragments).
+ *
+ * Jeder Eintrag trägt den ETag unter dem er gebaut wurde (Version, letzte Änderung und offene Zähler, siehe
+ * PostService.getPostVersion bzw. CommentService.getCommentsVersion) und gilt nur solange der aktuelle ETag
+ * gleich ist. Änderungen auf anderen Instanzen oder zwischen dem Lesen des ETags und dem Eintragen liefern daher
+ * kein veraltetes JSON. Zusätzlich entfernen PostService, CommentService, LikeService und LikeBatchWriter die
+ * Einträge eines Posts bei jeder Änderung, damit veraltete Fragmente keinen Platz belegen.
+ * Der Benutzername steht nicht im ETag: bei einer Umbenennung entfernt UserService.updateUserById die Fragmente
+ * der Posts des Benutzers und die Kommentarseiten der Posts, auf denen er kommentiert hat.
+ *
+ * Begrenzt nach Bytes (json.cache.posts.max.bytes, json.cache.comments.max.bytes). Mit json.cache.enabled=false
+ * wird jedes Mal serialisiert und nichts abgelegt - die Antworten sind dieselben, nur ohne Cache.
+ */
+@Component
+public class JsonFragmentCache {
+
+    /** Ungefährer Speicher eines Eintrags ohne das JSON */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final ObjectWriter writer;
+    private final int pagesPerPost;
+    private volatile boolean enabled;
+
+    private final Cache<Long, Fragment> posts;
+    /** Post-ID -> Seitenschlüssel -> Seite; die innere Map wird nie verändert, nur ersetzt (damit stimmt das Gewicht) */
+    private final Cache<Long, Map<String, Page>> commentPages;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param objectMapper Derselbe ObjectMapper wie für die übrigen Antworten, das JSON bleibt gleich
+     * @param postsMaxBytes Maximale Größe aller Post-Fragmente
+     * @param commentsMaxBytes Maximale Größe aller Kommentarseiten
+     * @param pagesPerPost Maximale Anzahl gecachter Kommentarseiten (after/limit-Kombinationen) pro Post
+     * @param ttlSeconds Lebensdauer eines Eintrags ab dem Eintragen
+     * @param enabled false = nichts ablegen, jede Antwort wird neu serialisiert
+     * @param meterRegistry Für die Trefferquote unter /actuator/metrics/cache.gets?tag=cache:json.posts
+     */
+    public JsonFragmentCache(ObjectMapper objectMapper,
+                             @Value("${json.cache.posts.max.bytes:33554432}") long postsMaxBytes,
+                             @Value("${json.cache.comments.max.bytes:33554432}") long commentsMaxBytes,
+                             @Value("${json.cache.comment.pages.per.post:8}") int pagesPerPost,
+                             @Value("${json.cache.ttl.seconds:60}") long ttlSeconds,
+                             @Value("${json.cache.enabled:true}") boolean enabled,
+                             MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writer();
+        this.pagesPerPost = pagesPerPost;
+        this.enabled = enabled;
+        this.posts = Caffeine.newBuilder()
+                .maximumWeight(postsMaxBytes)
+                .weigher((Long postId, Fragment fragment) -> ENTRY_OVERHEAD + fragment.json.length)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.commentPages = Caffeine.newBuilder()
+                .maximumWeight(commentsMaxBytes)
+                .weigher((Long postId, Map<String, Page> pages) -> weigh(pages))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, posts, "json.posts");
+        CaffeineCacheMetrics.monitor(meterRegistry, commentPages, "json.comments");
+    }
+
+    /**
+     * @param eTag Der aktuelle ETag des Posts
+     * @return Das JSON des Posts oder null wenn es fehlt oder unter einem anderen ETag gebaut wurde
+     */
+    public byte[] getPost(Long postId, String eTag) {
+        if (!enabled) {
+            return null;
+        }
+        Fragment fragment = posts.getIfPresent(postId);
+        return fragment != null && fragment.eTag.equals(eTag) ? fragment.json : null;
+    }
+
+    /**
+     * Serialisiert einen vollständigen Post (mit Benutzername, Likes und Zählern) und legt ihn ab
+     * @param eTag Der ETag der vor dem Laden des Posts gelesen wurde
+     * @return Das JSON des Posts
+     */
+    public byte[] putPost(String eTag, PostResponse post) {
+        byte[] json = serialize(post);
+        if (enabled) {
+            posts.put(post.getId(), new Fragment(eTag, json));
+        }
+        return json;
+    }
+
+    /**
+     * @param pageKey Cursor und Seitengröße der Anfrage
+     * @param eTag Der aktuelle ETag der Kommentare des Posts
+     * @return Die Seite als JSON-Fragmente (eines pro Kommentar) oder null
+     */
+    public CursorPage<byte[]> getCommentPage(Long postId, String pageKey, String eTag) {
+        if (!enabled) {
+            return null;
+        }
+        Map<String, Page> pages = commentPages.getIfPresent(postId);
+        Page page = pages == null ? null : pages.get(pageKey);
+        return page != null && page.eTag.equals(eTag) ? page.fragments : null;
+    }
+
+    /**
+     * Serialisiert eine Seite der Kommentare eines Posts und legt sie ab
+     * Seiten unter einem älteren ETag werden dabei entfernt, bei mehr als json.cache.comment.pages.per.post die älteste
+     * @return Die Seite als JSON-Fragmente
+     */
+    public CursorPage<byte[]> putCommentPage(Long postId, String pageKey, String eTag, CursorPage<CommentResponse> comments) {
+        Page page = new Page(eTag, serialize(comments));
+        if (!enabled) {
+            return page.fragments;
+        }
+        commentPages.asMap().compute(postId, (id, pages) -> {
+            Map<String, Page> updated = new LinkedHashMap<>();
+            if (pages != null) {
+                pages.forEach((key, existing) -> {
+                    if (existing.eTag.equals(eTag) && !key.equals(pageKey)) {
+                        updated.put(key, existing);
+                    }
+                });
+            }
+            Iterator<String> oldest = updated.keySet().iterator();
+            while (updated.size() >= pagesPerPost && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+            updated.put(pageKey, page);
+            return Collections.unmodifiableMap(updated);
+        });
+        return page.fragments;
+    }
+
+    /**
+     * Serialisiert die Elemente einer Seite einzeln, ohne sie abzulegen (Listen die nicht gecacht werden)
+     */
+    public CursorPage<byte[]> serialize(CursorPage<?> page) {
+        List<byte[]> fragments = new ArrayList<>(page.getItems().size());
+        for (Object item : page.getItems()) {
+            fragments.add(serialize(item));
+        }
+        return new CursorPage<>(fragments, page.getNextCursor());
+    }
+
+    /**
+     * Schaltet den Cache ein oder aus und leert ihn, nur für Tests (Vergleich der Antworten mit und ohne Cache)
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        posts.invalidateAll();
+        commentPages.invalidateAll();
+    }
+
+    /** Nach einer Änderung des Posts, seiner Likes oder seiner Kommentarzahl */
+    public void invalidatePost(Long postId) {
+        posts.invalidate(postId);
+    }
+
+    /** Nach einem neuen, geänderten oder gelöschten Kommentar des Posts */
+    public void invalidateComments(Long postId) {
+        commentPages.invalidate(postId);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static int weigh(Map<String, Page> pages) {
+        long bytes = 0;
+        for (Page page : pages.values()) {
+            bytes += ENTRY_OVERHEAD;
+            for (byte[] fragment : page.fragments.getItems()) {
+                bytes += fragment.length;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static final class Fragment {
+        private final String eTag;
+        private final byte[] json;
+
+        Fragment(String eTag, byte[] json) {
+            this.eTag = Objects.requireNonNull(eTag);
+            this.json = json;
+        }
+    }
+
+    private static final class Page {
+        private final String eTag;
+        private final CursorPage<byte[]> fragments;
+
+        Page(String eTag, CursorPage<byte[]> fragments) {
+            this.eTag = Objects.requireNonNull(eTag);
+            this.fragments = fragments;
+        }
+    }
+}
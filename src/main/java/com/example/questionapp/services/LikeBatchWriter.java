@@ -0,0 +1,277 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.ActivityType;
+import com.example.questionapp.entities.SnowflakeIdGenerator;
+import com.example.questionapp.exceptions.DuplicateLikeException;
+import com.example.questionapp.exceptions.LikeQueueFullException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gruppen-Commit für Likes (like.write.async.enabled=true)
+ * Anfrage-Threads legen Likes in eine begrenzte Warteschlange, ein einzelner Schreib-Thread nimmt jeweils alles
+ * was sich seit dem letzten Commit angesammelt hat (höchstens like.write.batch.size) und schreibt es mit einer
+ * mehrzeiligen INSERT-Anweisung in einer Transaktion. Bei einem viralen Post zahlen so hunderte Likes einen Commit.
+ * - Rückdruck: ist die Warteschlange voll, wartet der Aufrufer höchstens like.write.offer.timeout.ms, danach 503
+ * - Fremdschlüssel und Unique-Index prüft die Datenbank; scheitert ein Block daran, wird er zeilenweise geschrieben
+ * - Likeanzahl und Aktivität werden erst nach dem Commit fortgeschrieben
+ * - beim Herunterfahren werden keine Likes mehr angenommen und die Warteschlange wird noch leer geschrieben
+ */
+@Component
+public class LikeBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeBatchWriter.class);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private PostCounterAccumulator postCounterAccumulator;
+    private ActivityFeedService activityFeedService;
+    private TrendingPosts trendingPosts;
+    private JsonFragmentCache jsonFragmentCache;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    private final BlockingQueue<PendingLike> queue;
+    private final Thread writer;
+    private volatile boolean running;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param enabled Likes über die Warteschlange schreiben statt einzeln mit LikeRepository.save
+     * @param capacity Größe der Warteschlange
+     * @param batchSize Höchstens so viele Likes pro Commit
+     * @param offerTimeoutMs Wartezeit bei voller Warteschlange
+     * @param shutdownTimeoutMs Wartezeit beim Herunterfahren bis die Warteschlange geschrieben ist
+     */
+    public LikeBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           PostCounterAccumulator postCounterAccumulator, ActivityFeedService activityFeedService,
+                           TrendingPosts trendingPosts, JsonFragmentCache jsonFragmentCache,
+                           @Value("${like.write.async.enabled:false}") boolean enabled,
+                           @Value("${like.write.queue.capacity:10000}") int capacity,
+                           @Value("${like.write.batch.size:500}") int batchSize,
+                           @Value("${like.write.offer.timeout.ms:100}") long offerTimeoutMs,
+                           @Value("${like.write.shutdown.timeout.ms:30000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.activityFeedService = activityFeedService;
+        this.trendingPosts = trendingPosts;
+        this.jsonFragmentCache = jsonFragmentCache;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::run, "like-writer");
+        if(enabled) {
+            running = true;
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stellt ein Like in die Warteschlange
+     * @return Wird nach dem Commit mit der ID des Likes erfüllt, mit null wenn Benutzer oder Post nicht existieren,
+     *         oder mit DuplicateLikeException wenn der Benutzer den Post bereits geliked hat
+     * @throws LikeQueueFullException wenn die Warteschlange voll bleibt oder die Anwendung herunterfährt
+     */
+    public CompletableFuture<Long> submit(Long userId, Long postId) {
+        PendingLike like = new PendingLike(SnowflakeIdGenerator.nextId(), userId, postId);
+        boolean accepted = false;
+        if(running) {
+            try {
+                accepted = queue.offer(like, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Herunterfahren zwischen der Prüfung und offer: der Schreib-Thread kann schon beendet sein.
+        // Wer das Like wieder aus der Warteschlange nimmt, besitzt es; sonst hat der Schreib-Thread es übernommen.
+        if(accepted && !running && queue.remove(like)) {
+            accepted = false;
+        }
+        if(!accepted) {
+            throw new LikeQueueFullException("Like queue is full or shutting down");
+        }
+        return like.result;
+    }
+
+    /** Nimmt keine Likes mehr an und wartet bis die Warteschlange geschrieben ist */
+    @PreDestroy
+    public void drainOnShutdown() throws InterruptedException {
+        if(!running) {
+            return;
+        }
+        running = false;
+        writer.join(shutdownTimeoutMs);
+        if(writer.isAlive()) {
+            logger.warn("like writer did not finish within {} ms, {} likes are still queued", shutdownTimeoutMs, queue.size());
+            // die Aufrufer nicht ewig warten lassen
+            List<PendingLike> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(like -> like.result.completeExceptionally(new LikeQueueFullException("Like queue is shutting down")));
+        }
+    }
+
+    private void run() {
+        List<PendingLike> batch = new ArrayList<>(batchSize);
+        while(running || !queue.isEmpty()) {
+            try {
+                PendingLike first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Commit und Zähler zusammen, ein Abgleich der Zähler überspringt diese Posts solange
+                List<Long> postIds = new ArrayList<>(batch.size());
+                batch.forEach(like -> postIds.add(like.postId));
+                postCounterAccumulator.counted(postIds, () -> {
+                    write(batch);
+                    return null;
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("like writer failed", e);
+                batch.forEach(like -> like.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.debug("like writer stopped");
+    }
+
+    /**
+     * Schreibt einen Block in einer Transaktion, bei einer verletzten Integritätsbedingung zeilenweise
+     */
+    private void write(List<PendingLike> batch) {
+        List<PendingLike> written = batch;
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+        } catch (DataIntegrityViolationException e) {
+            // z.B. ein gelöschter Post oder ein Like das auf einer anderen Instanz schon geschrieben wurde
+            logger.debug("batched like insert failed, writing {} likes one by one", batch.size(), e);
+            written = new ArrayList<>(batch.size());
+            for(PendingLike like : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(like)));
+                    written.add(like);
+                } catch (DataIntegrityViolationException single) {
+                    reject(like);
+                } catch (RuntimeException single) {
+                    // nur dieses Like scheitert, die schon geschriebenen werden unten fortgeschrieben
+                    logger.warn("like {} of user {} on post {} failed", like.id, like.userId, like.postId, single);
+                    like.result.completeExceptionally(single);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Datenbank nicht erreichbar o.ä. - die Aufrufer bekommen den Fehler
+            logger.warn("like batch of {} failed", batch.size(), e);
+            batch.forEach(like -> like.result.completeExceptionally(e));
+            return;
+        }
+        afterCommit(written);
+    }
+
+    private void insert(List<PendingLike> likes) {
+        StringBuilder sql = new StringBuilder("insert into post_like (id, post_id, user_id) values ");
+        Object[] args = new Object[likes.size() * 3];
+        for(int i = 0; i < likes.size(); i++) {
+            PendingLike like = likes.get(i);
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            args[i * 3] = like.id;
+            args[i * 3 + 1] = like.postId;
+            args[i * 3 + 2] = like.userId;
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    /** Ein einzeln nicht schreibbares Like: schon vorhanden => doppeltes Like, sonst fehlt Benutzer oder Post */
+    private void reject(PendingLike like) {
+        Long existing;
+        try {
+            existing = jdbcTemplate.queryForObject("select count(*) from post_like where post_id = ? and user_id = ?",
+                    Long.class, like.postId, like.userId);
+        } catch (RuntimeException e) {
+            like.result.completeExceptionally(e);
+            return;
+        }
+        if(existing != null && existing > 0) {
+            like.result.completeExceptionally(new DuplicateLikeException("User " + like.userId + " already likes post " + like.postId));
+        } else {
+            like.result.complete(null);
+        }
+    }
+
+    /** Zähler, Trending und Aktivitäten der geschriebenen Likes, die Besitzer der Posts mit einer Abfrage */
+    private void afterCommit(List<PendingLike> written) {
+        if(written.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> owners = new HashMap<>();
+        StringBuilder sql = new StringBuilder("select id, user_id from post where id in (");
+        List<Object> postIds = new ArrayList<>();
+        for(PendingLike like : written) {
+            if(!owners.containsKey(like.postId)) {
+                owners.put(like.postId, null);
+                sql.append(postIds.isEmpty() ? "?" : ", ?");
+                postIds.add(like.postId);
+            }
+        }
+        try {
+            jdbcTemplate.query(sql.append(")").toString(), resultSet -> {
+                owners.put(resultSet.getLong(1), resultSet.getLong(2));
+            }, postIds.toArray());
+        } catch (RuntimeException e) {
+            // die Likes sind committed - Zähler und Aufrufer trotzdem fortschreiben, nur ohne Aktivität
+            logger.warn("could not load the owners of {} liked posts, skipping their activities", postIds.size(), e);
+        }
+        for(PendingLike like : written) {
+            postCounterAccumulator.addLikes(like.postId, 1);
+            trendingPosts.recordLike(like.postId);
+            jsonFragmentCache.invalidatePost(like.postId);
+            Long owner = owners.get(like.postId);
+            if(owner != null) {
+                activityFeedService.record(ActivityType.LIKED, owner, like.userId, like.postId);
+            }
+            like.result.complete(like.id);
+        }
+    }
+
+    private static final class PendingLike {
+        private final long id;
+        private final Long userId;
+        private final Long postId;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingLike(long id, Long userId, Long postId) {
+            this.id = id;
+            this.userId = userId;
+            this.postId = postId;
+        }
+    }
+}
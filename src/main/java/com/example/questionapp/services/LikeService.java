@@ -3,60 +3,240 @@ package com.example.questionapp.services;
 import com.example.questionapp.dataAccess.CommentRepository;
 import com.example.questionapp.dataAccess.LikeRepository;
 import com.example.questionapp.entities.Like;
+import com.example.questionapp.entities.ActivityType;
 import com.example.questionapp.entities.Post;
 import com.example.questionapp.entities.User;
+import com.example.questionapp.exceptions.DuplicateLikeException;
 import com.example.questionapp.requests.CreateLikeRequest;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.CursorPage;
 import com.example.questionapp.responses.LikeResponse;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class LikeService {
     private LikeRepository likeRepository;
     private UserService userService;
     private PostService postService;
+    private PostCounterAccumulator postCounterAccumulator;
+    private ActivityFeedService activityFeedService;
+    private PostLikeIndex postLikeIndex;
+    private LikeBatchWriter likeBatchWriter;
+    private TrendingPosts trendingPosts;
+    private JsonFragmentCache jsonFragmentCache;
+    private EntityManager entityManager;
 
-    public LikeService(LikeRepository likeRepository, UserService userService, PostService postService) {
+    /** Zeilen zwischen zwei clear() des Persistence Context beim Export, entspricht der Fetch-Size */
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    public LikeService(LikeRepository likeRepository, UserService userService, PostService postService, PostCounterAccumulator postCounterAccumulator,
+                       ActivityFeedService activityFeedService, PostLikeIndex postLikeIndex, LikeBatchWriter likeBatchWriter,
+                       TrendingPosts trendingPosts, JsonFragmentCache jsonFragmentCache, EntityManager entityManager) {
         this.likeRepository = likeRepository;
         this.userService = userService;
         this.postService = postService;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.activityFeedService = activityFeedService;
+        this.postLikeIndex = postLikeIndex;
+        this.likeBatchWriter = likeBatchWriter;
+        this.trendingPosts = trendingPosts;
+        this.jsonFragmentCache = jsonFragmentCache;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<LikeResponse> getAllLikes(Optional<Long> userId, Optional<Long> postId, PageCursor after, int limit) {
+        List<LikeResponse> list;  // Projektion, siehe LikeRepository.findPage
+        Pageable page = PageRequest.of(0, limit);  // nur LIMIT, kein OFFSET - der Cursor ersetzt den Offset
+        if(userId.isPresent() && postId.isPresent()) {
+            list = likeRepository.findPageByUserIdAndPostId(userId.get(), postId.get(), after.getId(), page);
+        }else if(userId.isPresent()) {
+            list = likeRepository.findPageByUserId(userId.get(), after.getId(), page);
+        }else if(postId.isPresent()) {
+            list = likeRepository.findPageByPostId(postId.get(), after.getId(), page);
+        }else
+            list = likeRepository.findPage(after.getId(), page);
+        String nextCursor = null;
+        if(list.size() == limit) {  // volle Seite => es kann weitere Likes geben
+            nextCursor = PageCursor.ofId(list.get(list.size() - 1).getId()).toString();
+        }
+        return new CursorPage<>(list, nextCursor);
     }
 
-    public List<LikeResponse> getAllLikes(Optional<Long> userId, Optional<Long> postId) {
-        List<Like> list;
+    /**
+     * Exportiert alle Likes (optional gefiltert) nach ID sortiert an den consumer
+     * Nach jeweils STREAM_CHUNK_SIZE Zeilen wird der Persistence Context geleert, der Speicherbedarf bleibt konstant
+     */
+    @Transactional(readOnly = true)
+    public void streamLikes(Optional<Long> userId, Optional<Long> postId, Consumer<? super LikeResponse> consumer) {
+        Stream<Like> likes;
         if(userId.isPresent() && postId.isPresent()) {
-            list = likeRepository.findByUserIdAndPostId(userId.get(), postId.get());
+            likes = likeRepository.streamByUserIdAndPostId(userId.get(), postId.get());
         }else if(userId.isPresent()) {
-            list = likeRepository.findByUserId(userId.get());
+            likes = likeRepository.streamByUserId(userId.get());
         }else if(postId.isPresent()) {
-            list = likeRepository.findByPostId(postId.get());
+            likes = likeRepository.streamByPostId(postId.get());
         }else
-            list = likeRepository.findAll();
-        return list.stream().map(like -> new LikeResponse(like)).collect(Collectors.toList());  // Likes genommen und zu LikeResponse gemappt.
+            likes = likeRepository.streamAll();
+        try (Stream<Like> stream = likes) {
+            int rows = 0;
+            Iterator<Like> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(new LikeResponse(iterator.next()));
+                if (++rows % STREAM_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
+    @Transactional(readOnly = true)
     public Like getLikeById(Long LikeId) {
         return likeRepository.findById(LikeId).orElse(null);
     }
 
+    /**
+     * Prüft mit dem PostLikeIndex ohne Datenbankzugriff, welche der Posts der Benutzer geliked hat
+     * @return Die geliketen Post-IDs in der Reihenfolge von postIds
+     */
+    public List<Long> getLikedPostIds(Long userId, List<Long> postIds) {
+        return postLikeIndex.likedPosts(userId, postIds);
+    }
+
+    /**
+     * @return true wenn Likes über die Warteschlange des LikeBatchWriter geschrieben werden
+     */
+    public boolean isQueued() {
+        return likeBatchWriter.isEnabled();
+    }
+
+    /**
+     * @throws DuplicateLikeException wenn der Benutzer den Post bereits geliked hat
+     */
     public Like createLike(CreateLikeRequest CreateLikeRequest) {
+        if(likeBatchWriter.isEnabled()) {
+            // Gruppen-Commit: warten bis der Block mit diesem Like committed ist
+            Long likeId;
+            try {
+                likeId = enqueueLike(CreateLikeRequest).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            if(likeId == null) {
+                return null;
+            }
+            Like like = new Like();
+            like.setId(likeId);
+            return like;
+        }
         User user = userService.getUserById(CreateLikeRequest.getUserId());
         Post post = postService.getPostById(CreateLikeRequest.getPostId());
         if(user != null && post != null) {
+            // im Index eintragen bevor gespeichert wird - ein gleichzeitiges zweites Like wird so schon hier abgewiesen
+            if(!postLikeIndex.add(post.getId(), user.getId())) {
+                throw new DuplicateLikeException("User " + user.getId() + " already likes post " + post.getId());
+            }
             Like like = new Like();
             like.setId(CreateLikeRequest.getId());
             like.setPost(post);
             like.setUser(user);
-            return likeRepository.save(like);
+            Like savedLike = postCounterAccumulator.counted(post.getId(), () -> {
+                Like saved;
+                try {
+                    saved = likeRepository.save(like);
+                } catch (DataIntegrityViolationException e) {
+                    // wie LikeBatchWriter.reject: nur ein vorhandenes Like (einer anderen Instanz, das im Index noch fehlte)
+                    // ist ein doppeltes Like und der Eintrag im Index stimmt; sonst z.B. Post inzwischen gelöscht
+                    if(likeRepository.existsByUserIdAndPostId(user.getId(), post.getId())) {
+                        throw new DuplicateLikeException("User " + user.getId() + " already likes post " + post.getId());
+                    }
+                    postLikeIndex.remove(post.getId(), user.getId());
+                    throw e;
+                } catch (RuntimeException e) {
+                    postLikeIndex.remove(post.getId(), user.getId());
+                    throw e;
+                }
+                postCounterAccumulator.addLikes(post.getId(), 1);  // like_count wird gebündelt aktualisiert
+                return saved;
+            });
+            trendingPosts.recordLike(post.getId());
+            jsonFragmentCache.invalidatePost(post.getId());
+            activityFeedService.record(ActivityType.LIKED, post.getUser().getId(), user.getId(), post.getId());  // Aktivität für den Besitzer des Posts
+            return savedLike;
         }else
             return null;
     }
 
+    /**
+     * Stellt ein Like in die Warteschlange des LikeBatchWriter, Benutzer und Post prüft die Datenbank beim Schreiben
+     * @return Wird nach dem Commit mit der ID des Likes erfüllt, mit null wenn Benutzer oder Post nicht existieren
+     * @throws DuplicateLikeException wenn der Benutzer den Post bereits geliked hat
+     * @throws com.example.questionapp.exceptions.LikeQueueFullException wenn die Warteschlange voll ist
+     */
+    public CompletableFuture<Long> enqueueLike(CreateLikeRequest createLikeRequest) {
+        Long userId = createLikeRequest.getUserId();
+        Long postId = createLikeRequest.getPostId();
+        if(userId == null || postId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if(!postLikeIndex.add(postId, userId)) {
+            throw new DuplicateLikeException("User " + userId + " already likes post " + postId);
+        }
+        CompletableFuture<Long> result;
+        try {
+            result = likeBatchWriter.submit(userId, postId);
+        } catch (RuntimeException e) {
+            postLikeIndex.remove(postId, userId);
+            throw e;
+        }
+        return result.whenComplete((likeId, error) -> {
+            // nicht geschrieben => Eintrag im Index zurücknehmen, außer das Like existierte schon
+            if(likeId == null && !(error instanceof DuplicateLikeException)) {
+                postLikeIndex.remove(postId, userId);
+            }
+        });
+    }
+
     public void deleteLikeById(Long likeId) {
-        likeRepository.deleteById(likeId);
+        Optional<Like> like = likeRepository.findById(likeId);
+        if(like.isPresent()) {
+            postCounterAccumulator.counted(like.get().getPost().getId(), () -> {
+                likeRepository.delete(like.get());
+                postCounterAccumulator.addLikes(like.get().getPost().getId(), -1);
+                return null;
+            });
+            postLikeIndex.remove(like.get().getPost().getId(), like.get().getUser().getId());
+            jsonFragmentCache.invalidatePost(like.get().getPost().getId());
+        }
+    }
+
+    /**
+     * Unlike über (Benutzer, Post) - eine delete-Anweisung, ohne das Like vorher zu laden
+     */
+    public void deleteLike(Long userId, Long postId) {
+        // die Anweisung committed in ihrer eigenen Transaktion (siehe LikeRepository), vor dem Delta
+        int deleted = postCounterAccumulator.counted(postId, () -> {
+            int rows = likeRepository.deleteByUserIdAndPostId(userId, postId);
+            postCounterAccumulator.addLikes(postId, -rows);
+            return rows;
+        });
+        postLikeIndex.remove(postId, userId);
+        if(deleted > 0) {
+            jsonFragmentCache.invalidatePost(postId);
+        }
     }
 
 }
\ No newline at end of file
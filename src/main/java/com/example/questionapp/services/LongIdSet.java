@@ -0,0 +1,79 @@
+package com.example.questionapp.services;
+
+import java.util.Arrays;
+
+/**
+ * Menge positiver long-IDs mit offener Adressierung in einem long[]
+ * Braucht etwa 16 Byte pro ID statt rund 50 Byte bei HashSet&lt;Long&gt;, wichtig für die ID-Mengen beim Bulk-Import.
+ * 0 markiert einen freien Platz, deshalb sind nur IDs &gt; 0 erlaubt.
+ */
+final class LongIdSet {
+
+    private long[] table;
+    private int size;
+
+    LongIdSet(int expectedSize) {
+        table = new long[tableSizeFor(expectedSize)];
+    }
+
+    boolean contains(long id) {
+        int mask = table.length - 1;
+        for (int i = index(id, mask); ; i = (i + 1) & mask) {
+            long value = table[i];
+            if (value == id) {
+                return true;
+            }
+            if (value == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return false wenn die ID schon enthalten war
+     */
+    boolean add(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be positive: " + id);
+        }
+        if ((size + 1) * 2L > table.length) {
+            resize();
+        }
+        int mask = table.length - 1;
+        for (int i = index(id, mask); ; i = (i + 1) & mask) {
+            long value = table[i];
+            if (value == id) {
+                return false;
+            }
+            if (value == 0) {
+                table[i] = id;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        size = 0;
+        Arrays.stream(old).filter(id -> id != 0).forEach(this::add);
+    }
+
+    private static int index(long id, int mask) {
+        long hash = id * 0x9E3779B97F4A7C15L;  // Fibonacci-Hashing verteilt fortlaufende IDs
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.questionapp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Sammelt Änderungen an like_count und comment_count der Posts im Speicher
+ * und schreibt sie gebündelt in die Datenbank, statt bei jedem Like/Kommentar den Post zu aktualisieren.
+ *
+ * Jeder Post mit offenen Änderungen hat eine Zelle aus mehreren Slots (Stripes); jeder Thread zählt
+ * per CAS in "seinen" Slot, sodass sich auch bei einem viralen Post die Threads kaum gegenseitig behindern.
+ * Beim Flush wird jeder Slot atomar auf RETIRED gesetzt und die Zelle entfernt - ein Thread der auf
+ * eine ausgemusterte Zelle trifft legt einfach eine neue an. Dadurch geht kein Delta verloren und es wird
+ * auf dem Hot-Path kein Lock benötigt.
+ *
+ * Geflusht wird periodisch (post.counter.flush.interval.ms) und beim Herunterfahren. Jeder geflushte Post bekommt
+ * eine neue Version (ETag) - auch wenn sich Likes und Unlikes aufheben, denn die Liste der Likes hat sich geändert.
+ * Bis dahin zählt jede Zelle neben den Deltas auch die Anzahl der Änderungen, die nur steigt, und den Zeitpunkt der
+ * letzten Änderung; daraus bilden die ETags (changes, lastChange), ein Like und ein Unlike heben sich dort nicht auf.
+ *
+ * Änderungen an post_like und comment laufen zusammen mit ihrem addLikes/addComments in counted(). Dort werden nur
+ * Zähler begonnener und abgeschlossener Änderungen je Post (per Hash auf Buckets verteilt, wie die Zellen gestript)
+ * erhöht; der PostCounterReconciler überspringt über writeMarker() Posts, an denen während seiner Zählung eine
+ * Änderung lief - sonst könnte eine Zeile gezählt und ihr Delta danach ein zweites Mal addiert werden.
+ */
+@Component
+public class PostCounterAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterAccumulator.class);
+
+    /** Anzahl der Slots pro Zelle (Zweierpotenz) */
+    private static final int STRIPES = 8;
+
+    /** Markiert einen bereits geflushten Slot */
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private static final int LIKES = 0;
+    private static final int COMMENTS = 1;
+    /** Anzahl der Änderungen an Likes bzw. Kommentaren, Index = Zähler + CHANGES */
+    private static final int CHANGES = 2;
+    /** Zeitpunkt der letzten Änderung in Millisekunden, beim Summieren wird das Maximum genommen */
+    private static final int CHANGED_AT = 4;
+    /** Slots pro Stripe */
+    private static final int SLOTS = 5;
+
+    /** Offene Änderungen je Post-ID: Slot i*SLOTS + LIKES, COMMENTS, CHANGES + Zähler, CHANGED_AT */
+    private final ConcurrentHashMap<Long, AtomicLongArray> cells = new ConcurrentHashMap<>();
+
+    /** Deltas die gerade geschrieben werden - bleiben bis zum Commit für pending...() sichtbar */
+    private volatile Map<Long, long[]> inFlight = Map.of();
+
+    /** Anzahl der Buckets der Schreibzähler (Zweierpotenz) - Posts im selben Bucket werden gemeinsam übersprungen */
+    private static final int WRITE_BUCKETS = 256;
+
+    /** Begonnene Änderungen in counted(), Index = Bucket * STRIPES + Stripe */
+    private final AtomicLongArray writesStarted = new AtomicLongArray(WRITE_BUCKETS * STRIPES);
+
+    /** Abgeschlossene Änderungen in counted(), gleiche Aufteilung wie writesStarted */
+    private final AtomicLongArray writesFinished = new AtomicLongArray(WRITE_BUCKETS * STRIPES);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param jdbcTemplate Für die gebündelten UPDATE-Anweisungen
+     * @param transactionTemplate Ein Flush wird in einer Transaktion geschrieben
+     */
+    public PostCounterAccumulator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Merkt eine Änderung der Like-Anzahl eines Posts vor
+     * @param postId ID des Posts
+     * @param delta +1 für einen neuen Like, -1 für einen gelöschten
+     */
+    public void addLikes(Long postId, long delta) {
+        add(postId, LIKES, delta);
+    }
+
+    /**
+     * Merkt eine Änderung der Kommentar-Anzahl eines Posts vor
+     * @param postId ID des Posts
+     * @param delta +1 für einen neuen Kommentar, -1 für einen gelöschten
+     */
+    public void addComments(Long postId, long delta) {
+        add(postId, COMMENTS, delta);
+    }
+
+    /**
+     * @param postId ID des Posts
+     * @return Noch nicht in die Datenbank geschriebene Änderung der Like-Anzahl
+     */
+    public long pendingLikes(Long postId) {
+        return pending(postId, LIKES);
+    }
+
+    /**
+     * @param postId ID des Posts
+     * @return Noch nicht in die Datenbank geschriebene Änderung der Kommentar-Anzahl
+     */
+    public long pendingComments(Long postId) {
+        return pending(postId, COMMENTS);
+    }
+
+    /**
+     * @param postId ID des Posts
+     * @return Anzahl der noch nicht geschriebenen Änderungen an Likes und Kommentaren, steigt bis zum Flush nur an
+     */
+    public long changes(Long postId) {
+        return pending(postId, CHANGES + LIKES) + pending(postId, CHANGES + COMMENTS);
+    }
+
+    /**
+     * @param postId ID des Posts
+     * @return Anzahl der noch nicht geschriebenen Änderungen an Kommentaren, steigt bis zum Flush nur an
+     */
+    public long commentChanges(Long postId) {
+        return pending(postId, CHANGES + COMMENTS);
+    }
+
+    /**
+     * @param postId ID des Posts
+     * @return Zeitpunkt der letzten noch nicht geschriebenen Änderung in Millisekunden, -1 wenn es keine gibt
+     */
+    public long lastChange(Long postId) {
+        long[] flushing = inFlight.get(postId);
+        long last = flushing == null ? -1 : flushing[CHANGED_AT];
+        AtomicLongArray cell = cells.get(postId);
+        if(cell == null) {
+            return last;
+        }
+        for(int i = CHANGED_AT; i < cell.length(); i += SLOTS) {
+            last = Math.max(last, cell.get(i));  // RETIRED ist Long.MIN_VALUE und fällt so heraus
+        }
+        return last;
+    }
+
+    /**
+     * Führt eine Änderung an post_like oder comment samt addLikes/addComments aus
+     * Die Änderung muss beim Verlassen von write committed und ihr Delta vorgemerkt sein.
+     * @param postId ID des geänderten Posts
+     * @return Das Ergebnis von write
+     */
+    public <T> T counted(Long postId, Supplier<T> write) {
+        return counted(List.of(postId), write);
+    }
+
+    /**
+     * Wie counted(Long, Supplier) für eine Änderung an mehreren Posts (z.B. ein Block des LikeBatchWriter)
+     * @param postIds IDs der geänderten Posts, doppelte sind erlaubt
+     * @return Das Ergebnis von write
+     */
+    public <T> T counted(Collection<Long> postIds, Supplier<T> write) {
+        int stripe = stripe();
+        for(Long postId : postIds) {
+            writesStarted.incrementAndGet(writeSlot(postId, stripe));
+        }
+        try {
+            return write.get();
+        } finally {
+            for(Long postId : postIds) {
+                writesFinished.incrementAndGet(writeSlot(postId, stripe));
+            }
+        }
+    }
+
+    /**
+     * Stand der Schreibzähler eines Posts für den Abgleich
+     * Ist der Wert vor und nach dem Zählen der Zeilen gleich und nicht -1, lief dazwischen keine Änderung an dem Post:
+     * jede gezählte Zeile hat ihr Delta bereits vorgemerkt oder geschrieben.
+     * @param postId ID des Posts
+     * @return Anzahl der begonnenen Änderungen, -1 solange eine Änderung läuft
+     */
+    public long writeMarker(Long postId) {
+        int base = bucket(postId) * STRIPES;
+        // zuerst die abgeschlossenen lesen: eine Änderung zwischen den beiden Schleifen zählt so als laufend
+        long finished = 0;
+        for(int i = 0; i < STRIPES; i++) {
+            finished += writesFinished.get(base + i);
+        }
+        long started = 0;
+        for(int i = 0; i < STRIPES; i++) {
+            started += writesStarted.get(base + i);
+        }
+        return started == finished ? started : -1;
+    }
+
+    /**
+     * Führt work aus während kein Flush läuft - pending...() ändert sich dann nur durch neue Änderungen
+     * Änderungen selbst warten nicht, nur der nächste Flush.
+     * @return Das Ergebnis von work
+     */
+    public synchronized <T> T withoutFlush(Supplier<T> work) {
+        return work.get();
+    }
+
+    /**
+     * Schreibt alle offenen Deltas mit einem JDBC-Batch in die Tabelle post
+     * Schlägt das Schreiben fehl, werden die Deltas wieder vorgemerkt und beim nächsten Flush erneut versucht
+     */
+    @Scheduled(fixedDelayString = "${post.counter.flush.interval.ms:1000}")
+    public synchronized void flush() {
+        Map<Long, long[]> drained = drain();
+        if(drained.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(drained.size());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        drained.forEach((postId, delta) -> batch.add(new Object[]{delta[LIKES], delta[COMMENTS], now, postId}));
+        inFlight = drained;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("update post set like_count = like_count + ?, comment_count = comment_count + ?, "
+                            + "version = version + 1, last_modified = ? where id = ?", batch));
+            logger.debug("flushed counter deltas for {} posts", batch.size());
+        } catch (RuntimeException e) {
+            logger.warn("counter flush failed, deltas for {} posts are kept for the next flush", batch.size(), e);
+            drained.forEach((postId, delta) -> {
+                record(postId, LIKES, delta[LIKES], delta[CHANGES + LIKES], delta[CHANGED_AT]);
+                record(postId, COMMENTS, delta[COMMENTS], delta[CHANGES + COMMENTS], delta[CHANGED_AT]);
+            });
+        } finally {
+            inFlight = Map.of();
+        }
+    }
+
+    /** Schreibt beim Herunterfahren alle noch offenen Deltas */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void add(Long postId, int counter, long delta) {
+        if(delta == 0) {
+            return;
+        }
+        record(postId, counter, delta, 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Zählt Delta, Änderungen und Zeitpunkt in den Stripe des aktuellen Threads
+     * Die drei Slots werden einzeln aktualisiert; fällt ein Flush dazwischen, landet der Rest in der nächsten Zelle.
+     * Das ergibt höchstens einen zusätzlichen Flush mit Delta 0, aber nie einen unveränderten ETag nach einer Änderung.
+     */
+    private void record(Long postId, int counter, long delta, long changes, long changedAt) {
+        int base = stripe() * SLOTS;
+        if(delta != 0) {
+            accumulate(postId, base + counter, delta, false);
+        }
+        if(changes != 0) {
+            accumulate(postId, base + CHANGES + counter, changes, false);
+        }
+        if(changedAt > 0) {
+            accumulate(postId, base + CHANGED_AT, changedAt, true);
+        }
+    }
+
+    /**
+     * @param max true = den Slot auf das Maximum aus altem Wert und value setzen, false = value addieren
+     */
+    private void accumulate(Long postId, int slot, long value, boolean max) {
+        while(true) {
+            AtomicLongArray cell = cells.computeIfAbsent(postId, id -> new AtomicLongArray(STRIPES * SLOTS));
+            long current = cell.get(slot);
+            if(current == RETIRED) {
+                // Zelle wird gerade geflusht - entfernen helfen und mit einer neuen Zelle erneut versuchen
+                cells.remove(postId, cell);
+                continue;
+            }
+            long next = max ? Math.max(current, value) : current + value;
+            if(next == current || cell.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    private long pending(Long postId, int counter) {
+        long[] flushing = inFlight.get(postId);
+        long sum = flushing == null ? 0 : flushing[counter];
+        AtomicLongArray cell = cells.get(postId);
+        if(cell == null) {
+            return sum;
+        }
+        for(int i = counter; i < cell.length(); i += SLOTS) {
+            long value = cell.get(i);
+            if(value != RETIRED) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Mustert alle Zellen aus und summiert ihre Slots
+     * @return Map von Post-ID auf die Slots eines Stripes (Deltas, Änderungen, letzter Zeitpunkt),
+     *         alle Posts mit Änderungen seit dem letzten Flush
+     */
+    private Map<Long, long[]> drain() {
+        Map<Long, long[]> drained = new HashMap<>();
+        for(Map.Entry<Long, AtomicLongArray> entry : cells.entrySet()) {
+            AtomicLongArray cell = entry.getValue();
+            long[] delta = new long[SLOTS];
+            for(int i = 0; i < cell.length(); i++) {
+                long value = cell.getAndSet(i, RETIRED);
+                if(value == RETIRED) {
+                    continue;
+                }
+                int kind = i % SLOTS;
+                delta[kind] = kind == CHANGED_AT ? Math.max(delta[kind], value) : delta[kind] + value;
+            }
+            cells.remove(entry.getKey(), cell);
+            drained.put(entry.getKey(), delta);  // auch mit Delta 0, siehe Klassenkommentar
+        }
+        return drained;
+    }
+
+    private static int bucket(Long postId) {
+        long hash = postId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 56) & (WRITE_BUCKETS - 1);
+    }
+
+    private static int writeSlot(Long postId, int stripe) {
+        return bucket(postId) * STRIPES + stripe;
+    }
+
+    private static int stripe() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1));
+    }
+}
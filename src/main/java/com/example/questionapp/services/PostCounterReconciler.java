@@ -0,0 +1,133 @@
+package com.example.questionapp.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gleicht like_count und comment_count der Posts mit den tatsächlichen Zeilen in post_like und comment ab
+ * Repariert Abweichungen (z.B. nach einem Absturz vor dem Flush oder direkten Änderungen in der Datenbank).
+ * Läuft nach Zeitplan (post.counter.reconcile.cron), auf Wunsch auch nach dem Start (post.counter.reconcile.on.startup).
+ *
+ * Die Posts werden in Blöcken von post.counter.reconcile.batch.size IDs abgeglichen. Der Sollwert eines Posts ist die
+ * Anzahl der Zeilen minus der noch nicht geschriebenen Deltas des PostCounterAccumulator. Posts an denen während
+ * der Zählung eine Änderung lief, werden übersprungen und beim nächsten Lauf abgeglichen; Likes und Kommentare
+ * warten nie auf den Abgleich.
+ */
+@Component
+public class PostCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciler.class);
+
+    private JdbcTemplate jdbcTemplate;
+    private PostCounterAccumulator postCounterAccumulator;
+
+    @Value("${post.counter.reconcile.on.startup:false}")
+    private boolean reconcileOnStartup;
+
+    @Value("${post.counter.reconcile.batch.size:500}")
+    private int batchSize;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param jdbcTemplate Für die Abgleich-Abfragen
+     * @param postCounterAccumulator Noch nicht geschriebene Deltas und laufende Änderungen je Post
+     */
+    public PostCounterReconciler(JdbcTemplate jdbcTemplate, PostCounterAccumulator postCounterAccumulator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postCounterAccumulator = postCounterAccumulator;
+    }
+
+    /** Abgleich direkt nach dem Start, damit neu angelegte Zählerspalten bestehende Daten widerspiegeln */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if(reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Berechnet die Zähler aller Posts neu, deren gespeicherter Wert von der tatsächlichen Anzahl abweicht
+     * @return Anzahl der korrigierten Posts
+     */
+    @Scheduled(cron = "${post.counter.reconcile.cron:0 0 4 * * *}")
+    public int reconcile() {
+        int repaired = 0;
+        long afterId = Long.MIN_VALUE;
+        while(true) {
+            List<Long> ids = jdbcTemplate.queryForList("select id from post where id > ? order by id limit ?",
+                    Long.class, afterId, batchSize);
+            if(ids.isEmpty()) {
+                break;
+            }
+            repaired += reconcile(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+        if(repaired > 0) {
+            logger.info("repaired like/comment counters of {} posts", repaired);
+        }
+        return repaired;
+    }
+
+    /**
+     * Gleicht einen Block aufsteigender Post-IDs ab
+     * Während des Blocks läuft kein Flush, damit gespeicherte Zähler und vorgemerkte Deltas zueinander passen.
+     */
+    private int reconcile(List<Long> ids) {
+        return postCounterAccumulator.withoutFlush(() -> {
+            Map<Long, Long> markers = new HashMap<>();
+            for(Long id : ids) {
+                long marker = postCounterAccumulator.writeMarker(id);
+                if(marker >= 0) {
+                    markers.put(id, marker);
+                }
+            }
+            // {id, like_count, comment_count, Likes, Kommentare}
+            List<long[]> rows = jdbcTemplate.query("select p.id, p.like_count, p.comment_count, "
+                            + "(select count(*) from post_like l where l.post_id = p.id), "
+                            + "(select count(*) from comment c where c.post_id = p.id) "
+                            + "from post p where p.id >= ? and p.id <= ?",
+                    (resultSet, rowNum) -> new long[]{resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3),
+                            resultSet.getLong(4), resultSet.getLong(5)},
+                    ids.get(0), ids.get(ids.size() - 1));
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<Object[]> corrections = new ArrayList<>();
+            for(long[] row : rows) {
+                Long marker = markers.get(row[0]);
+                if(marker == null || postCounterAccumulator.writeMarker(row[0]) != marker) {
+                    continue;  // Änderung lief vor oder während der Zählung - beim nächsten Lauf
+                }
+                long likes = row[3] - postCounterAccumulator.pendingLikes(row[0]);
+                long comments = row[4] - postCounterAccumulator.pendingComments(row[0]);
+                if(likes != row[1] || comments != row[2]) {
+                    corrections.add(new Object[]{likes, comments, now, row[0], row[1], row[2]});
+                }
+            }
+            if(corrections.isEmpty()) {
+                return 0;
+            }
+            // nur wenn die Zähler noch dem gelesenen Stand entsprechen (Flush einer anderen Instanz)
+            int[] counts = jdbcTemplate.batchUpdate("update post set like_count = ?, comment_count = ?, "
+                    + "version = version + 1, last_modified = ? where id = ? and like_count = ? and comment_count = ?", corrections);
+            int repaired = 0;
+            for(int count : counts) {
+                if(count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    repaired++;
+                }
+            }
+            return repaired;
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.LikeRepository;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.PostResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Baut PostResponse-Objekte für eine Menge von Posts zusammen
+ * Lädt die Likes aller Posts mit einer IN-Abfrage (bzw. wenigen Abfragen in Blöcken)
+ * statt einer eigenen Abfrage pro Post und gruppiert sie anschließend im Speicher.
+ * Die Anzahl der SQL-Abfragen hängt dadurch nur von der Blockgröße ab, nicht von der Anzahl der Posts.
+ */
+@Component
+public class PostFeedAssembler {
+
+    private LikeRepository likeRepository;
+    private PostCounterAccumulator postCounterAccumulator;
+    private UserDirectory userDirectory;
+
+    /** Maximale Anzahl an Post-IDs pro IN-Abfrage */
+    @Value("${feed.like.chunk.size:1000}")
+    private int chunkSize = 1000;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param likeRepository Repository für Like-Datenbankoperationen
+     * @param postCounterAccumulator Liefert noch nicht geschriebene Änderungen der Zähler
+     * @param userDirectory Benutzernamen der Autoren ohne Datenbankzugriff
+     */
+    public PostFeedAssembler(LikeRepository likeRepository, PostCounterAccumulator postCounterAccumulator, UserDirectory userDirectory) {
+        this.likeRepository = likeRepository;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.userDirectory = userDirectory;
+    }
+
+    /**
+     * Wandelt die übergebenen Posts in PostResponse-Objekte inklusive ihrer Likes um
+     * Die Reihenfolge der Posts bleibt erhalten
+     * @param posts Bereits geladene Posts (mit Benutzer)
+     * @return Liste der PostResponse-Objekte in derselben Reihenfolge
+     */
+    public List<PostResponse> assemble(List<Post> posts) {
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for(Post post : posts) {
+            responses.add(new PostResponse(post, null));
+        }
+        return complete(responses);
+    }
+
+    /**
+     * Ergänzt per Projektion geladene PostResponse-Objekte um Benutzernamen, Likes und die noch nicht geflushten Zähler
+     * @param responses PostResponse-Objekte ohne Likes, z.B. aus PostRepository.findPage
+     * @return Dieselbe Liste
+     */
+    public List<PostResponse> complete(List<PostResponse> responses) {
+        if(responses.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<LikeResponse>> likesByPost = loadLikes(responses);
+        Set<Long> userIds = new HashSet<>();
+        for(PostResponse response : responses) {
+            userIds.add(response.getUserId());
+        }
+        Map<Long, UserDirectory.Author> authors = userDirectory.getAll(userIds);
+        for(PostResponse response : responses) {
+            UserDirectory.Author author = authors.get(response.getUserId());
+            response.setUsername(author == null ? null : author.getUsername());
+            response.setPostLikes(likesByPost.getOrDefault(response.getId(), new ArrayList<>()));
+            // gespeicherte Zähler plus noch nicht geflushte Änderungen
+            response.setLikeCount(response.getLikeCount() + postCounterAccumulator.pendingLikes(response.getId()));
+            response.setCommentCount(response.getCommentCount() + postCounterAccumulator.pendingComments(response.getId()));
+        }
+        return responses;
+    }
+
+    /**
+     * Wandelt einen einzelnen Post in ein PostResponse-Objekt um
+     * @param post Der Post oder null
+     * @return PostResponse oder null wenn der Post nicht existiert
+     */
+    public PostResponse assemble(Post post) {
+        if(post == null) {
+            return null;
+        }
+        return assemble(List.of(post)).get(0);
+    }
+
+    /**
+     * Lädt die Likes aller Posts blockweise und gruppiert sie nach Post-ID
+     * @param posts Die Posts deren Likes geladen werden sollen
+     * @return Map von Post-ID auf die Like-Responses dieses Posts
+     */
+    private Map<Long, List<LikeResponse>> loadLikes(List<PostResponse> posts) {
+        List<Long> postIds = new ArrayList<>(posts.size());
+        for(PostResponse post : posts) {
+            postIds.add(post.getId());
+        }
+        Map<Long, List<LikeResponse>> likesByPost = new HashMap<>(postIds.size() * 2);
+        for(int from = 0; from < postIds.size(); from += chunkSize) {
+            List<Long> chunk = postIds.subList(from, Math.min(from + chunkSize, postIds.size()));
+            for(LikeResponse likeResponse : likeRepository.findResponsesByPostIdIn(chunk)) {
+                likesByPost.computeIfAbsent(likeResponse.getPostId(), id -> new ArrayList<>()).add(likeResponse);
+            }
+        }
+        return likesByPost;
+    }
+}
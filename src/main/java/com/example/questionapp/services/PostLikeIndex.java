@@ -0,0 +1,176 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.LikeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index der Benutzer die einen Post geliked haben, als komprimierte Bitmap (RoaringBitmap) je Post
+ * Benutzer-IDs sind 53-Bit-Snowflake-IDs und damit für eine Bitmap zu dünn besetzt. Jeder Benutzer bekommt deshalb
+ * beim ersten Like eine fortlaufende Nummer (Ordinal), die Bitmaps enthalten diese Nummern.
+ * "Hat der Benutzer den Post geliked" ist damit ein Nachschlagen im Speicher statt einer Like-Liste aus der Datenbank.
+ * Die Bitmap eines Posts wird bei einem Fehltreffer mit einer Abfrage aus post_like aufgebaut (für mehrere Posts
+ * mit einer IN-Abfrage) und danach von LikeService aktuell gehalten. Damit Likes anderer Instanzen sichtbar werden,
+ * wird eine Bitmap nach like.index.ttl.seconds neu aufgebaut; doppelte Likes verhindert dort der Unique-Index.
+ */
+@Component
+public class PostLikeIndex {
+
+    private LikeRepository likeRepository;
+
+    /** Benutzer-ID -> Ordinal in den Bitmaps, Benutzer-IDs werden nicht wiederverwendet */
+    private final Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+
+    private final Cache<Long, Likers> likers;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param likeRepository Für den Aufbau der Bitmaps aus der Datenbank
+     * @param maxPosts Anzahl der Posts deren Bitmap im Speicher gehalten wird
+     * @param ttlSeconds Lebensdauer einer Bitmap bis zum erneuten Aufbau
+     */
+    public PostLikeIndex(LikeRepository likeRepository,
+                         @Value("${like.index.max.posts:100000}") long maxPosts,
+                         @Value("${like.index.ttl.seconds:300}") long ttlSeconds) {
+        this.likeRepository = likeRepository;
+        this.likers = Caffeine.newBuilder()
+                .maximumSize(maxPosts)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * @return true wenn der Benutzer den Post geliked hat
+     */
+    public boolean contains(Long postId, Long userId) {
+        Likers postLikers = likers.get(postId, this::load);
+        // erst nach dem Laden nachschlagen - das Laden vergibt die Ordinale der gefundenen Benutzer
+        Integer ordinal = ordinals.get(userId);
+        return ordinal != null && postLikers.contains(ordinal);
+    }
+
+    /**
+     * Trägt ein Like ein, bevor es in die Datenbank geschrieben wird
+     * @return false wenn der Benutzer den Post bereits geliked hat (doppeltes Like)
+     */
+    public boolean add(Long postId, Long userId) {
+        return likers.get(postId, this::load).add(ordinalOf(userId));
+    }
+
+    /**
+     * Entfernt ein Like (gelöscht oder nicht gespeichert)
+     */
+    public void remove(Long postId, Long userId) {
+        Integer ordinal = ordinals.get(userId);
+        Likers loaded = likers.getIfPresent(postId);
+        if(ordinal != null && loaded != null) {
+            loaded.remove(ordinal);
+        }
+    }
+
+    /**
+     * Welche der Posts hat der Benutzer geliked - fehlende Bitmaps werden zusammen mit einer Abfrage geladen
+     * @param userId Der Benutzer
+     * @param postIds Die Posts (z.B. eine Seite des Feeds)
+     * @return Die geliketen Post-IDs in der Reihenfolge von postIds
+     */
+    public List<Long> likedPosts(Long userId, Collection<Long> postIds) {
+        Map<Long, Likers> loaded = likers.getAll(postIds, this::loadAll);
+        Integer ordinal = ordinals.get(userId);
+        List<Long> liked = new ArrayList<>();
+        if(ordinal == null) {
+            return liked;
+        }
+        for(Long postId : postIds) {
+            Likers postLikers = loaded.get(postId);
+            if(postLikers != null && postLikers.contains(ordinal)) {
+                liked.add(postId);
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * Verwirft die Bitmap eines Posts (z.B. wenn der Post gelöscht wurde)
+     */
+    public void invalidate(Long postId) {
+        likers.invalidate(postId);
+    }
+
+    /**
+     * Entfernt einen gelöschten Benutzer: sein Bit aus allen geladenen Bitmaps und sein Ordinal
+     * Die Likes hat die Datenbank per Cascade gelöscht, neu geladene Bitmaps enthalten ihn nicht mehr.
+     */
+    public void removeUser(Long userId) {
+        Integer ordinal = ordinals.remove(userId);
+        if(ordinal != null) {
+            for(Likers postLikers : likers.asMap().values()) {
+                postLikers.remove(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Verwirft alle Bitmaps, z.B. nach einem Bulk-Import der Likes direkt in die Datenbank schreibt
+     */
+    public void invalidateAll() {
+        likers.invalidateAll();
+    }
+
+    private int ordinalOf(Long userId) {
+        return ordinals.computeIfAbsent(userId, id -> nextOrdinal.getAndIncrement());
+    }
+
+    private Likers load(Long postId) {
+        Likers postLikers = new Likers();
+        for(Long userId : likeRepository.findUserIdsByPostId(postId)) {
+            postLikers.add(ordinalOf(userId));
+        }
+        return postLikers;
+    }
+
+    private Map<Long, Likers> loadAll(Set<? extends Long> postIds) {
+        Map<Long, Likers> loaded = new HashMap<>(postIds.size() * 2);
+        for(Long postId : postIds) {
+            loaded.put(postId, new Likers());  // auch Posts ohne Likes bekommen eine (leere) Bitmap
+        }
+        for(Object[] row : likeRepository.findPostAndUserIdsByPostIdIn(postIds)) {
+            loaded.get((Long) row[0]).add(ordinalOf((Long) row[1]));
+        }
+        return loaded;
+    }
+
+    /**
+     * Bitmap der Ordinale der Benutzer die einen Post geliked haben
+     * RoaringBitmap ist nicht threadsicher, daher synchronized wie die Ringe im UserTimelineIndex
+     */
+    static final class Likers {
+        private final RoaringBitmap bitmap = new RoaringBitmap();
+
+        synchronized boolean contains(int ordinal) {
+            return bitmap.contains(ordinal);
+        }
+
+        synchronized boolean add(int ordinal) {
+            return bitmap.checkedAdd(ordinal);
+        }
+
+        synchronized void remove(int ordinal) {
+            bitmap.remove(ordinal);
+        }
+    }
+}
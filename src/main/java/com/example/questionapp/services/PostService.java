@@ -4,54 +4,225 @@ import com.example.questionapp.dataAccess.PostRepository;
 import com.example.questionapp.entities.Post;
 import com.example.questionapp.entities.User;
 import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.requests.PageCursor;
 import com.example.questionapp.requests.UpdatePostRequest;
-import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.CursorPage;
 import com.example.questionapp.responses.PostResponse;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import com.example.questionapp.responses.ResourceVersion;
+import com.example.questionapp.responses.TrendingPostResponse;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class PostService {
 
     private PostRepository postRepository;
     private UserService userService;
-    private LikeService likeService;
+    private PostFeedAssembler postFeedAssembler;
+    private UserTimelineIndex userTimelineIndex;
+    private PostLikeIndex postLikeIndex;
+    private SearchIndex searchIndex;
+    private TrendingPosts trendingPosts;
+    private PostCounterAccumulator postCounterAccumulator;
+    private JsonFragmentCache jsonFragmentCache;
+    private ActivityFeedService activityFeedService;
+    private EntityManager entityManager;
 
+    /** Posts pro Block beim Export, entspricht der Fetch-Size der Stream-Abfragen */
+    private static final int STREAM_CHUNK_SIZE = 500;
 
-    public PostService(PostRepository postRepository, UserService userService) {
+
+    public PostService(PostRepository postRepository, UserService userService, PostFeedAssembler postFeedAssembler, UserTimelineIndex userTimelineIndex,
+                       PostLikeIndex postLikeIndex, SearchIndex searchIndex, TrendingPosts trendingPosts,
+                       PostCounterAccumulator postCounterAccumulator, JsonFragmentCache jsonFragmentCache,
+                       ActivityFeedService activityFeedService, EntityManager entityManager) {
         this.postRepository = postRepository;
         this.userService = userService;
+        this.postFeedAssembler = postFeedAssembler;
+        this.userTimelineIndex = userTimelineIndex;
+        this.postLikeIndex = postLikeIndex;
+        this.searchIndex = searchIndex;
+        this.trendingPosts = trendingPosts;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.jsonFragmentCache = jsonFragmentCache;
+        this.activityFeedService = activityFeedService;
+        this.entityManager = entityManager;
     }
 
-    @Autowired
-    public void setLikeService(@Lazy LikeService likeService) {
-        this.likeService = likeService;
+    @Transactional(readOnly = true)
+    public CursorPage<PostResponse> getAllPosts(Optional<Long> userId, PageCursor after, int limit) {   //optionalın mantığı parametre oladabilir olmayadabilir, ikisine özelde çalışır.
+        CursorPage<PostResponse> page = findPage(userId, after, limit);
+        postFeedAssembler.complete(page.getItems());  // Likes aller Posts gebündelt laden statt einer Abfrage pro Post
+        return page;
     }
 
-    public List<PostResponse> getAllPosts(Optional<Long> userId) {                       //optionalın mantığı parametre oladabilir olmayadabilir, ikisine özelde çalışır.
-        List<Post> postList;
+    /**
+     * Wie getAllPosts, aber als fertiges JSON je Post aus dem JsonFragmentCache
+     * Nur Posts ohne passendes Fragment werden um Likes und Benutzernamen ergänzt und serialisiert.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<byte[]> getAllPostsJson(Optional<Long> userId, PageCursor after, int limit) {
+        CursorPage<PostResponse> page = findPage(userId, after, limit);
+        List<PostResponse> posts = page.getItems();
+        List<byte[]> fragments = new ArrayList<>(posts.size());
+        List<PostResponse> missing = new ArrayList<>();
+        List<String> missingTags = new ArrayList<>();
+        for (PostResponse post : posts) {
+            // derselbe ETag wie bei posts/{postId} - beide Wege teilen sich die Fragmente
+            String eTag = withPendingCounters(new ResourceVersion(post.getVersion(), post.getLastModified()), post.getId()).getETag();
+            byte[] json = jsonFragmentCache.getPost(post.getId(), eTag);
+            fragments.add(json);
+            if (json == null) {
+                missing.add(post);
+                missingTags.add(eTag);
+            }
+        }
+        postFeedAssembler.complete(missing);
+        for (int i = 0, next = 0; i < fragments.size(); i++) {
+            if (fragments.get(i) == null) {
+                fragments.set(i, jsonFragmentCache.putPost(missingTags.get(next), missing.get(next)));
+                next++;
+            }
+        }
+        return new CursorPage<>(fragments, page.getNextCursor());
+    }
+
+    /**
+     * Eine Seite Posts als Projektion, noch ohne Likes und Benutzernamen
+     */
+    private CursorPage<PostResponse> findPage(Optional<Long> userId, PageCursor after, int limit) {
+        if (userId.isPresent()) {
+            // Profilseite: IDs aus dem Timeline-Ring des Benutzers, Posts mit einer Abfrage nachladen
+            UserTimelineIndex.TimelinePage timelinePage = userTimelineIndex.page(userId.get(), after, limit);
+            if (timelinePage != null) {
+                String nextCursor = timelinePage.getNextCursor() == null ? null : timelinePage.getNextCursor().toString();
+                return new CursorPage<>(findByIdsInOrder(timelinePage.getIds()), nextCursor);
+            }
+        }
+        List<PostResponse> postList;  // Projektion, siehe PostRepository.findPage
+        Pageable page = PageRequest.of(0, limit);                                       // nur LIMIT, kein OFFSET - der Cursor ersetzt den Offset
+        // Profilseite hinter dem Ring => aus der Datenbank
         if (userId.isPresent()) {                                                       //isPresent in mantığı eğer userId parametresi geldiyse
-            postList = postRepository.findByUserId(userId.get());
+            postList = postRepository.findPageByUserId(userId.get(), after.getCreateDate(), after.getId(), page);
         }else{
-            postList = postRepository.findAll();                                         //eğer parametre userıd yoksa tüm postları çeker
+            postList = postRepository.findPage(after.getCreateDate(), after.getId(), page);   //eğer parametre userıd yoksa tüm postları çeker
+        }
+        String nextCursor = null;
+        if (postList.size() == limit) {                                                // volle Seite => es kann weitere Posts geben
+            PostResponse last = postList.get(postList.size() - 1);
+            nextCursor = PageCursor.of(last.getCreateDate(), last.getId()).toString();
         }
-        return postList.stream().map(post -> {
-            List<LikeResponse> likes = likeService.getAllLikes(Optional.ofNullable(null),Optional.of(post.getId()));
-            return new PostResponse(post,likes);}).collect(Collectors.toList());       //postları teker teker PostResponse a mapledik.
+        return new CursorPage<>(postList, nextCursor);
     }
+
+    /**
+     * Exportiert alle Posts (optional eines Benutzers) nach ID sortiert an den consumer
+     * Die Posts werden aus einem Stream gelesen und in Blöcken von STREAM_CHUNK_SIZE mit ihren Likes übergeben.
+     * Nach jedem Block wird der Persistence Context geleert, der Speicherbedarf hängt damit nicht von der Anzahl der Posts ab.
+     * @param userId Optionale Benutzer-ID
+     * @param consumer Empfängt jeden Post, z.B. ein NdjsonWriter
+     */
+    @Transactional(readOnly = true)
+    public void streamPosts(Optional<Long> userId, Consumer<? super PostResponse> consumer) {
+        try (Stream<Post> posts = userId.isPresent() ? postRepository.streamByUserId(userId.get()) : postRepository.streamAll()) {
+            Iterator<Post> iterator = posts.iterator();
+            List<Post> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    postFeedAssembler.assemble(chunk).forEach(consumer);
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lädt Posts mit einer IN-Abfrage und bringt sie in die Reihenfolge der IDs
+     * Inzwischen gelöschte Posts werden ausgelassen
+     */
+    private List<PostResponse> findByIdsInOrder(long[] postIds) {
+        if (postIds.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(postIds.length);
+        for (long id : postIds) {
+            ids.add(id);
+        }
+        Map<Long, PostResponse> postsById = new HashMap<>();
+        for (PostResponse post : postRepository.findResponsesByIdIn(ids)) {
+            postsById.put(post.getId(), post);
+        }
+        List<PostResponse> posts = new ArrayList<>(postIds.length);
+        for (Long id : ids) {
+            PostResponse post = postsById.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
     public Post getPostById(Long postId) {
         return postRepository.findById(postId).orElse(null);
     }
+    /**
+     * Trending-Posts aus dem Speicher, ohne Datenbankzugriff
+     * @param limit Höchstens so viele Posts
+     */
+    public List<TrendingPostResponse> getTrendingPosts(int limit) {
+        return trendingPosts.top(limit);
+    }
+
+    @Transactional(readOnly = true)
     public PostResponse getPostByIdWithLikes(Long postId) {
-        Post post = postRepository.findById(postId).orElse(null);
-        List<LikeResponse> likes = likeService.getAllLikes(Optional.ofNullable(null),Optional.of(postId));
-        return new PostResponse(post,likes);
+        Post post = postRepository.findById(postId).orElse(null);  // den Benutzernamen liefert das UserDirectory
+        return postFeedAssembler.assemble(post);
+    }
+
+    /**
+     * Stand eines Posts für bedingte GET-Anfragen, ohne Post und Likes zu laden
+     * Die noch nicht geschriebenen Zähler stehen in der Antwort und gehören deshalb zum ETag; nach dem Flush
+     * ist stattdessen die Version erhöht (siehe PostCounterAccumulator).
+     * @return Der Stand oder null wenn der Post nicht existiert
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getPostVersion(Long postId) {
+        return postRepository.findVersionById(postId).map(version -> withPendingCounters(version, postId)).orElse(null);
+    }
+
+    /**
+     * Ein Post als fertiges JSON, aus dem JsonFragmentCache oder neu gebaut
+     * Ohne eigene Transaktion: ein Treffer braucht keine Datenbankverbindung
+     * @param eTag Der zuvor mit getPostVersion gelesene ETag
+     * @return Das JSON oder null wenn der Post nicht existiert
+     */
+    public byte[] getPostJson(Long postId, String eTag) {
+        byte[] json = jsonFragmentCache.getPost(postId, eTag);
+        if (json == null) {
+            PostResponse post = postFeedAssembler.assemble(postRepository.findById(postId).orElse(null));
+            json = post == null ? null : jsonFragmentCache.putPost(eTag, post);
+        }
+        return json;
+    }
+
+    /** Noch nicht geflushte Likes und Kommentare zählen als Änderung - nach Anzahl, nicht nach Netto-Delta */
+    private ResourceVersion withPendingCounters(ResourceVersion version, Long postId) {
+        return version.withPending(postCounterAccumulator.changes(postId), postCounterAccumulator.lastChange(postId));
     }
 
     public Post createPost(CreatePostRequest newPostRequest) {
@@ -65,22 +236,40 @@ public class PostService {
         post.setTitle(newPostRequest.getTitle());
         post.setUser(user);
         post.setCreateDate(new Date());
-        return postRepository.save(post);
+        post.setLastModified(post.getCreateDate());
+        Post savedPost = postRepository.save(post);
+        userTimelineIndex.add(user.getId(), savedPost.getId(), savedPost.getCreateDate());
+        searchIndex.indexPost(savedPost.getId(), savedPost.getTitle(), savedPost.getText());
+        return savedPost;
     }
 
     public Post updatePostById(Long postId, UpdatePostRequest updatePostRequest) {  //bütün postu değiştirmicez ki sadece title ve text alanlarını değiştiricez bu yüzden requests in içine UpdatePostRequest oluşturduk.
-        Optional <Post> post = postRepository.findById(postId);
+        Optional <Post> post = postRepository.findByIdWithUser(postId);  // der Post wird mit Benutzer als JSON zurückgegeben
         if(post.isPresent()){
             Post updatePost = post.get();
             updatePost.setText(updatePostRequest.getText());
             updatePost.setTitle(updatePostRequest.getTitle());
+            updatePost.setVersion(updatePost.getVersion() + 1);  // neuer ETag
+            updatePost.setLastModified(new Date());
             postRepository.save(updatePost);
+            searchIndex.indexPost(updatePost.getId(), updatePost.getTitle(), updatePost.getText());
+            jsonFragmentCache.invalidatePost(postId);
             return updatePost;
         }
         return null;
     }
 
     public void deletePostById(Long postId) {
-        postRepository.deleteById(postId);
+        Optional<Post> post = postRepository.findById(postId);
+        if (post.isPresent()) {
+            postRepository.delete(post.get());
+            userTimelineIndex.remove(post.get().getUser().getId(), postId);
+            postLikeIndex.invalidate(postId);
+            searchIndex.removePost(postId);
+            trendingPosts.remove(postId);
+            jsonFragmentCache.invalidatePost(postId);
+            jsonFragmentCache.invalidateComments(postId);
+            activityFeedService.removePost(postId, post.get().getUser().getId());
+        }
     }
 }
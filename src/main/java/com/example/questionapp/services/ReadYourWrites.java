@@ -0,0 +1,74 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.security.JWTUserDetails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Merkt sich welche Benutzer gerade geschrieben haben (Read-your-writes)
+ * Mit Lese-Replikas (datasource.replicas.urls) liest ein Benutzer nach einer eigenen Änderung für
+ * datasource.read.your.writes.ms wieder vom Primary, damit er seinen neuen Post oder Kommentar nicht wegen
+ * Replikationsverzögerung vermisst. Andere Benutzer lesen weiter von den Replikas.
+ * Der Zeitraum gilt pro Instanz; hinter einem Load Balancer ohne Sticky Sessions muss er die Verzögerung
+ * der Replikas plus die Zeit bis zur nächsten Anfrage auf derselben Instanz abdecken.
+ * Ohne Replikas wird nichts gespeichert.
+ */
+@Component
+public class ReadYourWrites {
+
+    /** null ohne Replikas */
+    private final Cache<Long, Boolean> recentWriters;
+
+    /**
+     * @param replicaUrls JDBC-URLs der Replikas, leer = keine Replikas
+     * @param windowMs Wie lange nach einem Schreibzugriff vom Primary gelesen wird
+     * @param maxUsers Maximale Anzahl gleichzeitig gemerkter Benutzer
+     */
+    public ReadYourWrites(@Value("${datasource.replicas.urls:}") String replicaUrls,
+                          @Value("${datasource.read.your.writes.ms:5000}") long windowMs,
+                          @Value("${datasource.read.your.writes.max.users:100000}") long maxUsers) {
+        this.recentWriters = replicaUrls.isBlank() ? null : Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+    }
+
+    /**
+     * Der Benutzer liest ab jetzt für die Dauer des Zeitraums vom Primary
+     * @param userId Die Benutzer-ID, null wird ignoriert
+     */
+    public void recordWrite(Long userId) {
+        if (recentWriters != null && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /** Wie recordWrite für den angemeldeten Benutzer der aktuellen Anfrage */
+    public void recordCurrentUserWrite() {
+        recordWrite(currentUserId());
+    }
+
+    /** @return true wenn der angemeldete Benutzer der aktuellen Anfrage innerhalb des Zeitraums geschrieben hat */
+    public boolean currentUserWroteRecently() {
+        if (recentWriters == null) {
+            return false;
+        }
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    /** @return Die ID aus dem JWT der aktuellen Anfrage oder null (anonym, Hintergrund-Thread) */
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JWTUserDetails user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
@@ -1,71 +1,265 @@
 package com.example.questionapp.services;
 
 import com.example.questionapp.dataAccess.RefreshTokenRepository;
+import com.example.questionapp.dataAccess.UserRepository;
 import com.example.questionapp.entities.RefreshToken;
 import com.example.questionapp.entities.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service für die Verwaltung von Refresh-Tokens
  * Erstellt, validiert und verwaltet Refresh-Tokens für die JWT-Authentifizierung
+ *
+ * Die aktuellen Tokens liegen in einem Index im Speicher (nach Benutzer-ID und nach Token-Wert),
+ * sodass Login und Refresh ohne Datenbankzugriff auskommen. Neue Tokens werden pro Benutzer
+ * zusammengefasst und periodisch gebündelt geschrieben (Write-Behind); die Datenbank bleibt die
+ * dauerhafte Quelle und wird bei einem Fehltreffer im Index (z.B. nach einem Neustart) gelesen.
+ * Einträge werden nach refresh.token.index.revalidate.seconds erneut aus der Datenbank gelesen,
+ * damit ein auf einer anderen Instanz erneuerter Token hier nicht dauerhaft gültig bleibt.
  */
 @Service
 public class RefreshTokenService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
     @Value("${refresh.token.expires.in}")  // Gültigkeitsdauer in Sekunden aus application.properties
     Long expireSeconds;
 
+    @Value("${refresh.token.index.revalidate.seconds:60}")
+    long revalidateSeconds;
+
+    @Value("${refresh.token.purge.batch.size:1000}")
+    int purgeBatchSize;
+
     private RefreshTokenRepository refreshTokenRepository;
+    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
+
+    /** Aktueller Token je Benutzer-ID */
+    private final ConcurrentHashMap<Long, TokenEntry> tokensByUser = new ConcurrentHashMap<>();
+
+    /** Aktueller Token je Token-Wert */
+    private final ConcurrentHashMap<String, TokenEntry> tokensByValue = new ConcurrentHashMap<>();
+
+    /** Noch nicht geschriebene Tokens je Benutzer-ID - ein neuerer Token ersetzt einen älteren */
+    private final ConcurrentHashMap<Long, TokenEntry> pendingWrites = new ConcurrentHashMap<>();
 
     /**
      * Konstruktor für Dependency Injection
      * @param refreshTokenRepository Repository für Refresh-Token-Datenbankoperationen
+     * @param userRepository Für Referenzen auf den Benutzer beim Schreiben
+     * @param transactionTemplate Ein Flush wird in einer Transaktion geschrieben
      */
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository, TransactionTemplate transactionTemplate) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
-     * Erstellt oder aktualisiert einen Refresh-Token für einen Benutzer
+     * Erstellt oder ersetzt den Refresh-Token eines Benutzers
+     * Der Token ist sofort gültig, in die Datenbank wird er beim nächsten Flush geschrieben
      * @param user Der Benutzer für den der Token erstellt werden soll
      * @return Der Token-String des erstellten Refresh-Tokens
      */
     public String createRefreshToken(User user) {
-        RefreshToken token = refreshTokenRepository.findByUserId(user.getId());
-        // Wenn kein Token existiert, neuen Token erstellen
-        if(token == null) {
-            token = new RefreshToken();
-            token.setUser(user);
-        }
-        // Eindeutigen Token-String mit UUID generieren
-        token.setToken(UUID.randomUUID().toString());
-        // Ablaufzeit auf aktuelle Zeit + konfigurierte Sekunden setzen
-        token.setExpiryDate(Date.from(Instant.now().plusSeconds(expireSeconds)));
-        refreshTokenRepository.save(token);
-        return token.getToken();
+        // Eindeutigen Token-String mit UUID generieren, Ablaufzeit auf aktuelle Zeit + konfigurierte Sekunden setzen
+        TokenEntry entry = new TokenEntry(user.getId(), UUID.randomUUID().toString(),
+                Date.from(Instant.now().plusSeconds(expireSeconds)), System.currentTimeMillis());
+        index(entry);
+        pendingWrites.put(entry.userId, entry);
+        return entry.token;
     }
 
     /**
-     * Sucht einen Refresh-Token anhand der Benutzer-ID
+     * Prüft ob ein Refresh-Token zum Benutzer gehört und noch nicht abgelaufen ist
      * @param userId Die ID des Benutzers
-     * @return Der gefundene Refresh-Token oder null
+     * @param token Der Token-String aus der Anfrage
+     * @return true wenn der Token gültig ist
      */
-    public RefreshToken getByUser(Long userId) {
-        return refreshTokenRepository.findByUserId(userId);
+    public boolean isValid(Long userId, String token) {
+        if(userId == null || token == null) {
+            return false;
+        }
+        TokenEntry entry = tokensByValue.get(token);
+        if(entry == null || isStale(entry)) {
+            // nicht im Index oder zu alt: aktuellen Stand aus der Datenbank lesen (Kaltstart, andere Instanz)
+            entry = load(userId);
+        }
+        return entry != null && entry.userId.equals(userId) && entry.token.equals(token) && !isExpired(entry);
+    }
+
+    /**
+     * Entfernt den Token eines gelöschten Benutzers aus dem Index und verwirft einen vorgemerkten Token
+     * Die Zeile in refresh_token löscht die Datenbank per Cascade mit dem Benutzer.
+     * @param userId Die ID des gelöschten Benutzers
+     */
+    public void removeUser(Long userId) {
+        pendingWrites.remove(userId);
+        TokenEntry removed = tokensByUser.remove(userId);
+        if(removed != null) {
+            tokensByValue.remove(removed.token, removed);
+        }
+    }
+
+    /**
+     * Schreibt alle vorgemerkten Tokens gebündelt in einer Transaktion
+     * Verletzt der Block eine Integritätsbedingung, wird jeder Token einzeln geschrieben und nicht schreibbare verworfen
+     */
+    @Scheduled(fixedDelayString = "${refresh.token.flush.interval.ms:500}")
+    public synchronized void flush() {
+        Map<Long, TokenEntry> batch = new HashMap<>(pendingWrites);
+        if(batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch);
+        } catch (DataIntegrityViolationException e) {
+            // z.B. ein inzwischen gelöschter Benutzer - einzeln schreiben, damit ein Token nicht alle blockiert
+            logger.warn("batched refresh token flush failed, writing {} tokens one by one", batch.size(), e);
+            batch.forEach((userId, entry) -> {
+                try {
+                    write(Map.of(userId, entry));
+                } catch (DataIntegrityViolationException single) {
+                    logger.warn("dropping refresh token of user {}: {}", userId, single.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Datenbank nicht erreichbar o.ä. - Tokens bleiben für den nächsten Flush vorgemerkt
+            logger.warn("refresh token flush failed, {} tokens are kept for the next flush", batch.size(), e);
+            return;
+        }
+        // nur entfernen was geschrieben wurde - ein inzwischen neuerer Token bleibt vorgemerkt
+        batch.forEach(pendingWrites::remove);
+        logger.debug("flushed {} refresh tokens", batch.size());
+    }
+
+    /**
+     * Schreibt Tokens in einer Transaktion
+     * Bestehende Zeilen der Benutzer werden mit einer Abfrage geladen und aktualisiert, fehlende neu angelegt
+     */
+    private void write(Map<Long, TokenEntry> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, RefreshToken> existing = new HashMap<>();
+            for(RefreshToken refreshToken : refreshTokenRepository.findByUserIdIn(batch.keySet())) {
+                existing.put(refreshToken.getUser().getId(), refreshToken);
+            }
+            List<RefreshToken> tokens = new ArrayList<>(batch.size());
+            batch.forEach((userId, entry) -> {
+                RefreshToken refreshToken = existing.get(userId);
+                // Wenn kein Token existiert, neuen Token erstellen
+                if(refreshToken == null) {
+                    refreshToken = new RefreshToken();
+                    refreshToken.setUser(userRepository.getReferenceById(userId));
+                }
+                refreshToken.setToken(entry.token);
+                refreshToken.setExpiryDate(entry.expiryDate);
+                tokens.add(refreshToken);
+            });
+            refreshTokenRepository.saveAll(tokens);
+        });
+    }
+
+    /** Schreibt beim Herunterfahren alle noch vorgemerkten Tokens */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Löscht abgelaufene Tokens aus dem Index und in Blöcken aus der Tabelle refresh_token
+     * @return Anzahl der aus der Datenbank gelöschten Tokens
+     */
+    @Scheduled(fixedDelayString = "${refresh.token.purge.interval.ms:3600000}")
+    public int purgeExpired() {
+        tokensByUser.values().removeIf(entry -> isExpired(entry) && !pendingWrites.containsKey(entry.userId));
+        tokensByValue.values().removeIf(this::isExpired);
+        Date now = new Date();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpired(now, purgeBatchSize));
+            total += deleted;
+        } while(deleted == purgeBatchSize);
+        if(total > 0) {
+            logger.info("purged {} expired refresh tokens", total);
+        }
+        return total;
+    }
+
+    /**
+     * Liest den Token eines Benutzers aus der Datenbank und legt ihn im Index ab
+     * Ist für den Benutzer noch ein Token zum Schreiben vorgemerkt, ist dieser aktueller als die Datenbank
+     */
+    private TokenEntry load(Long userId) {
+        TokenEntry pending = pendingWrites.get(userId);
+        if(pending != null) {
+            return pending;
+        }
+        RefreshToken refreshToken = refreshTokenRepository.findByUserId(userId);
+        if(refreshToken == null) {
+            TokenEntry removed = tokensByUser.remove(userId);
+            if(removed != null) {
+                tokensByValue.remove(removed.token, removed);
+            }
+            return null;
+        }
+        TokenEntry entry = new TokenEntry(userId, refreshToken.getToken(), refreshToken.getExpiryDate(), System.currentTimeMillis());
+        index(entry);
+        return entry;
+    }
+
+    private void index(TokenEntry entry) {
+        TokenEntry previous = tokensByUser.put(entry.userId, entry);
+        if(previous != null && !previous.token.equals(entry.token)) {
+            tokensByValue.remove(previous.token, previous);  // alter Token des Benutzers ist ab jetzt ungültig
+        }
+        tokensByValue.put(entry.token, entry);
+    }
+
+    private boolean isStale(TokenEntry entry) {
+        return !pendingWrites.containsKey(entry.userId)
+                && System.currentTimeMillis() - entry.verifiedAt > revalidateSeconds * 1000;
     }
 
     /**
      * Prüft ob ein Refresh-Token abgelaufen ist
-     * @param token Der zu prüfende Refresh-Token
+     * @param entry Der zu prüfende Refresh-Token
      * @return true wenn der Token abgelaufen ist, false andernfalls
      */
-    public boolean isRefreshExpired(RefreshToken token) {
-        return token.getExpiryDate().before(new Date());
+    private boolean isExpired(TokenEntry entry) {
+        return entry.expiryDate.before(new Date());
     }
 
-}
\ No newline at end of file
+    /** Unveränderlicher Eintrag des Index */
+    private static final class TokenEntry {
+        private final Long userId;
+        private final String token;
+        private final Date expiryDate;
+        /** Zeitpunkt zu dem der Eintrag erstellt bzw. aus der Datenbank gelesen wurde */
+        private final long verifiedAt;
+
+        private TokenEntry(Long userId, String token, Date expiryDate, long verifiedAt) {
+            this.userId = userId;
+            this.token = token;
+            this.expiryDate = expiryDate;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.example.questionapp.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Volltextindex (invertierter Index) über Post.title, Post.text und Comment.text mit BM25-Bewertung
+ * Ein Post (Titel + Text) und ein Kommentar sind je ein Dokument mit fortlaufender Nummer (Ordinal).
+ * Der Index besteht aus
+ * - einem unveränderlichen Segment als Datei (search.index.file), per mmap gelesen - siehe SearchSegment
+ * - einem Delta im Speicher mit den seitdem indexierten Dokumenten
+ * - einer Löschmarkierung je Ordinal; eine Änderung ist Löschen plus neues Dokument
+ * Wächst das Delta (plus Löschungen) über search.index.merge.min.docs und 10% des Segments, werden Segment und Delta
+ * zu einem neuen Segment zusammengeführt, außerdem beim Herunterfahren. Beim Start wird das Segment gemappt und nur
+ * nachindexiert, was seitdem hinzugekommen ist (IDs größer als die größte ID im Segment - die IDs sind zeitlich sortiert).
+ * Änderungen und Löschungen nach dem letzten Zusammenführen gehen bei einem Absturz verloren; gelöschte Treffer
+ * filtert SearchService beim Laden aus der Datenbank heraus.
+ * Ohne search.index.file liegt der Index nur im Speicher und wird bei jedem Start aus der Datenbank aufgebaut.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+    static final byte POST = 0;
+    static final byte COMMENT = 1;
+
+    /** BM25-Parameter: Sättigung der Termhäufigkeit und Gewicht der Dokumentlänge */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Längere Tokens werden abgeschnitten (ein Term muss als short-Länge ins Segment passen) */
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final Path file;
+    private final int mergeMinDocs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SearchSegment segment = SearchSegment.EMPTY;
+    /** Alle Dokumente, Ordinale 0..segment.docCount()-1 aus dem Segment, danach das Delta */
+    private DocTable docs = new DocTable();
+    private BitSet deleted = new BitSet();
+    /** Term -> Postings der Delta-Dokumente */
+    private Map<String, Postings> delta = new HashMap<>();
+    /** Entitäts-ID -> Ordinal des aktuellen (nicht gelöschten) Dokuments */
+    private Map<Long, Integer> postDocs = new HashMap<>();
+    private Map<Long, Integer> commentDocs = new HashMap<>();
+    /** Post-ID -> IDs seiner indexierten Kommentare, damit removePost nicht alle Dokumente durchsuchen muss */
+    private Map<Long, Set<Long>> postComments = new HashMap<>();
+    private int liveDocs;
+    private long liveLength;
+    private int deletedCount;
+    private long maxPostId;
+    private long maxCommentId;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param jdbcTemplate Für den Aufbau aus der Datenbank
+     * @param file Segmentdatei, leer => Index nur im Speicher
+     * @param mergeMinDocs Mindestanzahl neuer bzw. gelöschter Dokumente bis zum Zusammenführen
+     */
+    public SearchIndex(JdbcTemplate jdbcTemplate,
+                       @Value("${search.index.file:}") String file,
+                       @Value("${search.index.merge.min.docs:1000}") int mergeMinDocs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.file = file.isBlank() ? null : Paths.get(file);
+        this.mergeMinDocs = mergeMinDocs;
+    }
+
+    /** Segment mappen und seitdem erstellte Posts und Kommentare nachindexieren */
+    @PostConstruct
+    public void open() {
+        if (file != null && Files.exists(file)) {
+            try {
+                load(SearchSegment.open(file));
+            } catch (IOException e) {
+                logger.warn("search segment {} is unreadable, rebuilding the index: {}", file, e.getMessage());
+            }
+        }
+        long start = System.currentTimeMillis();
+        int before = docs.size();
+        catchUp();
+        logger.info("Search index: {} documents from segment, {} indexed from the database in {} ms",
+                segment.docCount(), docs.size() - before, System.currentTimeMillis() - start);
+        if (file != null && docs.size() > before) {
+            mergeQuietly();
+        }
+    }
+
+    /**
+     * Indexiert einen neuen oder geänderten Post
+     */
+    public void indexPost(Long postId, String title, String text) {
+        Map<String, Integer> terms = tokenize(title);
+        tokenize(text).forEach((term, tf) -> terms.merge(term, tf, Integer::sum));
+        lock.writeLock().lock();
+        try {
+            delete(postDocs.remove(postId));
+            postDocs.put(postId, add(POST, postId, postId, terms));
+            maxPostId = Math.max(maxPostId, postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexiert einen neuen oder geänderten Kommentar
+     */
+    public void indexComment(Long commentId, Long postId, String text) {
+        Map<String, Integer> terms = tokenize(text);
+        lock.writeLock().lock();
+        try {
+            delete(commentDocs.remove(commentId));
+            commentDocs.put(commentId, add(COMMENT, commentId, postId, terms));
+            postComments.computeIfAbsent(postId, id -> new HashSet<>()).add(commentId);
+            maxCommentId = Math.max(maxCommentId, commentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entfernt einen Post und seine Kommentare (die Datenbank löscht sie per Kaskade mit)
+     */
+    public void removePost(Long postId) {
+        lock.writeLock().lock();
+        try {
+            delete(postDocs.remove(postId));
+            Set<Long> comments = postComments.remove(postId);
+            if (comments != null) {
+                for (Long commentId : comments) {
+                    delete(commentDocs.remove(commentId));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entfernt einen gelöschten Kommentar
+     */
+    public void removeComment(Long commentId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = commentDocs.remove(commentId);
+            if (doc != null) {
+                Set<Long> comments = postComments.get(docs.postIds[doc]);
+                if (comments != null) {
+                    comments.remove(commentId);
+                    if (comments.isEmpty()) {
+                        postComments.remove(docs.postIds[doc]);
+                    }
+                }
+            }
+            delete(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sucht Dokumente die mindestens einen der Terme der Anfrage enthalten, sortiert nach BM25 absteigend
+     * @param query Die Suchanfrage
+     * @param after Letzter Treffer der vorherigen Seite oder null
+     * @param limit Seitengröße
+     * @return Bis zu limit + 1 Treffer - ein zusätzlicher Treffer zeigt an, dass es eine weitere Seite gibt
+     */
+    public List<Hit> search(String query, Hit after, int limit) {
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            double averageLength = (double) liveLength / liveDocs;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : tokenize(query).keySet()) {
+                byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+                int segmentPosition = segment.find(bytes);
+                Postings deltaPostings = delta.get(term);
+                // df zählt gelöschte Dokumente bis zum nächsten Zusammenführen mit
+                int df = (segmentPosition < 0 ? 0 : segment.docFreq(segmentPosition)) + (deltaPostings == null ? 0 : deltaPostings.size);
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                if (segmentPosition >= 0) {
+                    int posting = segment.postingsPosition(segmentPosition);
+                    for (int i = 0; i < segment.docFreq(segmentPosition); i++, posting += 8) {
+                        score(scores, segment.postingDoc(posting), segment.postingFreq(posting), idf, averageLength);
+                    }
+                }
+                if (deltaPostings != null) {
+                    for (int i = 0; i < deltaPostings.size; i++) {
+                        score(scores, deltaPostings.docs[i], deltaPostings.freqs[i], idf, averageLength);
+                    }
+                }
+            }
+            // die besten limit + 1 Treffer nach dem Cursor mit einem Min-Heap
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 2, (a, b) -> -a.compareTo(b));
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                int doc = entry.getKey();
+                Hit hit = new Hit(docs.types[doc], docs.entityIds[doc], docs.postIds[doc], entry.getValue());
+                if (after != null && hit.compareTo(after) <= 0) {
+                    continue;
+                }
+                best.add(hit);
+                if (best.size() > limit + 1) {
+                    best.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(null);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Führt Segment und Delta zusammen, sobald das Delta groß genug ist */
+    @Scheduled(fixedDelayString = "${search.index.merge.interval.ms:60000}")
+    public void mergeIfNeeded() {
+        if (file != null && docs.size() - segment.docCount() + deletedCount >= Math.max(mergeMinDocs, segment.docCount() / 10)) {
+            mergeQuietly();
+        }
+    }
+
+    /** Schreibt beim Herunterfahren alle Änderungen ins Segment, der nächste Start muss dann nichts nachindexieren */
+    @PreDestroy
+    public void mergeOnShutdown() {
+        if (file != null && (docs.size() > segment.docCount() || deletedCount > 0)) {
+            mergeQuietly();
+        }
+    }
+
+    /** Ein fehlgeschlagenes Zusammenführen lässt Segment und Delta unverändert, es wird später erneut versucht */
+    private void mergeQuietly() {
+        try {
+            merge();
+        } catch (IOException e) {
+            logger.warn("merging the search index into {} failed", file, e);
+        }
+    }
+
+    /**
+     * Schreibt alle nicht gelöschten Dokumente in ein neues Segment und mappt es
+     * Die Ordinale werden dabei lückenlos neu vergeben
+     */
+    void merge() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            int[] remap = new int[docs.size()];
+            int live = 0;
+            for (int doc = 0; doc < docs.size(); doc++) {
+                remap[doc] = deleted.get(doc) ? -1 : live++;
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (SearchSegment.Writer writer = new SearchSegment.Writer(file, live, maxPostId, maxCommentId)) {
+                for (int doc = 0; doc < docs.size(); doc++) {
+                    if (remap[doc] >= 0) {
+                        writer.doc(docs.types[doc], docs.entityIds[doc], docs.postIds[doc], docs.lengths[doc]);
+                    }
+                }
+                writeTerms(writer, remap);
+                writer.commit();
+            }
+            load(SearchSegment.open(file));
+            logger.info("Search index merged: {} documents, {} terms in {} ms", live, segment.termCount(), System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Terme aus Segment und Delta in UTF-8-Reihenfolge zusammenführen */
+    private void writeTerms(SearchSegment.Writer writer, int[] remap) throws IOException {
+        byte[][] deltaTerms = new byte[delta.size()][];
+        int count = 0;
+        for (String term : delta.keySet()) {
+            deltaTerms[count++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(deltaTerms, Arrays::compareUnsigned);
+        SearchSegment.IntList termDocs = new SearchSegment.IntList();
+        SearchSegment.IntList termFreqs = new SearchSegment.IntList();
+        int segmentIndex = 0;
+        int deltaIndex = 0;
+        while (segmentIndex < segment.termCount() || deltaIndex < deltaTerms.length) {
+            byte[] segmentTerm = segmentIndex < segment.termCount() ? segment.termBytes(segment.termPosition(segmentIndex)) : null;
+            byte[] deltaTerm = deltaIndex < deltaTerms.length ? deltaTerms[deltaIndex] : null;
+            int cmp = segmentTerm == null ? 1 : deltaTerm == null ? -1 : Arrays.compareUnsigned(segmentTerm, deltaTerm);
+            termDocs.clear();
+            termFreqs.clear();
+            // Segment-Dokumente haben kleinere Ordinale als Delta-Dokumente, die Postings bleiben dadurch sortiert
+            if (cmp <= 0) {
+                int position = segment.termPosition(segmentIndex++);
+                int posting = segment.postingsPosition(position);
+                for (int i = 0; i < segment.docFreq(position); i++, posting += 8) {
+                    int doc = remap[segment.postingDoc(posting)];
+                    if (doc >= 0) {
+                        termDocs.add(doc);
+                        termFreqs.add(segment.postingFreq(posting));
+                    }
+                }
+            }
+            if (cmp >= 0) {
+                Postings postings = delta.get(new String(deltaTerm, StandardCharsets.UTF_8));
+                deltaIndex++;
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = remap[postings.docs[i]];
+                    if (doc >= 0) {
+                        termDocs.add(doc);
+                        termFreqs.add(postings.freqs[i]);
+                    }
+                }
+            }
+            if (termDocs.size() > 0) {
+                writer.term(cmp <= 0 ? segmentTerm : deltaTerm, termDocs, termFreqs);
+            }
+        }
+    }
+
+    /** Ersetzt den gesamten Zustand durch ein Segment ohne Delta */
+    private void load(SearchSegment loaded) {
+        DocTable table = new DocTable();
+        loaded.readDocs(table);
+        Map<Long, Integer> posts = new HashMap<>();
+        Map<Long, Integer> comments = new HashMap<>();
+        Map<Long, Set<Long>> byPost = new HashMap<>();
+        long length = 0;
+        for (int doc = 0; doc < table.size(); doc++) {
+            if (table.types[doc] == POST) {
+                posts.put(table.entityIds[doc], doc);
+            } else {
+                comments.put(table.entityIds[doc], doc);
+                byPost.computeIfAbsent(table.postIds[doc], id -> new HashSet<>()).add(table.entityIds[doc]);
+            }
+            length += table.lengths[doc];
+        }
+        segment = loaded;
+        docs = table;
+        deleted = new BitSet();
+        delta = new HashMap<>();
+        postDocs = posts;
+        commentDocs = comments;
+        postComments = byPost;
+        liveDocs = table.size();
+        liveLength = length;
+        deletedCount = 0;
+        maxPostId = Math.max(maxPostId, loaded.maxPostId());
+        maxCommentId = Math.max(maxCommentId, loaded.maxCommentId());
+    }
+
+    /** Indexiert alle Posts und Kommentare mit einer ID größer als die größte bereits indexierte */
+    private void catchUp() {
+        long fromPost = maxPostId;
+        long fromComment = maxCommentId;
+        query("select id, title, text from post where id > ? order by id", fromPost,
+                resultSet -> indexPost(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3)));
+        query("select id, post_id, text from comment where id > ? order by id", fromComment,
+                resultSet -> indexComment(resultSet.getLong(1), resultSet.getLong(2), resultSet.getString(3)));
+    }
+
+    private void query(String sql, long fromId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(500);  // mit useCursorFetch liest MySQL blockweise statt alle Zeilen auf einmal
+            statement.setLong(1, fromId);
+            return statement;
+        }, handler);
+    }
+
+    private int add(byte type, long entityId, long postId, Map<String, Integer> terms) {
+        int length = 0;
+        for (int tf : terms.values()) {
+            length += tf;
+        }
+        int doc = docs.add(type, entityId, postId, length);
+        terms.forEach((term, tf) -> delta.computeIfAbsent(term, key -> new Postings()).add(doc, tf));
+        liveDocs++;
+        liveLength += length;
+        return doc;
+    }
+
+    private void delete(Integer doc) {
+        if (doc == null || deleted.get(doc)) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        liveDocs--;
+        liveLength -= docs.lengths[doc];
+    }
+
+    private void score(Map<Integer, Double> scores, int doc, int tf, double idf, double averageLength) {
+        if (deleted.get(doc)) {
+            return;
+        }
+        double norm = K1 * (1 - B + B * docs.lengths[doc] / averageLength);
+        scores.merge(doc, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+    }
+
+    /**
+     * Zerlegt einen Text in kleingeschriebene Terme aus Buchstaben und Ziffern (mindestens 2 Zeichen)
+     * @return Term -> Häufigkeit, in Reihenfolge des ersten Vorkommens
+     */
+    static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (i - start >= 2) {
+                    terms.merge(lower.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)), 1, Integer::sum);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Ein Treffer, sortiert nach Bewertung absteigend, bei Gleichstand nach Typ und ID
+     */
+    public static final class Hit implements Comparable<Hit> {
+        private final byte type;
+        private final long id;
+        private final long postId;
+        private final double score;
+
+        Hit(byte type, long id, long postId, double score) {
+            this.type = type;
+            this.id = id;
+            this.postId = postId;
+            this.score = score;
+        }
+
+        /** Treffer aus einem Cursor (für den Vergleich reichen Typ, ID und Bewertung) */
+        public static Hit of(boolean post, long id, double score) {
+            return new Hit(post ? POST : COMMENT, id, 0, score);
+        }
+
+        public boolean isPost() {
+            return type == POST;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getPostId() {
+            return postId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int cmp = Double.compare(other.score, score);
+            if (cmp == 0) {
+                cmp = Byte.compare(type, other.type);
+            }
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+
+    /** Dokumente als parallele primitive Arrays */
+    static final class DocTable {
+        private byte[] types = new byte[16];
+        private long[] entityIds = new long[16];
+        private long[] postIds = new long[16];
+        private int[] lengths = new int[16];
+        private int size;
+
+        int add(byte type, long entityId, long postId, int length) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                entityIds = Arrays.copyOf(entityIds, capacity);
+                postIds = Arrays.copyOf(postIds, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            types[size] = type;
+            entityIds[size] = entityId;
+            postIds[size] = postId;
+            lengths[size] = length;
+            return size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /** Postings eines Terms im Delta: Ordinal und Termhäufigkeit, aufsteigend nach Ordinal */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] freqs = new int[2];
+        private int size;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = tf;
+            size++;
+        }
+    }
+}
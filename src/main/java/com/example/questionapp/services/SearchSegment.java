@@ -0,0 +1,256 @@
+package com.example.questionapp.services;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Unveränderliches Segment des Suchindex als Datei, per mmap gelesen
+ * Aufbau (alle Zahlen big-endian):
+ * <pre>
+ * Kopf:      int MAGIC, int VERSION, int docCount, long maxPostId, long maxCommentId
+ * Dokumente: docCount x (byte type, long entityId, long postId, int length)
+ * Terme:     nach UTF-8-Bytes sortiert, je Term: short byteLength, bytes, int df, df x (int doc, int tf)
+ * Offsets:   termCount x int (Position jedes Terms für die binäre Suche)
+ * Ende:      int offsetsPosition, int termCount, int MAGIC
+ * </pre>
+ * Die Dokumenttabelle wird beim Öffnen auf den Heap gelesen, Wörterbuch und Postings bleiben in der gemappten Datei
+ * und werden vom Betriebssystem nach Bedarf geladen. Eine Datei ist auf 2 GB begrenzt (ein MappedByteBuffer).
+ */
+final class SearchSegment {
+
+    private static final int MAGIC = 0x53524348;  // "SRCH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+    private static final int DOC_SIZE = 1 + 8 + 8 + 4;
+    private static final int TRAILER_SIZE = 4 + 4 + 4;
+
+    /** Leeres Segment, wenn noch keine Datei existiert oder der Index nur im Speicher liegt */
+    static final SearchSegment EMPTY = new SearchSegment(null, 0, 0, 0, 0, 0);
+
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final long maxPostId;
+    private final long maxCommentId;
+    private final int offsetsPosition;
+    private final int termCount;
+
+    private SearchSegment(ByteBuffer buffer, int docCount, long maxPostId, long maxCommentId, int offsetsPosition, int termCount) {
+        this.buffer = buffer;
+        this.docCount = docCount;
+        this.maxPostId = maxPostId;
+        this.maxCommentId = maxCommentId;
+        this.offsetsPosition = offsetsPosition;
+        this.termCount = termCount;
+    }
+
+    /**
+     * Mappt eine Segmentdatei
+     * @throws IOException wenn die Datei nicht lesbar ist oder kein gültiges Segment enthält
+     */
+    static SearchSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + TRAILER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("invalid segment size " + channel.size());
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int end = buffer.capacity();
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(end - 4) != MAGIC) {
+            throw new IOException("not a search segment");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported segment version " + buffer.getInt(4));
+        }
+        return new SearchSegment(buffer, buffer.getInt(8), buffer.getLong(12), buffer.getLong(20),
+                buffer.getInt(end - TRAILER_SIZE), buffer.getInt(end - TRAILER_SIZE + 4));
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    long maxPostId() {
+        return maxPostId;
+    }
+
+    long maxCommentId() {
+        return maxCommentId;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    /** Liest die Dokumenttabelle in docs */
+    void readDocs(SearchIndex.DocTable docs) {
+        for (int doc = 0; doc < docCount; doc++) {
+            int position = HEADER_SIZE + doc * DOC_SIZE;
+            docs.add(buffer.get(position), buffer.getLong(position + 1), buffer.getLong(position + 9), buffer.getInt(position + 17));
+        }
+    }
+
+    /**
+     * Sucht einen Term per binärer Suche über die Offsets
+     * @return Position des Terms oder -1
+     */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(termPosition(mid), term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return termPosition(mid);
+            }
+        }
+        return -1;
+    }
+
+    /** Position des i-ten Terms in Sortierreihenfolge */
+    int termPosition(int index) {
+        return buffer.getInt(offsetsPosition + index * 4);
+    }
+
+    byte[] termBytes(int position) {
+        byte[] bytes = new byte[buffer.getShort(position)];
+        buffer.get(position + 2, bytes);
+        return bytes;
+    }
+
+    int docFreq(int position) {
+        return buffer.getInt(position + 2 + buffer.getShort(position));
+    }
+
+    /** Position des ersten Postings (doc, tf) eines Terms, jedes Posting ist 8 Byte groß */
+    int postingsPosition(int position) {
+        return position + 2 + buffer.getShort(position) + 4;
+    }
+
+    int postingDoc(int postingPosition) {
+        return buffer.getInt(postingPosition);
+    }
+
+    int postingFreq(int postingPosition) {
+        return buffer.getInt(postingPosition + 4);
+    }
+
+    private int compare(int position, byte[] term) {
+        int length = buffer.getShort(position);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(position + 2 + i) & 0xff, term[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    /**
+     * Schreibt ein Segment erst in eine temporäre Datei und ersetzt dann die Zieldatei atomar
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path temp;
+        private final DataOutputStream out;
+        private final int docCount;
+        private int docsWritten;
+        private final IntList offsets = new IntList();
+
+        Writer(Path file, int docCount, long maxPostId, long maxCommentId) throws IOException {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.docCount = docCount;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docCount);
+            out.writeLong(maxPostId);
+            out.writeLong(maxCommentId);
+        }
+
+        void doc(byte type, long entityId, long postId, int length) throws IOException {
+            out.writeByte(type);
+            out.writeLong(entityId);
+            out.writeLong(postId);
+            out.writeInt(length);
+            docsWritten++;
+        }
+
+        /** Terme müssen in aufsteigender Reihenfolge ihrer UTF-8-Bytes und nach allen Dokumenten geschrieben werden */
+        void term(byte[] term, IntList docs, IntList freqs) throws IOException {
+            offsets.add(out.size());
+            out.writeShort(term.length);
+            out.write(term);
+            out.writeInt(docs.size());
+            for (int i = 0; i < docs.size(); i++) {
+                out.writeInt(docs.get(i));
+                out.writeInt(freqs.get(i));
+            }
+        }
+
+        /** Schließt die Datei ab und ersetzt die Zieldatei */
+        void commit() throws IOException {
+            if (docsWritten != docCount) {
+                throw new IllegalStateException("expected " + docCount + " docs, wrote " + docsWritten);
+            }
+            int offsetsPosition = out.size();
+            for (int i = 0; i < offsets.size(); i++) {
+                out.writeInt(offsets.get(i));
+            }
+            out.writeInt(offsetsPosition);
+            out.writeInt(offsets.size());
+            out.writeInt(MAGIC);
+            if (out.size() == Integer.MAX_VALUE) {  // DataOutputStream zählt nur bis Integer.MAX_VALUE
+                throw new IOException("segment exceeds 2 GB");
+            }
+            out.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Wachsende Liste primitiver int-Werte */
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
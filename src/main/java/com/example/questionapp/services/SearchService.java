@@ -0,0 +1,98 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.CommentRepository;
+import com.example.questionapp.dataAccess.PostRepository;
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.requests.SearchCursor;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.SearchHitResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Volltextsuche über Posts und Kommentare
+ * Die Treffer kommen aus dem SearchIndex, die Inhalte einer Seite werden mit je einer Abfrage
+ * für Posts und Kommentare nachgeladen, die Autoren aus dem UserDirectory. Treffer die es in der Datenbank nicht mehr
+ * gibt fallen heraus.
+ */
+@Service
+public class SearchService {
+
+    private SearchIndex searchIndex;
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private UserDirectory userDirectory;
+
+    public SearchService(SearchIndex searchIndex, PostRepository postRepository, CommentRepository commentRepository,
+                         UserDirectory userDirectory) {
+        this.searchIndex = searchIndex;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.userDirectory = userDirectory;
+    }
+
+    /**
+     * @param query Die Suchanfrage, Terme werden mit ODER verknüpft
+     * @param after Letzter Treffer der vorherigen Seite oder null
+     * @param limit Seitengröße
+     * @return Eine Seite der Treffer, beste zuerst
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SearchHitResponse> search(String query, SearchIndex.Hit after, int limit) {
+        List<SearchIndex.Hit> hits = searchIndex.search(query, after, limit);
+        String nextCursor = null;
+        if(hits.size() > limit) {  // ein Treffer mehr als angefragt => es gibt eine weitere Seite
+            hits = hits.subList(0, limit);
+            nextCursor = SearchCursor.of(hits.get(limit - 1));
+        }
+        List<Long> postIds = new ArrayList<>();
+        List<Long> commentIds = new ArrayList<>();
+        for(SearchIndex.Hit hit : hits) {
+            (hit.isPost() ? postIds : commentIds).add(hit.getId());
+        }
+        Map<Long, Post> posts = new HashMap<>();
+        if(!postIds.isEmpty()) {
+            postRepository.findAllById(postIds).forEach(post -> posts.put(post.getId(), post));
+        }
+        Map<Long, Comment> comments = new HashMap<>();
+        if(!commentIds.isEmpty()) {
+            commentRepository.findAllById(commentIds).forEach(comment -> comments.put(comment.getId(), comment));
+        }
+        List<SearchHitResponse> responses = new ArrayList<>(hits.size());
+        for(SearchIndex.Hit hit : hits) {
+            SearchHitResponse response = new SearchHitResponse();
+            response.setId(hit.getId());
+            response.setScore(hit.getScore());
+            if(hit.isPost()) {
+                Post post = posts.get(hit.getId());
+                if(post == null) {
+                    continue;
+                }
+                response.setType("post");
+                response.setPostId(post.getId());
+                response.setUserId(post.getUser().getId());
+                response.setUsername(userDirectory.username(post.getUser().getId()));
+                response.setTitle(post.getTitle());
+                response.setText(post.getText());
+            } else {
+                Comment comment = comments.get(hit.getId());
+                if(comment == null) {
+                    continue;
+                }
+                response.setType("comment");
+                response.setPostId(comment.getPost().getId());
+                response.setUserId(comment.getUser().getId());
+                response.setUsername(userDirectory.username(comment.getUser().getId()));
+                response.setText(comment.getText());
+            }
+            responses.add(response);
+        }
+        return new CursorPage<>(responses, nextCursor);
+    }
+}
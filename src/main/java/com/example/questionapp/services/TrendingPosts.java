@@ -0,0 +1,288 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.responses.TrendingPostResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Trending-Posts der letzten Stunde, vollständig im Speicher
+ * Likes und Kommentare werden in Zeit-Buckets (trending.bucket.seconds, trending.window.buckets Stück) gezählt,
+ * jeder Bucket ist ein Count-Min-Sketch: depth Zeilen mit width Zählern, ein Post erhöht in jeder Zeile den Zähler
+ * an seiner Hash-Position, geschätzt wird das Minimum (nie zu wenig, selten zu viel). Der Speicher ist fest
+ * (window x depth x width int), egal wie viele Posts aktiv sind.
+ *
+ * Score eines Posts = Summe über die Buckets von Anzahl x 0.5^(Alter / trending.half.life.seconds), ältere Aktivität
+ * zählt also exponentiell weniger und fällt nach dem Fenster ganz heraus. Da das Gewicht nur vom Alter des Buckets
+ * abhängt, sind Scores zwischen zwei Bucket-Wechseln vergleichbar; beim Wechsel werden alle Kandidaten neu bewertet.
+ *
+ * Die besten Posts liegen in einem Min-Heap (2 x trending.top.k Kandidaten, damit nachrückende Posts nicht verloren
+ * gehen). Ein Ereignis zu einem Post der weder Kandidat ist noch über dem kleinsten Score liegt, kostet nur die
+ * Sketch-Zähler (CAS, ohne Lock). GET /posts/trending liest eine sortierte, unveränderliche Liste.
+ *
+ * Der Zustand gilt pro Instanz und beginnt nach einem Neustart leer.
+ */
+@Component
+public class TrendingPosts {
+
+    /** Gewicht eines Likes und eines Kommentars im Score */
+    private final int likeWeight;
+    private final int commentWeight;
+
+    private final long bucketMillis;
+    private final int depth;
+    private final int widthMask;
+    private final int topK;
+    private final int capacity;
+
+    private final int window;
+    /**
+     * Alle Sketches in einem Array, Bucket b liegt im Ring-Slot b % window. Die Zähler einer Sketch-Zelle stehen für
+     * alle Slots nebeneinander (Index = Zelle x window + Slot), eine Schätzung über das ganze Fenster liest so pro
+     * Zeile wenige zusammenhängende Cache-Lines statt einer Cache-Line in jedem der window Sketches.
+     */
+    private final AtomicIntegerArray counts;
+    /** Gewicht eines Buckets nach Alter (0 = aktueller Bucket) */
+    private final double[] weights;
+    private volatile long currentBucket;
+
+    /** Kandidaten nach Score, kleinster oben; geschützt durch this */
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+    private final Map<Long, Candidate> candidates = new ConcurrentHashMap<>();
+    /** Kleinster Score im vollen Heap - darunter muss nicht gelockt werden */
+    private volatile double threshold;
+
+    private volatile List<TrendingPostResponse> ranking = Collections.emptyList();
+    private volatile boolean dirty;
+
+    /** Systemuhr, in Tests ersetzbar (siehe useClock) */
+    private volatile LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param bucketSeconds Länge eines Zeit-Buckets
+     * @param windowBuckets Anzahl der Buckets im Fenster (Standard 60 x 60 s = eine Stunde)
+     * @param halfLifeSeconds Nach dieser Zeit zählt ein Ereignis nur noch halb
+     * @param width Zähler pro Sketch-Zeile, wird auf eine Zweierpotenz aufgerundet
+     * @param depth Zeilen pro Sketch (unabhängige Hashfunktionen)
+     * @param topK Maximale Länge der Trending-Liste
+     */
+    public TrendingPosts(@Value("${trending.bucket.seconds:60}") long bucketSeconds,
+                         @Value("${trending.window.buckets:60}") int windowBuckets,
+                         @Value("${trending.half.life.seconds:900}") long halfLifeSeconds,
+                         @Value("${trending.sketch.width:4096}") int width,
+                         @Value("${trending.sketch.depth:4}") int depth,
+                         @Value("${trending.top.k:100}") int topK,
+                         @Value("${trending.weight.like:1}") int likeWeight,
+                         @Value("${trending.weight.comment:3}") int commentWeight) {
+        this.bucketMillis = bucketSeconds * 1000;
+        this.depth = depth;
+        int roundedWidth = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.widthMask = roundedWidth - 1;
+        this.topK = topK;
+        this.capacity = topK * 2;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.window = windowBuckets;
+        this.counts = new AtomicIntegerArray(depth * roundedWidth * windowBuckets);
+        this.weights = new double[windowBuckets];
+        for(int age = 0; age < windowBuckets; age++) {
+            weights[age] = Math.pow(0.5, (double) age * bucketSeconds / halfLifeSeconds);
+        }
+        this.currentBucket = System.currentTimeMillis() / bucketMillis;
+    }
+
+    /**
+     * Ersetzt die Uhr und beginnt mit deren aktuellem Bucket, nur für Tests
+     */
+    synchronized void useClock(LongSupplier testClock) {
+        clock = testClock;
+        currentBucket = testClock.getAsLong() / bucketMillis;
+    }
+
+    public void recordLike(Long postId) {
+        record(postId, likeWeight);
+    }
+
+    public void recordComment(Long postId) {
+        record(postId, commentWeight);
+    }
+
+    /**
+     * Entfernt einen gelöschten Post aus der Liste, seine Zähler laufen mit dem Fenster aus
+     */
+    public void remove(Long postId) {
+        synchronized (this) {
+            Candidate candidate = candidates.remove(postId);
+            if(candidate != null) {
+                heap.remove(candidate);
+                threshold = heap.size() < capacity ? 0 : heap.peek().score;
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * @param limit Höchstens so viele Posts, begrenzt auf trending.top.k
+     * @return Die Posts mit dem höchsten Score, absteigend
+     */
+    public List<TrendingPostResponse> top(int limit) {
+        List<TrendingPostResponse> current = ranking;
+        if(dirty) {
+            current = publish();
+        }
+        return current.subList(0, Math.min(Math.min(limit, topK), current.size()));
+    }
+
+    /**
+     * Wechselt in den nächsten Bucket sobald dessen Zeit begonnen hat: der älteste wird geleert und alle Kandidaten
+     * mit den neuen Gewichten bewertet
+     */
+    @Scheduled(fixedRate = 1000)
+    public void rotate() {
+        long now = clock.getAsLong() / bucketMillis;
+        synchronized (this) {
+            long previous = currentBucket;
+            if(now <= previous) {
+                return;
+            }
+            // der Scheduler kann sich verspäten - jeden übersprungenen Bucket leeren, höchstens einmal den ganzen Ring
+            for(long bucket = Math.max(previous + 1, now - window + 1); bucket <= now; bucket++) {
+                for(int i = (int) (bucket % window); i < counts.length(); i += window) {
+                    counts.set(i, 0);
+                }
+            }
+            currentBucket = now;
+            List<Candidate> rescored = new ArrayList<>(heap.size());
+            for(Candidate candidate : heap) {
+                double score = estimate(candidate.postId, now);
+                if(score > 0) {
+                    rescored.add(new Candidate(candidate.postId, score));
+                }
+            }
+            heap.clear();
+            candidates.clear();
+            for(Candidate candidate : rescored) {
+                heap.add(candidate);
+                candidates.put(candidate.postId, candidate);
+            }
+            threshold = heap.size() < capacity ? 0 : heap.peek().score;
+            dirty = true;
+        }
+    }
+
+    private void record(Long postId, int weight) {
+        if(postId == null || weight <= 0) {
+            return;
+        }
+        long bucket = currentBucket;
+        int slot = (int) (bucket % window);
+        long hash = postId;
+        for(int row = 0; row < depth; row++) {
+            hash = mix(hash + row);
+            counts.addAndGet(cell(row, hash) + slot, weight);
+        }
+        double score = estimate(postId, bucket);
+        if(score <= threshold && !candidates.containsKey(postId)) {
+            return;  // kein Trending-Kandidat - ohne Lock fertig
+        }
+        synchronized (this) {
+            if(bucket != currentBucket) {
+                return;  // inzwischen rotiert, der Score gilt für die alten Gewichte
+            }
+            Candidate existing = candidates.get(postId);
+            if(existing != null) {
+                heap.remove(existing);
+            } else if(heap.size() >= capacity) {
+                if(score <= heap.peek().score) {
+                    return;
+                }
+                candidates.remove(heap.poll().postId);
+            }
+            Candidate candidate = new Candidate(postId, score);
+            heap.add(candidate);
+            candidates.put(postId, candidate);
+            threshold = heap.size() < capacity ? 0 : heap.peek().score;
+            dirty = true;
+        }
+    }
+
+    /** Gewichtete Summe der Count-Min-Schätzungen aller Buckets im Fenster */
+    private double estimate(long postId, long bucket) {
+        int[] positions = new int[depth];
+        long hash = postId;
+        for(int row = 0; row < depth; row++) {
+            hash = mix(hash + row);
+            positions[row] = cell(row, hash);
+        }
+        int current = (int) (bucket % window);
+        double score = 0;
+        for(int age = 0; age < window; age++) {
+            int slot = current >= age ? current - age : current - age + window;
+            int min = Integer.MAX_VALUE;
+            for(int position : positions) {
+                min = Math.min(min, counts.get(position + slot));
+            }
+            score += min * weights[age];
+        }
+        return score;
+    }
+
+    /** Sortiert die Kandidaten für Lesezugriffe, nur wenn sich seit dem letzten Mal etwas geändert hat */
+    private synchronized List<TrendingPostResponse> publish() {
+        if(dirty) {
+            dirty = false;
+            List<Candidate> sorted = new ArrayList<>(heap);
+            sorted.sort(Comparator.comparingDouble(Candidate::score).reversed().thenComparing(Candidate::postId));
+            List<TrendingPostResponse> responses = new ArrayList<>(Math.min(sorted.size(), topK));
+            for(int i = 0; i < sorted.size() && i < topK; i++) {
+                responses.add(new TrendingPostResponse(sorted.get(i).postId, sorted.get(i).score));
+            }
+            ranking = Collections.unmodifiableList(responses);
+        }
+        return ranking;
+    }
+
+    /** Erster Zähler (Slot 0) der Sketch-Zelle einer Zeile */
+    private int cell(int row, long hash) {
+        return (row * (widthMask + 1) + (int) (hash & widthMask)) * window;
+    }
+
+    /** Durchmischt die Bits einer ID (Finalizer von MurmurHash3), je Zeile mit anderem Startwert */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Candidate {
+        private final long postId;
+        private final double score;
+
+        Candidate(long postId, double score) {
+            this.postId = postId;
+            this.score = score;
+        }
+
+        double score() {
+            return score;
+        }
+
+        long postId() {
+            return postId;
+        }
+    }
+}
@@ -4,26 +4,45 @@ package com.example.questionapp.services;
 import com.example.questionapp.dataAccess.UserRepository;
 import com.example.questionapp.entities.User;
 import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
 
 /**
  * Implementierung des UserDetailsService für Spring Security
  * Lädt Benutzerdetails für die Authentifizierung aus der Datenbank
+ * Immer in einer schreibenden Transaktion und damit vom Primary, auch mit Lese-Replikas: ein gerade registrierter
+ * Benutzer muss sich sofort anmelden können, bevor er auf den Replikas angekommen ist.
  */
 @Service
 public class UserDetailsServiceImplementation implements UserDetailsService {
 
     private UserRepository userRepository;
+    private PrincipalCache principalCache;
+    private TransactionTemplate transactionTemplate;
+    /** Benutzer-IDs mit der Berechtigung OPERATOR (Bulk-Import) */
+    private Set<Long> operatorIds;
 
     /**
      * Konstruktor für Dependency Injection
      * @param userRepository Repository für Benutzer-Datenbankoperationen
+     * @param principalCache Cache der bereits geladenen Benutzerdetails
+     * @param transactionTemplate Transaktion auf dem Primary für das Laden der Benutzer
+     * @param operatorIds Benutzer-IDs der Betreiber, kommagetrennt (leer = niemand)
      */
-    public UserDetailsServiceImplementation(UserRepository userRepository) {
+    public UserDetailsServiceImplementation(UserRepository userRepository, PrincipalCache principalCache,
+                                            TransactionTemplate transactionTemplate,
+                                            @Value("${security.operator.ids:}") Set<Long> operatorIds) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.transactionTemplate = transactionTemplate;
+        this.operatorIds = operatorIds;
     }
 
     /**
@@ -34,19 +53,24 @@ public class UserDetailsServiceImplementation implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username);
+        User user = transactionTemplate.execute(status -> userRepository.findByUsername(username));
         // User-Entity in UserDetails-Objekt für Spring Security konvertieren
-        return JWTUserDetails.create(user);
+        return create(user);
     }
 
     /**
      * Lädt Benutzerdetails anhand der Benutzer-ID (für JWT-Token-Validierung)
+     * Wird bei jeder authentifizierten Anfrage aufgerufen, daher zuerst aus dem PrincipalCache
      * @param id Die Benutzer-ID
-     * @return UserDetails-Objekt des gefundenen Benutzers
+     * @return UserDetails-Objekt des gefundenen Benutzers oder null wenn er nicht existiert
      */
     public UserDetails loadUserById(Long id) {
-        User user = userRepository.findById(id).get();
-        return JWTUserDetails.create(user);
+        return principalCache.get(id, userId -> transactionTemplate.execute(status ->
+                userRepository.findById(userId).map(this::create).orElse(null)));
+    }
+
+    private JWTUserDetails create(User user) {
+        return JWTUserDetails.create(user, operatorIds.contains(user.getId()));
     }
 
 }
@@ -0,0 +1,135 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verzeichnis aller Benutzer im Speicher: ID -> (Benutzername, Bild)
+ * Mehr brauchen Post-, Kommentar-, Such- und Aktivitäts-Responses vom Autor nicht. Statt den Benutzer per Join oder
+ * Lazy-Load mitzulesen, schlagen die Services ihn hier nach - Lesepfade lesen keine Benutzerdaten aus der Datenbank.
+ *
+ * Beim Start wird das Verzeichnis mit einer Abfrage gefüllt, danach von UserService (anlegen, ändern, löschen) und
+ * dem Bulk-Import aktuell gehalten. Fehlt eine ID (z.B. ein Benutzer den eine andere Instanz angelegt hat), wird sie
+ * nachgeladen - für mehrere IDs mit einer IN-Abfrage. Umbenennungen auf anderen Instanzen sieht diese Instanz erst
+ * nach einem Neustart.
+ */
+@Component
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    /** Maximale Anzahl an IDs pro IN-Abfrage beim Nachladen */
+    private static final int CHUNK_SIZE = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Author> authors = new ConcurrentHashMap<>();
+
+    public UserDirectory(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Liest alle Benutzer ein */
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("select id, username, image from user");
+            statement.setFetchSize(1000);  // mit useCursorFetch liest MySQL blockweise statt alle Zeilen auf einmal
+            return statement;
+        }, resultSet -> {
+            authors.put(resultSet.getLong(1), new Author(resultSet.getString(2), resultSet.getInt(3)));
+        });
+        logger.info("User directory: {} users loaded in {} ms", authors.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return Benutzername und Bild oder null wenn der Benutzer nicht existiert
+     */
+    public Author get(Long userId) {
+        Author author = authors.get(userId);
+        if(author == null) {
+            author = getAll(List.of(userId)).get(userId);
+        }
+        return author;
+    }
+
+    /**
+     * Schlägt mehrere Benutzer nach, fehlende werden zusammen nachgeladen
+     * @return ID -> Autor, ohne die Benutzer die nicht existieren
+     */
+    public Map<Long, Author> getAll(Collection<Long> userIds) {
+        Map<Long, Author> found = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for(Long userId : userIds) {
+            Author author = authors.get(userId);
+            if(author != null) {
+                found.put(userId, author);
+            } else if(userId != null && !found.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+        for(int from = 0; from < missing.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + CHUNK_SIZE, missing.size()));
+            String sql = "select id, username, image from user where id in (" + "?, ".repeat(chunk.size() - 1) + "?)";
+            jdbcTemplate.query(sql, resultSet -> {
+                Author author = new Author(resultSet.getString(2), resultSet.getInt(3));
+                authors.put(resultSet.getLong(1), author);
+                found.put(resultSet.getLong(1), author);
+            }, chunk.toArray());
+        }
+        return found;
+    }
+
+    /** Benutzername eines Benutzers oder null */
+    public String username(Long userId) {
+        Author author = get(userId);
+        return author == null ? null : author.getUsername();
+    }
+
+    /** Trägt einen neuen oder geänderten Benutzer ein */
+    public void put(User user) {
+        put(user.getId(), user.getUsername(), user.getImage());
+    }
+
+    public void put(Long userId, String username, int image) {
+        authors.put(userId, new Author(username, image));
+    }
+
+    public void remove(Long userId) {
+        authors.remove(userId);
+    }
+
+    /**
+     * Die Angaben eines Benutzers die in Responses erscheinen, unveränderlich
+     */
+    public static final class Author {
+        private final String username;
+        private final int image;
+
+        Author(String username, int image) {
+            this.username = username;
+            this.image = image;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getImage() {
+            return image;
+        }
+    }
+}
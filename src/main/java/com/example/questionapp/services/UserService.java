@@ -5,39 +5,85 @@ import com.example.questionapp.dataAccess.CommentRepository;
 import com.example.questionapp.dataAccess.LikeRepository;
 import com.example.questionapp.dataAccess.PostRepository;
 import com.example.questionapp.dataAccess.UserRepository;
-import com.example.questionapp.entities.Comment;
-import com.example.questionapp.entities.Like;
 import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.ActivityResponse;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.ResourceVersion;
+import com.example.questionapp.security.PrincipalCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * Service für Benutzerverwaltung und Benutzeraktivitäten
- * Verwaltet CRUD-Operationen für Benutzer und deren Aktivitäten (Posts, Likes, Kommentare)
+ * Verwaltet CRUD-Operationen für Benutzer und deren Aktivitäten (Likes und Kommentare auf ihren Posts)
  */
 @Service
 public class UserService {
 
     private UserRepository userRepository;
-    private LikeRepository likeRepository;
-    private CommentRepository commentRepository;
+    private PrincipalCache principalCache;
+    private UserTimelineIndex userTimelineIndex;
+    private ActivityFeedService activityFeedService;
+    private UserDirectory userDirectory;
+    private ReadYourWrites readYourWrites;
+    private RefreshTokenService refreshTokenService;
     private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private JsonFragmentCache jsonFragmentCache;
+    private LikeRepository likeRepository;
+    private PostCounterAccumulator postCounterAccumulator;
+    private PostLikeIndex postLikeIndex;
+    private SearchIndex searchIndex;
+    private TrendingPosts trendingPosts;
 
     /**
-     * Konstruktor für Dependency Injection aller benötigten Repositories
+     * Konstruktor für Dependency Injection
      * @param userRepository Repository für Benutzer-Operationen
-     * @param likeRepository Repository für Like-Operationen
-     * @param commentRepository Repository für Kommentar-Operationen
-     * @param postRepository Repository für Post-Operationen
+     * @param principalCache Cache der Benutzerdetails für die Authentifizierung
+     * @param userTimelineIndex Index der neuesten Posts je Benutzer
+     * @param activityFeedService Aktivitäten auf den Posts eines Benutzers
+     * @param userDirectory Benutzernamen und Bilder für die Responses, wird hier aktuell gehalten
+     * @param readYourWrites Neue Benutzer lesen zunächst vom Primary (die Registrierung ist anonym)
+     * @param refreshTokenService Index der Refresh-Tokens, beim Löschen eines Benutzers bereinigt
+     * @param postRepository Neue Versionen der Posts eines umbenannten Benutzers
+     * @param commentRepository Neue Versionen der Kommentare eines umbenannten Benutzers
+     * @param jsonFragmentCache Fertiges JSON mit dem Benutzernamen, bei einer Umbenennung entfernt
+     * @param likeRepository Likes eines gelöschten Benutzers auf fremden Posts
+     * @param postCounterAccumulator Zähler der Posts, auf denen ein gelöschter Benutzer geliked oder kommentiert hat
+     * @param postLikeIndex Likes eines gelöschten Benutzers und die Bitmaps seiner Posts werden entfernt
+     * @param searchIndex Posts und Kommentare eines gelöschten Benutzers werden entfernt
+     * @param trendingPosts Posts eines gelöschten Benutzers werden entfernt
      */
-    public UserService(UserRepository userRepository, LikeRepository likeRepository, CommentRepository commentRepository, PostRepository postRepository) {
+    public UserService(UserRepository userRepository, PrincipalCache principalCache, UserTimelineIndex userTimelineIndex,
+                       ActivityFeedService activityFeedService, UserDirectory userDirectory, ReadYourWrites readYourWrites,
+                       RefreshTokenService refreshTokenService, PostRepository postRepository, CommentRepository commentRepository,
+                       JsonFragmentCache jsonFragmentCache, LikeRepository likeRepository,
+                       PostCounterAccumulator postCounterAccumulator, PostLikeIndex postLikeIndex,
+                       SearchIndex searchIndex, TrendingPosts trendingPosts) {
         this.userRepository = userRepository;
-        this.likeRepository = likeRepository;
-        this.commentRepository = commentRepository;
+        this.principalCache = principalCache;
+        this.userTimelineIndex = userTimelineIndex;
+        this.activityFeedService = activityFeedService;
+        this.userDirectory = userDirectory;
+        this.readYourWrites = readYourWrites;
+        this.refreshTokenService = refreshTokenService;
         this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.jsonFragmentCache = jsonFragmentCache;
+        this.likeRepository = likeRepository;
+        this.postCounterAccumulator = postCounterAccumulator;
+        this.postLikeIndex = postLikeIndex;
+        this.searchIndex = searchIndex;
+        this.trendingPosts = trendingPosts;
     }
 
 
@@ -45,6 +91,7 @@ public class UserService {
      * Gibt alle Benutzer zurück
      * @return Liste aller Benutzer
      */
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -55,7 +102,11 @@ public class UserService {
      * @return Der gespeicherte Benutzer
      */
     public User createUser(User user) {
-        return userRepository.save(user);
+        user.setLastModified(new Date());
+        User savedUser = userRepository.save(user);
+        userDirectory.put(savedUser);
+        readYourWrites.recordWrite(savedUser.getId());
+        return savedUser;
     }
 
     /**
@@ -63,11 +114,21 @@ public class UserService {
      * @param userId Die ID des gesuchten Benutzers
      * @return Der gefundene Benutzer oder null wenn nicht vorhanden
      */
+    @Transactional(readOnly = true)
     public User getUserById(Long userId) {
         // Benutzer könnte in der Datenbank nicht existieren - Kontrolle erforderlich
         return userRepository.findById(userId).orElse(null);
     }
 
+    /**
+     * Stand eines Benutzers für bedingte GET-Anfragen, ohne ihn zu laden
+     * @return Der Stand oder null wenn der Benutzer nicht existiert
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getUserVersion(Long userId) {
+        return userRepository.findVersionById(userId).orElse(null);
+    }
+
     /**
      * Aktualisiert einen existierenden Benutzer
      * @param userId Die ID des zu aktualisierenden Benutzers
@@ -79,10 +140,25 @@ public class UserService {
         // Prüfen ob der Benutzer existiert
         if (user.isPresent()){
             User foundUser = user.get();
+            boolean renamed = !Objects.equals(foundUser.getUsername(), newUser.getUsername());
             foundUser.setUsername(newUser.getUsername());
             foundUser.setPassword(newUser.getPassword());
             foundUser.setImage(newUser.getImage());
+            foundUser.setVersion(foundUser.getVersion() + 1);  // neuer ETag für GET /users/{userId}
+            foundUser.setLastModified(new Date());
             userRepository.save(foundUser);
+            // gecachte Benutzerdetails (Benutzername, Passwort) sind jetzt veraltet
+            principalCache.invalidate(userId);
+            userDirectory.put(foundUser);
+            if (renamed) {
+                // Posts und Kommentare zeigen den Benutzernamen: neue ETags erst nach dem Eintrag im UserDirectory,
+                // sonst könnte unter dem neuen ETag noch der alte Name gecacht werden
+                Date now = new Date();
+                postRepository.touchByUserId(userId, now);
+                commentRepository.touchByUserId(userId, now);
+                postRepository.findIdsByUserId(userId).forEach(jsonFragmentCache::invalidatePost);
+                commentRepository.findPostIdsByUserId(userId).forEach(jsonFragmentCache::invalidateComments);
+            }
             return foundUser;
         }else
             return null;
@@ -93,7 +169,44 @@ public class UserService {
      * @param userId Die ID des zu löschenden Benutzers
      */
     public void deleteUserById(Long userId) {
-        userRepository.deleteById(userId);
+        // die Datenbank löscht Likes und Kommentare des Benutzers per Cascade mit - like_count und comment_count
+        // der fremden Posts bekommen deshalb vorher gezählte Deltas, wie bei einem einzelnen Unlike
+        List<Long> ownPostIds = postRepository.findIdsByUserId(userId);
+        List<Long> commentIds = commentRepository.findIdsByUserIdOnOtherPosts(userId);
+        Map<Long, Long> likes = countsByPost(likeRepository.countByUserIdOnOtherPosts(userId));
+        Map<Long, Long> comments = countsByPost(commentRepository.countByUserIdOnOtherPosts(userId));
+        List<Long> postIds = new ArrayList<>(likes.keySet());
+        postIds.addAll(comments.keySet());
+        postCounterAccumulator.counted(postIds, () -> {
+            userRepository.deleteById(userId);
+            likes.forEach((postId, count) -> postCounterAccumulator.addLikes(postId, -count));
+            comments.forEach((postId, count) -> postCounterAccumulator.addComments(postId, -count));
+            return null;
+        });
+        for (Long postId : postIds) {
+            jsonFragmentCache.invalidatePost(postId);
+        }
+        comments.keySet().forEach(jsonFragmentCache::invalidateComments);
+        postLikeIndex.removeUser(userId);
+        ownPostIds.forEach(postLikeIndex::invalidate);
+        // wie PostService.deletePostById und CommentService.deleteCommentById, nur für alle per Cascade gelöschten
+        ownPostIds.forEach(searchIndex::removePost);
+        commentIds.forEach(searchIndex::removeComment);
+        ownPostIds.forEach(trendingPosts::remove);
+        principalCache.invalidate(userId);  // Tokens des gelöschten Benutzers dürfen nicht mehr authentifizieren
+        userTimelineIndex.invalidate(userId);  // Posts wurden per Cascade mitgelöscht
+        userDirectory.remove(userId);
+        activityFeedService.removeUser(userId);
+        refreshTokenService.removeUser(userId);  // sonst bleibt der Refresh-Token bis zur Revalidierung gültig
+    }
+
+    /** Zeilen (Post-ID, Anzahl) als Map */
+    private static Map<Long, Long> countsByPost(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
     }
 
     /**
@@ -108,25 +221,15 @@ public class UserService {
 
 
     /**
-     * Sammelt alle Aktivitäten eines Benutzers (Kommentare und Likes zu seinen Posts)
+     * Liefert die Aktivitäten auf den Posts eines Benutzers (Likes und Kommentare anderer), neueste zuerst
      * @param userId Die ID des Benutzers
-     * @return Liste mit allen Benutzeraktivitäten oder null wenn keine Posts vorhanden
+     * @param after Cursor der vorherigen Seite
+     * @param limit Seitengröße
+     * @return Eine Seite der Aktivitäten
      */
-    public List<Object> getUserActivityById(Long userId) {
-        // Alle Post-IDs des Benutzers abrufen
-        List<Long> postIds = postRepository.findTopByUserId(userId);
-        if(postIds.isEmpty()) {
-            return null;
-        }
-        // Kommentare und Likes zu den Posts des Benutzers sammeln
-        List<Object> comments = commentRepository.findUserCommentsByPostId(postIds);
-        List<Object> likes = likeRepository.findUserLikesByPostId(postIds);
-        // Alle Aktivitäten in einer Liste zusammenfassen
-        List<Object> results = new ArrayList<>();
-        results.addAll(comments);
-        results.addAll(likes);
-        return results;
+    @Transactional(readOnly = true)
+    public CursorPage<ActivityResponse> getUserActivityById(Long userId, PageCursor after, int limit) {
+        return activityFeedService.getActivity(userId, after, limit);
     }
 
-   
 }
@@ -0,0 +1,275 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.PostRepository;
+import com.example.questionapp.requests.PageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index der neuesten Post-IDs je Benutzer für GET /posts?userId=
+ * Jeder Benutzer hat einen Ring fester Größe (timeline.capacity) aus primitiven long-Arrays mit
+ * ID und Erstellungszeit seiner neuesten Posts, sortiert nach (createDate, id) absteigend.
+ * Der Ring wird bei einem Fehltreffer mit einer Abfrage aus der Datenbank aufgebaut und danach von
+ * PostService.createPost/deletePostById aktuell gehalten. Damit Posts anderer Instanzen sichtbar werden,
+ * wird ein Ring nach timeline.cache.ttl.seconds neu aufgebaut.
+ * Während des Aufbaus hält load() die Sperre des neuen Rings; add und remove finden ihn über loading und
+ * warten, damit ein Post der während der Abfrage angelegt oder gelöscht wird nicht verloren geht.
+ * Die Abfrage läuft in einer eigenen schreibenden Transaktion und damit auf dem Primary, auch wenn page() aus einer
+ * lesenden Transaktion (Replika) kommt - ein Ring von einem nachlaufenden Replika würde timeline.cache.ttl.seconds
+ * lang als vollständig gelten.
+ */
+@Component
+public class UserTimelineIndex {
+
+    private PostRepository postRepository;
+    private TransactionTemplate primaryTransaction;
+
+    private final int capacity;
+
+    private final Cache<Long, Timeline> timelines;
+
+    /** Ringe die gerade aus der Datenbank aufgebaut werden und noch nicht in timelines stehen */
+    private final ConcurrentMap<Long, Timeline> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Konstruktor für Dependency Injection
+     * @param postRepository Für den Aufbau eines Rings aus der Datenbank
+     * @param transactionManager Für die Transaktion auf dem Primary beim Aufbau eines Rings
+     * @param capacity Anzahl der Post-IDs pro Benutzer
+     * @param maxUsers Anzahl der Benutzer deren Ring im Speicher gehalten wird
+     * @param ttlSeconds Lebensdauer eines Rings bis zum erneuten Aufbau
+     */
+    public UserTimelineIndex(PostRepository postRepository, PlatformTransactionManager transactionManager,
+                             @Value("${timeline.capacity:200}") int capacity,
+                             @Value("${timeline.cache.max.users:10000}") long maxUsers,
+                             @Value("${timeline.cache.ttl.seconds:300}") long ttlSeconds) {
+        this.postRepository = postRepository;
+        // REQUIRES_NEW: eine umgebende lesende Transaktion würde sonst übernommen und bliebe auf dem Replika
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.capacity = capacity;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Liefert die IDs einer Seite der Posts eines Benutzers aus dem Ring
+     * @param userId Die Benutzer-ID
+     * @param after Cursor der vorherigen Seite
+     * @param limit Seitengröße
+     * @return Die Seite, oder null wenn sie über das Ende des Rings hinausgeht und aus der Datenbank gelesen werden muss
+     */
+    public TimelinePage page(Long userId, PageCursor after, int limit) {
+        Timeline timeline = timelines.get(userId, this::load);
+        loading.remove(userId, timeline);  // steht jetzt in timelines
+        return timeline.page(after.getCreateDate().getTime(), after.getId(), limit);
+    }
+
+    /**
+     * Trägt einen neuen Post in den Ring seines Benutzers ein (nur wenn der Ring bereits geladen ist)
+     * @param userId Die Benutzer-ID
+     * @param postId Die ID des Posts
+     * @param createDate Erstellungszeit des Posts
+     */
+    public void add(Long userId, Long postId, Date createDate) {
+        Timeline timeline = find(userId);
+        if(timeline != null) {
+            timeline.add(postId, createDate.getTime());
+        }
+    }
+
+    /**
+     * Entfernt einen gelöschten Post aus dem Ring seines Benutzers
+     * @param userId Die Benutzer-ID
+     * @param postId Die ID des Posts
+     */
+    public void remove(Long userId, Long postId) {
+        Timeline timeline = find(userId);
+        if(timeline != null) {
+            timeline.remove(postId);
+        }
+    }
+
+    /**
+     * Verwirft den Ring eines Benutzers (z.B. wenn der Benutzer gelöscht wurde)
+     * @param userId Die Benutzer-ID
+     */
+    public void invalidate(Long userId) {
+        timelines.invalidate(userId);
+    }
+
+    /**
+     * Verwirft alle Ringe, z.B. nach einem Bulk-Import der Posts direkt in die Datenbank schreibt
+     */
+    public void invalidateAll() {
+        timelines.invalidateAll();
+    }
+
+    /** Geladener Ring oder der Ring der gerade aufgebaut wird */
+    private Timeline find(Long userId) {
+        // erst timelines, dann loading: page() entfernt den Ring aus loading erst wenn er in timelines steht
+        Timeline timeline = timelines.getIfPresent(userId);
+        return timeline != null ? timeline : loading.get(userId);
+    }
+
+    private Timeline load(Long userId) {
+        Timeline timeline = new Timeline(capacity);
+        // die Sperre vor dem Eintrag in loading nehmen - add und remove warten bis die Zeilen eingetragen sind
+        // und gelten danach, auch für Posts die die Abfrage noch nicht oder nicht mehr sieht
+        synchronized(timeline) {
+            loading.put(userId, timeline);
+            try {
+                List<Object[]> rows = primaryTransaction.execute(status ->
+                        postRepository.findTimelineByUserId(userId, PageRequest.of(0, capacity)));
+                // rows sind bereits absteigend sortiert - von hinten einfügen, damit jeder Eintrag der neueste ist
+                for(int i = rows.size() - 1; i >= 0; i--) {
+                    Object[] row = rows.get(i);
+                    timeline.add((Long) row[0], ((Date) row[1]).getTime());
+                }
+                // weniger Zeilen als Platz im Ring => der Ring enthält alle Posts des Benutzers
+                timeline.complete = rows.size() < capacity;
+            } catch (RuntimeException e) {
+                loading.remove(userId, timeline);
+                throw e;
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * Eine Seite aus dem Ring
+     * ids sind die Post-IDs in Anzeige-Reihenfolge, nextCursor ist null wenn es keine weitere Seite gibt
+     */
+    public static final class TimelinePage {
+        private final long[] ids;
+        private final PageCursor nextCursor;
+
+        TimelinePage(long[] ids, PageCursor nextCursor) {
+            this.ids = ids;
+            this.nextCursor = nextCursor;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public PageCursor getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * Ring der neuesten Posts eines Benutzers
+     * Logische Position 0 ist der neueste Post und liegt im Array an Index head.
+     */
+    static final class Timeline {
+        private final long[] ids;
+        private final long[] createDates;
+        private int head;
+        private int size;
+        /** true solange der Ring alle Posts des Benutzers enthält */
+        private boolean complete = true;
+
+        Timeline(int capacity) {
+            this.ids = new long[capacity];
+            this.createDates = new long[capacity];
+        }
+
+        synchronized void add(long id, long createDate) {
+            int position = 0;
+            while(position < size && isNewer(slot(position), createDate, id)) {
+                position++;
+            }
+            if(position < size && ids[slot(position)] == id && createDates[slot(position)] == createDate) {
+                return;  // schon enthalten, z.B. aus der Abfrage beim Aufbau
+            }
+            if(position == ids.length) {
+                return;  // älter als alle Einträge eines vollen Rings
+            }
+            if(position == 0) {
+                // Normalfall: neuer Post ist der neueste - head rückt eine Stelle vor, der älteste fällt ggf. heraus
+                head = (head - 1 + ids.length) % ids.length;
+            } else {
+                int last = Math.min(size, ids.length - 1);
+                for(int i = last; i > position; i--) {
+                    copy(i - 1, i);
+                }
+            }
+            if(size == ids.length) {
+                complete = false;
+            } else {
+                size++;
+            }
+            ids[slot(position)] = id;
+            createDates[slot(position)] = createDate;
+        }
+
+        synchronized void remove(long id) {
+            for(int position = 0; position < size; position++) {
+                if(ids[slot(position)] == id) {
+                    for(int i = position; i < size - 1; i++) {
+                        copy(i + 1, i);
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        synchronized TimelinePage page(long afterDate, long afterId, int limit) {
+            // erste Position nach dem Cursor per binärer Suche (Einträge sind absteigend sortiert)
+            int low = 0;
+            int high = size;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                int slot = slot(mid);
+                if(createDates[slot] > afterDate || (createDates[slot] == afterDate && ids[slot] >= afterId)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int end = Math.min(low + limit, size);
+            if(end - low < limit && !complete) {
+                return null;  // Seite reicht über den Ring hinaus
+            }
+            long[] page = new long[end - low];
+            for(int i = low; i < end; i++) {
+                page[i - low] = ids[slot(i)];
+            }
+            PageCursor nextCursor = null;
+            if(page.length == limit && (end < size || !complete)) {
+                int last = slot(end - 1);
+                nextCursor = PageCursor.of(new Date(createDates[last]), ids[last]);
+            }
+            return new TimelinePage(page, nextCursor);
+        }
+
+        private boolean isNewer(int slot, long createDate, long id) {
+            return createDates[slot] > createDate || (createDates[slot] == createDate && ids[slot] > id);
+        }
+
+        private void copy(int fromPosition, int toPosition) {
+            ids[slot(toPosition)] = ids[slot(fromPosition)];
+            createDates[slot(toPosition)] = createDates[slot(fromPosition)];
+        }
+
+        private int slot(int position) {
+            return (head + position) % ids.length;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.security.JWTClaims;
+import com.example.questionapp.security.JWTTokenProvider;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die Token-Prüfung im JWTAuthenticationFilter
+ * - generate: Erzeugen eines Access-Tokens beim Login
+ * - threeParses: bisheriger Ablauf (validateToken + isTokenExpired + getUserIdFromJWT = drei Mal parsen und Signatur prüfen)
+ * - singleParse: verifyToken ohne Cache
+ * - cachedParse: verifyToken mit Cache geprüfter Tokens
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmarkSecretbenchmarkSecretbenchmarkSecret";
+
+    private JWTTokenProvider uncachedProvider;
+    private JWTTokenProvider cachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncachedProvider = provider(0);
+        cachedProvider = provider(10_000);
+        token = uncachedProvider.generateJwtTokenByUserId(42L);
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncachedProvider.generateJwtTokenByUserId(42L);
+    }
+
+    @Benchmark
+    public Long threeParses() {
+        Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token);
+        Date expiration = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody().getExpiration();
+        if (expiration.before(new Date())) {
+            return null;
+        }
+        return Long.parseLong(Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody().getSubject());
+    }
+
+    @Benchmark
+    public Long singleParse() {
+        JWTClaims claims = uncachedProvider.verifyToken(token);
+        return claims == null ? null : claims.getUserId();
+    }
+
+    @Benchmark
+    public Long cachedParse() {
+        JWTClaims claims = cachedProvider.verifyToken(token);
+        return claims == null ? null : claims.getUserId();
+    }
+
+    private static JWTTokenProvider provider(long cacheSize) {
+        JWTTokenProvider provider = new JWTTokenProvider(cacheSize);
+        ReflectionTestUtils.setField(provider, "APP_SECRET", SECRET);
+        ReflectionTestUtils.setField(provider, "EXPIRES_IN", 3_600_000L);
+        return provider;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.responses.JsonFragments;
+import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.PostResponse;
+import com.example.questionapp.services.JsonFragmentCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eine Feed-Seite (50 Posts) in den Ausgabepuffer schreiben
+ * - jackson: die PostResponse-Liste wie bisher mit Jackson serialisieren
+ * - fragments: die Fragmente aus dem JsonFragmentCache nachschlagen (ETag-Vergleich) und aneinanderhängen
+ * Speicher pro Seite mit -prof gc: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="JsonFragmentBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonFragmentBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"0", "10", "100"})
+    private int likesPerPost;
+
+    private ObjectMapper objectMapper;
+    private JsonFragmentCache cache;
+    private List<PostResponse> posts;
+    private List<String> eTags;
+    /** Wiederverwendet wie der Puffer des Servlet-Containers */
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cache = new JsonFragmentCache(objectMapper, 64 << 20, 64 << 20, 8, 3600, true, new SimpleMeterRegistry());
+        User author = new User();
+        author.setId(1L);
+        author.setUsername("user1");
+        posts = new ArrayList<>(PAGE_SIZE);
+        eTags = new ArrayList<>(PAGE_SIZE);
+        long likeId = 1;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Post post = new Post();
+            post.setId((long) i + 1);
+            post.setUser(author);
+            post.setTitle("Titel " + i);
+            post.setText("Ein Beitrag mit etwas Text, damit die Serialisierung nicht nur aus IDs besteht " + i);
+            post.setCreateDate(new Date());
+            post.setLikeCount(likesPerPost);
+            List<LikeResponse> likes = new ArrayList<>(likesPerPost);
+            for (int j = 0; j < likesPerPost; j++) {
+                likes.add(new LikeResponse(likeId++, j + 2L, post.getId()));
+            }
+            PostResponse response = new PostResponse(post, likes);
+            response.setUsername(author.getUsername());
+            posts.add(response);
+            String eTag = post.getVersion() + "-" + post.getCreateDate().getTime() + "-0-0";
+            eTags.add(eTag);
+            cache.putPost(eTag, response);
+        }
+        buffer = new ByteArrayOutputStream(1 << 20);
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        buffer.reset();
+        objectMapper.writeValue(buffer, posts);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int fragments() throws IOException {
+        buffer.reset();
+        List<byte[]> fragments = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            fragments.add(cache.getPost(posts.get(i).getId(), eTags.get(i)));
+        }
+        JsonFragments.array(fragments).writeTo(buffer);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.QuestionappApplication;
+import com.example.questionapp.dataAccess.LikeRepository;
+import com.example.questionapp.dataAccess.PostRepository;
+import com.example.questionapp.dataAccess.UserRepository;
+import com.example.questionapp.entities.Like;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.CursorPage;
+import com.example.questionapp.responses.PostResponse;
+import com.example.questionapp.services.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostService.getAllPosts gegen eine eingebettete H2-Datenbank mit festen Datenmengen
+ * Der komplette Anwendungskontext wird gestartet, damit Repositories, Timeline-Index und Zähler wie im Betrieb arbeiten.
+ * Die Datenbank wird als Kommandozeilen-Argument gesetzt, da diese Vorrang vor der application.properties haben.
+ * - firstPage: erste Seite von GET /posts
+ * - deepPage: Seite aus der Mitte über den Cursor
+ * - userPosts: erste Seite von GET /posts?userId=
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostServiceBenchmark {
+
+    private static final int USERS = 20;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000"})
+    private int posts;
+
+    @Param({"0", "5"})
+    private int likesPerPost;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private PageCursor middleCursor;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuestionappApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--server.port=0",
+                        "--post.counter.reconcile.on.startup=false",
+                        "--question.app.secret=benchmarkSecretbenchmarkSecretbenchmarkSecret");
+        postService = context.getBean(PostService.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPage<PostResponse> firstPage() {
+        return postService.getAllPosts(Optional.empty(), PageCursor.parse(Optional.empty()), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<PostResponse> deepPage() {
+        return postService.getAllPosts(Optional.empty(), middleCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<PostResponse> userPosts() {
+        return postService.getAllPosts(Optional.of(userId), PageCursor.parse(Optional.empty()), PAGE_SIZE);
+    }
+
+    /** Legt USERS Benutzer, posts Posts und likesPerPost Likes pro Post an */
+    private void seed() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        LikeRepository likeRepository = context.getBean(LikeRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<User> users = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                User user = new User();
+                user.setUsername("user" + i);
+                user.setPassword("password");
+                users.add(user);
+            }
+            users = userRepository.saveAll(users);
+            userId = users.get(0).getId();
+            long start = System.currentTimeMillis() - posts * 1000L;
+            List<Post> savedPosts = new ArrayList<>(posts);
+            List<Like> likes = new ArrayList<>(posts * likesPerPost);
+            for (int i = 0; i < posts; i++) {
+                Post post = new Post();
+                post.setUser(users.get(i % USERS));
+                post.setTitle("Titel " + i);
+                post.setText("Text " + i);
+                post.setCreateDate(new Date(start + i * 1000L));
+                post.setLikeCount(likesPerPost);
+                post = postRepository.save(post);
+                savedPosts.add(post);
+                for (int j = 0; j < likesPerPost; j++) {
+                    Like like = new Like();
+                    like.setPost(post);
+                    like.setUser(users.get((i + j + 1) % USERS));
+                    likes.add(like);
+                }
+            }
+            likeRepository.saveAll(likes);
+            Post middle = savedPosts.get(posts / 2);
+            middleCursor = PageCursor.of(middle.getCreateDate(), middle.getId());
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.QuestionappApplication;
+import com.example.questionapp.dataAccess.CommentRepository;
+import com.example.questionapp.dataAccess.LikeRepository;
+import com.example.questionapp.dataAccess.PostRepository;
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Like;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.PostResponse;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listen mit 10.000 Zeilen: ganze Entitäten laden und in Responses kopieren (bisher) gegen Projektionen
+ * ("select new ...Response(...)"), die nur die Spalten der Response lesen
+ * Je Paar dieselbe Sortierung und dieselbe Transaktion (readOnly wie im Service), nur die Abfrage unterscheidet sich.
+ * Speicher pro Aufruf mit dem GC-Profiler messen (gc.alloc.rate.norm = Bytes pro Aufruf):
+ * ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="ProjectionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final int USERS = 20;
+    private static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+    private CommentRepository commentRepository;
+    private LikeRepository likeRepository;
+    private PostRepository postRepository;
+    private PageCursor first;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuestionappApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:projection;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--server.port=0",
+                        "--post.counter.reconcile.on.startup=false",
+                        "--search.index.file=",
+                        "--question.app.secret=benchmarkSecretbenchmarkSecretbenchmarkSecret");
+        readOnly = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        readOnly.setReadOnly(true);
+        entityManager = context.getBean(EntityManager.class);
+        commentRepository = context.getBean(CommentRepository.class);
+        likeRepository = context.getBean(LikeRepository.class);
+        postRepository = context.getBean(PostRepository.class);
+        first = PageCursor.parse(Optional.empty());
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CommentResponse> commentEntities() {
+        return readOnly.execute(status -> {
+            List<Comment> comments = entityManager.createQuery(
+                    "select c from Comment c join fetch c.user order by c.createDate desc, c.id desc", Comment.class)
+                    .setMaxResults(ROWS).getResultList();
+            List<CommentResponse> responses = new ArrayList<>(comments.size());
+            for (Comment comment : comments) {
+                responses.add(new CommentResponse(comment));
+            }
+            return responses;
+        });
+    }
+
+    @Benchmark
+    public List<CommentResponse> commentProjection() {
+        return readOnly.execute(status -> commentRepository.findPage(first.getCreateDate(), first.getId(), PageRequest.of(0, ROWS)));
+    }
+
+    @Benchmark
+    public List<LikeResponse> likeEntities() {
+        return readOnly.execute(status -> {
+            List<Like> likes = entityManager.createQuery("select l from Like l order by l.id desc", Like.class)
+                    .setMaxResults(ROWS).getResultList();
+            List<LikeResponse> responses = new ArrayList<>(likes.size());
+            for (Like like : likes) {
+                responses.add(new LikeResponse(like));
+            }
+            return responses;
+        });
+    }
+
+    @Benchmark
+    public List<LikeResponse> likeProjection() {
+        return readOnly.execute(status -> likeRepository.findPage(first.getId(), PageRequest.of(0, ROWS)));
+    }
+
+    @Benchmark
+    public List<PostResponse> postEntities() {
+        return readOnly.execute(status -> {
+            List<Post> posts = entityManager.createQuery(
+                    "select p from Post p join fetch p.user order by p.createDate desc, p.id desc", Post.class)
+                    .setMaxResults(ROWS).getResultList();
+            List<PostResponse> responses = new ArrayList<>(posts.size());
+            for (Post post : posts) {
+                responses.add(new PostResponse(post, null));
+            }
+            return responses;
+        });
+    }
+
+    @Benchmark
+    public List<PostResponse> postProjection() {
+        return readOnly.execute(status -> postRepository.findPage(first.getCreateDate(), first.getId(), PageRequest.of(0, ROWS)));
+    }
+
+    /** USERS Benutzer, ROWS Posts, Kommentare und Likes per JDBC-Batch - die Texte etwa so lang wie echte Beiträge */
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        long start = System.currentTimeMillis() - ROWS * 1000L;
+        String text = "Lorem ipsum dolor sit amet, consetetur sadipscing elitr, sed diam nonumy eirmod tempor invidunt ut labore. ".repeat(3);
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{i + 1L, "user" + i, "password", 0});
+        }
+        jdbcTemplate.batchUpdate("insert into user (id, username, password, image, version) values (?, ?, ?, ?, 0)", users);
+        List<Object[]> posts = new ArrayList<>(ROWS);
+        List<Object[]> comments = new ArrayList<>(ROWS);
+        List<Object[]> likes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long userId = i % USERS + 1;
+            Timestamp createDate = new Timestamp(start + i * 1000L);
+            posts.add(new Object[]{i + 1L, userId, "Titel " + i, text, createDate, 1, 1});
+            comments.add(new Object[]{i + 1L, i + 1L, (i + 1) % USERS + 1L, text, createDate});
+            likes.add(new Object[]{i + 1L, i + 1L, (i + 1) % USERS + 1L});
+        }
+        jdbcTemplate.batchUpdate("insert into post (id, user_id, title, text, create_date, like_count, comment_count, version) values (?, ?, ?, ?, ?, ?, ?, 0)", posts);
+        jdbcTemplate.batchUpdate("insert into comment (id, post_id, user_id, text, create_date, version) values (?, ?, ?, ?, ?, 0)", comments);
+        jdbcTemplate.batchUpdate("insert into post_like (id, post_id, user_id) values (?, ?, ?)", likes);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Like;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.responses.CommentResponse;
+import com.example.questionapp.responses.LikeResponse;
+import com.example.questionapp.responses.PostResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping von Entitäten auf Response-DTOs und JSON-Serialisierung einer Feed-Seite
+ * - likesPerPost / commentsPerPost: Größe der Listen pro Post
+ * - mapPosts / mapComments: Entity -> Response wie im PostFeedAssembler bzw. CommentService
+ * - serializePosts / serializeComments: Jackson wie im Controller (ObjectMapper mit Spring-Boot-Defaults)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    /** Posts pro Seite, entspricht dem Standard-Limit der Listen-Endpunkte */
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"0", "10", "100"})
+    private int likesPerPost;
+
+    @Param({"0", "10", "100"})
+    private int commentsPerPost;
+
+    private ObjectMapper objectMapper;
+    private List<Post> posts;
+    private List<List<Like>> likes;
+    private List<Comment> comments;
+    private List<PostResponse> postResponses;
+    private List<CommentResponse> commentResponses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        User author = user(1L);
+        posts = new ArrayList<>(PAGE_SIZE);
+        likes = new ArrayList<>(PAGE_SIZE);
+        long likeId = 1;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Post post = new Post();
+            post.setId((long) i + 1);
+            post.setUser(author);
+            post.setTitle("Titel " + i);
+            post.setText("Ein Beitrag mit etwas Text, damit die Serialisierung nicht nur aus IDs besteht " + i);
+            post.setCreateDate(new Date());
+            post.setLikeCount(likesPerPost);
+            post.setCommentCount(commentsPerPost);
+            posts.add(post);
+            List<Like> postLikes = new ArrayList<>(likesPerPost);
+            for (int j = 0; j < likesPerPost; j++) {
+                Like like = new Like();
+                like.setId(likeId++);
+                like.setPost(post);
+                like.setUser(user(j + 2L));
+                postLikes.add(like);
+            }
+            likes.add(postLikes);
+        }
+        comments = new ArrayList<>(commentsPerPost);
+        for (int j = 0; j < commentsPerPost; j++) {
+            Comment comment = new Comment();
+            comment.setId(j + 1L);
+            comment.setPost(posts.get(0));
+            comment.setUser(user(j + 2L));
+            comment.setText("Kommentar " + j);
+            comment.setCreateDate(new Date());
+            comments.add(comment);
+        }
+        postResponses = mapPosts();
+        commentResponses = mapComments();
+    }
+
+    @Benchmark
+    public List<PostResponse> mapPosts() {
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            List<Like> postLikes = likes.get(i);
+            List<LikeResponse> likeResponses = new ArrayList<>(postLikes.size());
+            for (Like like : postLikes) {
+                likeResponses.add(new LikeResponse(like));
+            }
+            PostResponse response = new PostResponse(posts.get(i), likeResponses);
+            response.setUsername(posts.get(i).getUser().getUsername());  // im Betrieb aus dem UserDirectory
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public byte[] serializePosts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postResponses);
+    }
+
+    @Benchmark
+    public List<CommentResponse> mapComments() {
+        List<CommentResponse> responses = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            CommentResponse response = new CommentResponse(comment);
+            response.setUsername(comment.getUser().getUsername());  // im Betrieb aus dem UserDirectory
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public byte[] serializeComments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(commentResponses);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setImage((int) (id % 6));
+        return user;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.questionapp.benchmarks;
+
+import com.example.questionapp.responses.TrendingPostResponse;
+import com.example.questionapp.services.TrendingPosts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kosten der Trending-Posts mit Standardkonfiguration (60 Buckets, 4 x 4096 Zähler, Top 100)
+ * - recordLike: ein Like auf einen von 100.000 Posts, wenige Posts bekommen die meisten Likes
+ * - top: ein Like und danach die Liste für GET /posts/trending lesen (ungünstigster Fall: jedes Mal neu sortieren)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendingPostsBenchmark {
+
+    private static final int POSTS = 100_000;
+
+    private TrendingPosts trendingPosts;
+
+    @Setup
+    public void setUp() {
+        trendingPosts = new TrendingPosts(60, 60, 900, 4096, 4, 100, 1, 3);
+        for(int i = 0; i < 1_000_000; i++) {
+            trendingPosts.recordLike(nextPostId());
+        }
+    }
+
+    @Benchmark
+    public void recordLike() {
+        trendingPosts.recordLike(nextPostId());
+    }
+
+    @Benchmark
+    public List<TrendingPostResponse> top() {
+        trendingPosts.recordLike(nextPostId());
+        return trendingPosts.top(50);
+    }
+
+    /** Quadrat einer Gleichverteilung: kleine IDs sind viel häufiger (ein paar virale Posts, ein langer Schwanz) */
+    private static long nextPostId() {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return (long) (random * random * POSTS);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.questionapp.configuration;
+
+import com.example.questionapp.entities.User;
+import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.services.ReadYourWrites;
+import com.example.questionapp.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing mit den Profilen "embedded,replica": das Replika ist eine eigene H2-Datenbank (jdbc:h2:mem:embedded-replica),
+ * an der URL der Verbindung ist zu sehen wohin eine Transaktion gegangen ist.
+ * Der Primary muss jdbc:h2:mem:embedded heißen, darauf verweisen die Tabellen des Replikas (replica-embedded.sql).
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles({"embedded", "replica"})
+class ReplicaRoutingDataSourceTests {
+
+    private static final String PRIMARY = "jdbc:h2:mem:embedded";
+    private static final String REPLICA = "jdbc:h2:mem:embedded-replica";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private UserService userService;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(dataSource).isInstanceOf(ReplicaRoutingDataSource.class);
+        User user = createUser("replica-reader");
+        assertThat(url(true)).startsWith(REPLICA);
+        // die verlinkten Tabellen des Replikas zeigen die Zeilen des Primary
+        Long count = readOnly().execute(status -> jdbcTemplate.queryForObject(
+                "select count(*) from user where id = ?", Long.class, user.getId()));
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void writesAndReadYourWritesGoToThePrimary() {
+        assertThat(url(false)).startsWith(PRIMARY).doesNotStartWith(REPLICA);
+
+        // createUser merkt sich den neuen Benutzer selbst als Schreiber, deshalb nicht gespeicherte Benutzer
+        authenticate(user(900_001L, "replica-writer"));
+        assertThat(url(true)).startsWith(REPLICA);  // hat noch nicht geschrieben
+        readYourWrites.recordCurrentUserWrite();
+        assertThat(url(true)).startsWith(PRIMARY).doesNotStartWith(REPLICA);
+
+        // andere Benutzer lesen weiter vom Replika
+        authenticate(user(900_002L, "replica-other"));
+        assertThat(url(true)).startsWith(REPLICA);
+    }
+
+    @Test
+    void readsWithoutTransactionGoToThePrimary() {
+        String url = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+        assertThat(url).startsWith(PRIMARY).doesNotStartWith(REPLICA);
+    }
+
+    /** URL der Verbindung innerhalb einer Transaktion */
+    private String url(boolean readOnly) {
+        TransactionTemplate transaction = readOnly ? readOnly() : new TransactionTemplate(transactionManager);
+        return transaction.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL()));
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+
+    private static void authenticate(User user) {
+        JWTUserDetails principal = JWTUserDetails.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private User createUser(String username) {
+        return userService.createUser(user(null, username));
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return user;
+    }
+}
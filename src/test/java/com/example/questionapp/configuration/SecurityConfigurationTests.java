@@ -0,0 +1,52 @@
+package com.example.questionapp.configuration;
+
+import com.example.questionapp.entities.User;
+import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class SecurityConfigurationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsRequireOperator() throws Exception {
+        User user = createUser("metrics-user");
+        User operator = createUser("metrics-operator");
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics").with(user(JWTUserDetails.create(user))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/http.server.requests").with(user(JWTUserDetails.create(user))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(user(JWTUserDetails.create(operator, true))))
+                .andExpect(status().isOk());
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+}
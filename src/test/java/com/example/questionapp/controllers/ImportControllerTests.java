@@ -0,0 +1,67 @@
+package com.example.questionapp.controllers;
+
+import com.example.questionapp.entities.User;
+import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk-Import nur für Betreiber, keine zweiten Konten mit vorhandenem Benutzernamen
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class ImportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void importRequiresOperator() throws Exception {
+        User user = createUser("import-user");
+        mockMvc.perform(post("/import/not-allowed").content(userLine(1001, "import-intruder"))
+                        .with(user(JWTUserDetails.create(user))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void importRejectsExistingUsername() throws Exception {
+        User alice = createUser("import-alice");
+        User operator = createUser("import-operator");
+        String file = userLine(2001, "IMPORT-ALICE") + "\n" + userLine(2002, "import-bob") + "\n";
+        mockMvc.perform(post("/import/usernames").content(file)
+                        .with(user(JWTUserDetails.create(operator, true))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0]", containsString("already exists")));
+        assertThat(userService.getUserByUsername("import-alice").getId()).isEqualTo(alice.getId());
+        assertThat(userService.getUserByUsername("import-bob").getId()).isEqualTo(2002L);
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+
+    private static String userLine(long id, String username) {
+        return "{\"type\":\"user\",\"id\":" + id + ",\"username\":\"" + username + "\",\"password\":\"$2a$10$x\"}";
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.questionapp.controllers;
+
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.services.CommentService;
+import com.example.questionapp.services.PostService;
+import com.example.questionapp.services.UserService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset-Paginierung der Listen-Endpunkte: ungültige Cursor, Begrenzung von limit und gleiche createDate an Seitengrenzen
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class PagingControllerTests {
+
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Test
+    void malformedCursorsAreBadRequests() throws Exception {
+        User reader = createUser("paging-reader");
+        List<String> paths = List.of("/posts", "/comments", "/users/activity/" + reader.getId());
+        for (String path : paths) {
+            for (String after : List.of("abc", "1", "1,2,3", "1,x", "x,1", ",")) {
+                mockMvc.perform(get(path).param("after", after).with(user(JWTUserDetails.create(reader))))
+                        .andExpect(status().isBadRequest());
+            }
+            mockMvc.perform(get(path).param("after", "1,2").with(user(JWTUserDetails.create(reader))))
+                    .andExpect(status().isOk());
+        }
+        // Likes haben einen reinen ID-Cursor
+        for (String after : List.of("abc", "1,2")) {
+            mockMvc.perform(get("/likes").param("after", after).with(user(JWTUserDetails.create(reader))))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/likes").param("after", "5").with(user(JWTUserDetails.create(reader))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void limitIsClampedToTheAllowedRange() throws Exception {
+        User author = createUser("paging-limit");
+        Post post = createPost(author, "limit");
+        for (int i = 0; i < PageCursor.MAX_LIMIT + 5; i++) {
+            comment(author, post, "comment " + i);
+        }
+        String path = "/comments?postId=" + post.getId();
+
+        mockMvc.perform(get(path).with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PageCursor.DEFAULT_LIMIT))
+                .andExpect(header().exists(NEXT_CURSOR));
+        mockMvc.perform(get(path + "&limit=1000").with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PageCursor.MAX_LIMIT))
+                .andExpect(header().exists(NEXT_CURSOR));
+        for (String limit : List.of("0", "-5")) {
+            mockMvc.perform(get(path + "&limit=" + limit).with(user(JWTUserDetails.create(author))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1));
+        }
+        mockMvc.perform(get(path + "&limit=" + (PageCursor.MAX_LIMIT + 5)).with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PageCursor.MAX_LIMIT));
+    }
+
+    @Test
+    void rowsWithTheSameCreateDateAreNeitherSkippedNorRepeated() throws Exception {
+        User author = createUser("paging-same-date");
+        List<Long> postIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            postIds.add(createPost(author, "same date " + i).getId());
+        }
+        Post post = createPost(author, "same date comments");
+        List<Long> commentIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            commentIds.add(comment(author, post, "same date " + i).getId());
+        }
+        // alle mit demselben, alten Zeitpunkt - die Posts der anderen Tests sind neuer und liegen vor dem Start-Cursor
+        Timestamp sameDate = new Timestamp(1_000_000_000_000L);
+        for (Long id : postIds) {
+            jdbcTemplate.update("update post set create_date = ? where id = ?", sameDate, id);
+        }
+        for (Long id : commentIds) {
+            jdbcTemplate.update("update comment set create_date = ? where id = ?", sameDate, id);
+        }
+
+        // Seiten zu 2: jede Seitengrenze liegt zwischen zwei Zeilen mit gleicher createDate
+        List<Long> posts = pageIds(author, "/posts?limit=2", (sameDate.getTime() + 1) + "," + Long.MAX_VALUE);
+        assertThat(posts).isEqualTo(newestFirst(postIds));
+        List<Long> comments = pageIds(author, "/comments?postId=" + post.getId() + "&limit=2", null);
+        assertThat(comments).isEqualTo(newestFirst(commentIds));
+    }
+
+    /** Ruft alle Seiten ab, jeweils mit dem Cursor aus X-Next-Cursor, und sammelt die IDs */
+    private List<Long> pageIds(User reader, String path, String after) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        while (true) {
+            MvcResult result = mockMvc.perform(get(after == null ? path : path + "&after=" + after)
+                            .with(user(JWTUserDetails.create(reader))))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            List<Number> page = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            page.forEach(id -> ids.add(id.longValue()));
+            after = result.getResponse().getHeader(NEXT_CURSOR);
+            if (after == null) {
+                return ids;
+            }
+            assertThat(page).hasSize(2);
+        }
+    }
+
+    private static List<Long> newestFirst(List<Long> ids) {
+        List<Long> sorted = new ArrayList<>(ids);
+        sorted.sort(Comparator.reverseOrder());
+        return sorted;
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author, String title) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle(title);
+        request.setText("text of " + title);
+        return postService.createPost(request);
+    }
+
+    private Comment comment(User user, Post post, String text) {
+        CreateCommentRequest request = new CreateCommentRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        request.setText(text);
+        return commentService.createComment(request);
+    }
+}
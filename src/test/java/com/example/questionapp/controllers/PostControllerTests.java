@@ -0,0 +1,148 @@
+package com.example.questionapp.controllers;
+
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.security.JWTUserDetails;
+import com.example.questionapp.services.CommentService;
+import com.example.questionapp.services.PostCounterAccumulator;
+import com.example.questionapp.services.PostService;
+import com.example.questionapp.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bedingte GET-Anfragen auf posts/{postId} und comments?postId=
+ * Der periodische Flush ist abgeschaltet, damit Likes und Unlikes bis zum Abruf nur im PostCounterAccumulator stehen.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "post.counter.flush.interval.ms=3600000"})
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class PostControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private PostCounterAccumulator accumulator;
+
+    @Test
+    void likeAndUnlikeChangeTheETag() throws Exception {
+        User author = createUser("etag-author");
+        User fan = createUser("etag-fan");
+        Post post = createPost(author);
+        accumulator.flush();
+
+        String eTag = mockMvc.perform(get("/posts/" + post.getId()).with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/likes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + fan.getId() + ",\"postId\":" + post.getId() + "}")
+                        .with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/likes").param("userId", fan.getId().toString()).param("postId", post.getId().toString())
+                        .with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk());
+        // Netto-Delta 0, aber zwei Änderungen
+        assertThat(accumulator.pendingLikes(post.getId())).isZero();
+
+        String changed = mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(eTag);
+
+        // nach dem Flush ändert sich der ETag erneut (neue Version), bleibt dann aber stabil
+        accumulator.flush();
+        String flushed = mockMvc.perform(get("/posts/" + post.getId()).with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(flushed).isNotEqualTo(eTag).isNotEqualTo(changed);
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_NONE_MATCH, flushed)
+                        .with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void renamingTheAuthorChangesPostAndCommentETags() throws Exception {
+        User author = createUser("etag-rename");
+        Post post = createPost(author);
+        CreateCommentRequest comment = new CreateCommentRequest();
+        comment.setUserId(author.getId());
+        comment.setPostId(post.getId());
+        comment.setText("etag");
+        commentService.createComment(comment);
+        accumulator.flush();
+
+        String postPath = "/posts/" + post.getId();
+        String commentsPath = "/comments?postId=" + post.getId();
+        String postETag = mockMvc.perform(get(postPath).with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String commentsETag = mockMvc.perform(get(commentsPath).with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(postETag).isNotNull();
+        assertThat(commentsETag).isNotNull();
+
+        User renamed = new User();
+        renamed.setUsername("etag-renamed");
+        renamed.setPassword(author.getPassword());
+        userService.updateUserById(author.getId(), renamed);
+
+        mockMvc.perform(get(postPath).header(HttpHeaders.IF_NONE_MATCH, postETag).with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("etag-renamed"));
+        mockMvc.perform(get(commentsPath).header(HttpHeaders.IF_NONE_MATCH, commentsETag)
+                        .with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("etag-renamed"));
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle("etag");
+        request.setText("etag");
+        return postService.createPost(request);
+    }
+}
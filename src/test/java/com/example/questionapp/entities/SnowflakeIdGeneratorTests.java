@@ -0,0 +1,125 @@
+package com.example.questionapp.entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTests {
+
+    private static final long T = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @AfterEach
+    void restoreClock() {
+        SnowflakeIdGenerator.useClock(System::currentTimeMillis);
+        SnowflakeIdGenerator.setNode(0);
+    }
+
+    @Test
+    void idsIncreaseWithinOneMillisecond() {
+        SnowflakeIdGenerator.useClock(() -> T);
+        long previous = SnowflakeIdGenerator.nextId();
+        for (int i = 1; i <= SnowflakeIdGenerator.MAX_SEQUENCE; i++) {
+            long id = SnowflakeIdGenerator.nextId();
+            assertThat(id).isEqualTo(previous + 1);
+            assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(T);
+            assertThat(sequence(id)).isEqualTo(i);
+            previous = id;
+        }
+    }
+
+    @Test
+    void sequenceOverflowWaitsForNextMillisecond() {
+        // die ersten 300 Ablesungen bleiben in derselben Millisekunde
+        AtomicInteger reads = new AtomicInteger();
+        SnowflakeIdGenerator.useClock(() -> reads.incrementAndGet() <= 300 ? T : T + 1);
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_SEQUENCE; i++) {
+            assertThat(SnowflakeIdGenerator.timestampOf(SnowflakeIdGenerator.nextId())).isEqualTo(T);
+        }
+        long id = SnowflakeIdGenerator.nextId();
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(T + 1);
+        assertThat(sequence(id)).isZero();
+        assertThat(reads.get()).isGreaterThan(300);  // hat die Uhr bis zum Wechsel weiter abgefragt
+    }
+
+    @Test
+    void clockGoingBackwardsKeepsIdsIncreasing() {
+        AtomicLong now = new AtomicLong(T);
+        SnowflakeIdGenerator.useClock(now::get);
+        long beforeJump = SnowflakeIdGenerator.nextId();
+        now.set(T - 5_000);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(SnowflakeIdGenerator.nextId());
+        }
+        assertThat(ids).isSorted().doesNotHaveDuplicates().allMatch(id -> id > beforeJump);
+        // mehr als 128 IDs: der Zähler trägt in die vorweggenommene nächste Millisekunde über
+        assertThat(SnowflakeIdGenerator.timestampOf(ids.get(ids.size() - 1))).isEqualTo(T + 2);
+        // hat die Uhr wieder aufgeholt, gilt wieder ihre Zeit
+        now.set(T + 10);
+        assertThat(SnowflakeIdGenerator.timestampOf(SnowflakeIdGenerator.nextId())).isEqualTo(T + 10);
+    }
+
+    @Test
+    void nodeIsEncodedBetweenTimeAndSequence() {
+        SnowflakeIdGenerator.useClock(() -> T);
+        SnowflakeIdGenerator.setNode(21);
+        long id = SnowflakeIdGenerator.nextId();
+        assertThat((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE).isEqualTo(21);
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(T);
+        assertThat(sequence(id)).isZero();
+        assertThat(id).isLessThan(1L << 53);
+    }
+
+    @Test
+    void nodeOutOfRangeIsRejected() {
+        assertThatThrownBy(() -> SnowflakeIdGenerator.setNode(SnowflakeIdGenerator.MAX_NODE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SnowflakeIdGenerator.setNode(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void noDuplicatesAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    long previous = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = SnowflakeIdGenerator.nextId();
+                        if (id <= previous || !ids.add(id)) {
+                            return false;
+                        }
+                        previous = id;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    private static long sequence(long id) {
+        return id & SnowflakeIdGenerator.MAX_SEQUENCE;
+    }
+}
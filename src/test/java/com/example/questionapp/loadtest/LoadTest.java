@@ -0,0 +1,405 @@
+package com.example.questionapp.loadtest;
+
+import com.example.questionapp.QuestionappApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-End-Lasttest der REST-API
+ * Startet die Anwendung mit dem Profil "embedded" (H2 statt MySQL), legt Benutzer, Posts, Likes und Kommentare
+ * über die API an und ruft danach eine gewichtete Mischung von Endpunkten mit mehreren Threads auf.
+ * Ausgegeben werden Durchsatz und p50/p95/p99 pro Endpunkt, das Ergebnis wird als JSON gespeichert und mit einer
+ * gespeicherten Baseline verglichen. Bei einer Regression endet der Prozess mit Exit-Code 1.
+ *
+ * Start: ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="threads=32 duration=60"
+ * Optionen (key=value): siehe DEFAULTS
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("threads", "16");                 // gleichzeitige Clients
+        DEFAULTS.put("warmup", "10");                  // Sekunden Aufwärmen, nicht gemessen
+        DEFAULTS.put("duration", "30");                // Sekunden Messung
+        DEFAULTS.put("users", "20");
+        DEFAULTS.put("posts", "500");
+        DEFAULTS.put("likes", "2000");
+        DEFAULTS.put("comments", "1000");
+        DEFAULTS.put("mix", "login=1,posts=6,like=2,comments=3");  // Gewichte der Endpunkte
+        DEFAULTS.put("virtualThreads", "false");       // true: Anwendung mit virtual.threads.enabled starten (Java 21)
+        DEFAULTS.put("likeBatching", "false");         // true: Likes mit like.write.async.enabled gebündelt schreiben
+        DEFAULTS.put("replica", "false");              // true: zusätzlich Profil "replica", Lesezugriffe auf eine zweite H2-Datenbank
+        DEFAULTS.put("baseline", "src/test/resources/loadtest-baseline.json");
+        DEFAULTS.put("result", "target/loadtest-result.json");
+        DEFAULTS.put("tolerance", "0.25");             // erlaubte Verschlechterung gegenüber der Baseline (25%)
+        DEFAULTS.put("updateBaseline", "false");       // true: Ergebnis als neue Baseline speichern statt vergleichen
+    }
+
+    private static final String PASSWORD = "loadtestPassword";
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String baseUrl;
+
+    private final List<String> usernames = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> postIds = new ArrayList<>();
+
+    public LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                System.err.println("Unbekannte Option: " + arg + " (erlaubt: " + DEFAULTS.keySet() + ")");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        boolean passed;
+        // DevTools würde main() sonst mit den Spring-Argumenten in einem neuen Classloader erneut starten
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuestionappApplication.class)
+                .profiles(Boolean.parseBoolean(options.get("replica")) ? new String[]{"embedded", "replica"} : new String[]{"embedded"})
+                .run("--server.port=0", "--question.expires.in=86400000",
+                        "--virtual.threads.enabled=" + options.get("virtualThreads"),
+                        "--like.write.async.enabled=" + options.get("likeBatching"));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTest loadTest = new LoadTest(options);
+            loadTest.baseUrl = "http://localhost:" + port;
+            passed = loadTest.run();
+        } finally {
+            context.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Seeding, Aufwärmen, Messung, Bericht und Baseline-Vergleich
+     * @return false bei einer Regression gegenüber der Baseline
+     */
+    public boolean run() throws Exception {
+        seed();
+        Endpoint[] endpoints = endpoints();
+        int threads = intOption("threads");
+        System.out.printf("Aufwärmen: %d s mit %d Threads%n", intOption("warmup"), threads);
+        drive(endpoints, threads, intOption("warmup"));
+        System.out.printf("Messung: %d s mit %d Threads%n", intOption("duration"), threads);
+        Map<String, Stats> stats = drive(endpoints, threads, intOption("duration"));
+
+        Map<String, Object> result = report(stats, intOption("duration"));
+        File resultFile = new File(options.get("result"));
+        resultFile.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.writeValue(resultFile, result);
+        System.out.println("Ergebnis gespeichert: " + resultFile);
+
+        File baselineFile = new File(options.get("baseline"));
+        if (Boolean.parseBoolean(options.get("updateBaseline"))) {
+            objectMapper.writeValue(baselineFile, result);
+            System.out.println("Baseline aktualisiert: " + baselineFile);
+            return true;
+        }
+        if (!baselineFile.exists()) {
+            System.out.println("Keine Baseline unter " + baselineFile + " - Vergleich übersprungen");
+            return true;
+        }
+        return compare(objectMapper.readTree(baselineFile), result, Double.parseDouble(options.get("tolerance")));
+    }
+
+    /** Legt die Testdaten über die API an, so wie ein Client sie erzeugen würde */
+    private void seed() throws Exception {
+        int users = intOption("users");
+        for (int i = 0; i < users; i++) {
+            String username = "loadtest" + i;
+            JsonNode auth = post("/auth/register", Map.of("username", username, "password", PASSWORD), null, 201);
+            usernames.add(username);
+            userIds.add(auth.get("userId").asLong());
+            tokens.add(auth.get("accessToken").asText());
+        }
+        for (int i = 0; i < intOption("posts"); i++) {
+            int user = i % users;
+            JsonNode created = post("/posts", Map.of("userId", userIds.get(user), "title", "Titel " + i, "text", "Lasttest-Post " + i), tokens.get(user), 200);
+            postIds.add(created.get("id").asLong());
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // ein Benutzer kann einen Post nur einmal liken - jedes Paar (Benutzer, Post) höchstens einmal
+        Set<Long> liked = new HashSet<>();
+        long likes = Math.min(intOption("likes"), (long) users * postIds.size());
+        while (liked.size() < likes) {
+            int user = random.nextInt(users);
+            int postIndex = random.nextInt(postIds.size());
+            if (liked.add((long) user * postIds.size() + postIndex)) {
+                post("/likes", Map.of("userId", userIds.get(user), "postId", postIds.get(postIndex)), tokens.get(user), 200);
+            }
+        }
+        for (int i = 0; i < intOption("comments"); i++) {
+            int user = random.nextInt(users);
+            post("/comments", Map.of("userId", userIds.get(user), "postId", postIds.get(random.nextInt(postIds.size())), "text", "Kommentar " + i), tokens.get(user), 200);
+        }
+        System.out.printf("Seed: %d Benutzer, %d Posts, %s Likes, %s Kommentare%n", users, postIds.size(), options.get("likes"), options.get("comments"));
+    }
+
+    /** Die Endpunkte der Mischung mit ihren Gewichten aus der Option "mix" */
+    private Endpoint[] endpoints() {
+        Map<String, Endpoint> known = new LinkedHashMap<>();
+        known.put("login", new Endpoint("POST /auth/login", random -> {
+            int user = random.nextInt(usernames.size());
+            return request("/auth/login", null).POST(body(Map.of("username", usernames.get(user), "password", PASSWORD)));
+        }));
+        known.put("posts", new Endpoint("GET /posts", random -> request("/posts", null).GET()));
+        known.put("like", new Endpoint("POST /likes", random -> {
+            int user = random.nextInt(userIds.size());
+            return request("/likes", tokens.get(user))
+                    .POST(body(Map.of("userId", userIds.get(user), "postId", postIds.get(random.nextInt(postIds.size())))));
+        }, 409));  // bereits geliked ist eine reguläre Antwort
+        known.put("comments", new Endpoint("GET /comments?postId=", random ->
+                request("/comments?postId=" + postIds.get(random.nextInt(postIds.size())), null).GET()));
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : options.get("mix").split(",")) {
+            String[] parts = entry.trim().split("=");
+            Endpoint endpoint = known.get(parts[0]);
+            if (endpoint == null) {
+                throw new IllegalArgumentException("Unbekannter Endpunkt in mix: " + parts[0] + " (erlaubt: " + known.keySet() + ")");
+            }
+            endpoint.weight = Integer.parseInt(parts[1]);
+            if (endpoint.weight > 0) {
+                endpoints.add(endpoint);
+            }
+        }
+        return endpoints.toArray(new Endpoint[0]);
+    }
+
+    /**
+     * Ruft die Endpunkte mit threads Clients für seconds Sekunden auf
+     * @return Messwerte pro Endpunkt
+     */
+    private Map<String, Stats> drive(Endpoint[] endpoints, int threads, int seconds) throws Exception {
+        int totalWeight = Arrays.stream(endpoints).mapToInt(endpoint -> endpoint.weight).sum();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Stats[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                Stats[] local = new Stats[endpoints.length];
+                for (int i = 0; i < endpoints.length; i++) {
+                    local[i] = new Stats();
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    int pick = random.nextInt(totalWeight);
+                    int index = 0;
+                    while (pick >= endpoints[index].weight) {
+                        pick -= endpoints[index].weight;
+                        index++;
+                    }
+                    HttpRequest request = endpoints[index].request.build(random).build();
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() < 400 || response.statusCode() == endpoints[index].alsoOk;
+                    } catch (IOException e) {
+                        ok = false;
+                    }
+                    local[index].record(System.nanoTime() - start, ok);
+                }
+                return local;
+            }));
+        }
+        Map<String, Stats> merged = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            merged.put(endpoint.name, new Stats());
+        }
+        for (Future<Stats[]> future : futures) {
+            Stats[] local = future.get();
+            for (int i = 0; i < endpoints.length; i++) {
+                merged.get(endpoints[i].name).merge(local[i]);
+            }
+        }
+        executor.shutdown();
+        return merged;
+    }
+
+    /** Gibt die Tabelle aus und baut das Ergebnis für die JSON-Datei */
+    private Map<String, Object> report(Map<String, Stats> stats, int seconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-24s %10s %8s %10s %9s %9s %9s%n", "Endpunkt", "Anfragen", "Fehler", "req/s", "p50 ms", "p95 ms", "p99 ms");
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long[] sorted = Arrays.copyOf(s.latencies, s.count);
+            Arrays.sort(sorted);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("requests", s.count);
+            values.put("errors", s.errors);
+            values.put("throughput", round((double) s.count / seconds));
+            values.put("p50", round(percentile(sorted, 0.50)));
+            values.put("p95", round(percentile(sorted, 0.95)));
+            values.put("p99", round(percentile(sorted, 0.99)));
+            endpoints.put(entry.getKey(), values);
+            System.out.printf("%-24s %10d %8d %10.1f %9.2f %9.2f %9.2f%n", entry.getKey(), s.count, s.errors,
+                    values.get("throughput"), values.get("p50"), values.get("p95"), values.get("p99"));
+        }
+        System.out.println();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options);
+        result.put("endpoints", endpoints);
+        return result;
+    }
+
+    /**
+     * Vergleicht Durchsatz und p95 jedes Endpunkts mit der Baseline
+     * @return false wenn ein Endpunkt mehr als tolerance schlechter ist oder Fehler liefert
+     */
+    private boolean compare(JsonNode baseline, Map<String, Object> result, double tolerance) {
+        boolean passed = true;
+        for (String option : List.of("threads", "users", "posts", "likes", "comments", "mix", "virtualThreads", "likeBatching")) {
+            if (!options.get(option).equals(baseline.path("options").path(option).asText())) {
+                System.out.printf("Hinweis: %s=%s weicht von der Baseline ab (%s), die Werte sind nur bedingt vergleichbar%n",
+                        option, options.get(option), baseline.path("options").path(option).asText());
+            }
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) result.get("endpoints");
+        for (Map.Entry<String, Map<String, Object>> entry : endpoints.entrySet()) {
+            JsonNode base = baseline.path("endpoints").path(entry.getKey());
+            Map<String, Object> current = entry.getValue();
+            if ((long) current.get("errors") > 0) {
+                System.out.printf("REGRESSION %s: %d Fehler%n", entry.getKey(), current.get("errors"));
+                passed = false;
+            }
+            if (base.isMissingNode()) {
+                continue;
+            }
+            double throughput = (double) current.get("throughput");
+            double p95 = (double) current.get("p95");
+            if (throughput < base.get("throughput").asDouble() * (1 - tolerance)) {
+                System.out.printf("REGRESSION %s: Durchsatz %.1f req/s, Baseline %.1f req/s%n", entry.getKey(), throughput, base.get("throughput").asDouble());
+                passed = false;
+            }
+            if (p95 > base.get("p95").asDouble() * (1 + tolerance)) {
+                System.out.printf("REGRESSION %s: p95 %.2f ms, Baseline %.2f ms%n", entry.getKey(), p95, base.get("p95").asDouble());
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "Keine Regression gegenüber der Baseline (Toleranz " + tolerance + ")" : "Lasttest fehlgeschlagen");
+        return passed;
+    }
+
+    private JsonNode post(String path, Map<String, Object> body, String token, int expectedStatus) throws Exception {
+        HttpResponse<String> response = client.send(request(path, token).POST(body(body)).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Seed fehlgeschlagen: POST " + path + " -> " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher body(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /** Ein Endpunkt der Mischung: Name im Bericht, Gewicht und Erzeugung der Anfrage */
+    private static final class Endpoint {
+        private final String name;
+        private final RequestFactory request;
+        private int weight;
+        /** Zusätzlicher Status der nicht als Fehler zählt, 0 = keiner */
+        private final int alsoOk;
+
+        Endpoint(String name, RequestFactory request) {
+            this(name, request, 0);
+        }
+
+        Endpoint(String name, RequestFactory request, int alsoOk) {
+            this.name = name;
+            this.request = request;
+            this.alsoOk = alsoOk;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest.Builder build(ThreadLocalRandom random);
+    }
+
+    /** Latenzen eines Endpunkts in Nanosekunden, pro Thread gesammelt und am Ende zusammengeführt */
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+    }
+}
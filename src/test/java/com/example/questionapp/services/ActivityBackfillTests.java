@@ -0,0 +1,108 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreateLikeRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nachtragen der Aktivitäts-Ereignisse gegen die eingebettete Datenbank
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+class ActivityBackfillTests {
+
+    @Autowired
+    private ActivityBackfill activityBackfill;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void existingLikesAndCommentsGetAnEventForThePostOwner() {
+        User author = createUser("backfill-author");
+        User fan = createUser("backfill-fan");
+        Post post = createPost(author);
+        like(fan, post);
+        comment(fan, post);
+        comment(author, post);
+        // Stand vor der Einführung von activity_event
+        jdbcTemplate.update("delete from activity_event");
+
+        ReflectionTestUtils.setField(activityBackfill, "batchSize", 1);
+        try {
+            assertThat(activityBackfill.backfill()).isGreaterThanOrEqualTo(3);
+        } finally {
+            ReflectionTestUtils.setField(activityBackfill, "batchSize", 1000);
+        }
+        List<Map<String, Object>> events = jdbcTemplate.queryForList(
+                "select type, recipient_id, actor_id, create_date from activity_event where post_id = ? order by type, actor_id",
+                post.getId());
+        assertThat(events).extracting(event -> event.get("TYPE")).containsExactlyInAnyOrder("COMMENTED", "COMMENTED", "LIKED");
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.get("RECIPIENT_ID")).isEqualTo(author.getId());
+            assertThat(event.get("CREATE_DATE")).isNotNull();
+        });
+        assertThat(events).filteredOn(event -> "LIKED".equals(event.get("TYPE")))
+                .extracting(event -> event.get("ACTOR_ID")).containsExactly(fan.getId());
+
+        // nur auf eine leere Tabelle
+        long count = jdbcTemplate.queryForObject("select count(*) from activity_event", Long.class);
+        activityBackfill.backfillOnStartup();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from activity_event", Long.class)).isEqualTo(count);
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("unused");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle("Aktivität");
+        request.setText("Nachtragen");
+        return postService.createPost(request);
+    }
+
+    private void like(User user, Post post) {
+        CreateLikeRequest request = new CreateLikeRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        assertThat(likeService.createLike(request)).isNotNull();
+    }
+
+    private void comment(User user, Post post) {
+        CreateCommentRequest request = new CreateCommentRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        request.setText("Kommentar");
+        assertThat(commentService.createComment(request)).isNotNull();
+    }
+}
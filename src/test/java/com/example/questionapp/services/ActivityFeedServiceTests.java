@@ -0,0 +1,168 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.ActivityEventRepository;
+import com.example.questionapp.entities.ActivityEvent;
+import com.example.questionapp.entities.ActivityType;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.responses.ActivityResponse;
+import com.example.questionapp.responses.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivityFeedServiceTests {
+
+    private static final long RECIPIENT = 1L;
+    private static final int CAPACITY = 5;
+
+    /** Inhalt von activity_event */
+    private final List<ActivityEvent> table = new ArrayList<>();
+    /** Anzahl der Seitenabfragen auf activity_event */
+    private final AtomicInteger queries = new AtomicInteger();
+    private ActivityFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        ActivityEventRepository repository = mock(ActivityEventRepository.class);
+        when(repository.findPageByRecipientId(anyLong(), any(Date.class), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return findPage(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                    invocation.<Pageable>getArgument(3).getPageSize());
+        });
+        when(repository.save(any(ActivityEvent.class))).thenAnswer(invocation -> {
+            ActivityEvent event = invocation.getArgument(0);
+            event.setId(100L + table.size());
+            table.add(event);
+            return event;
+        });
+        when(repository.deleteByPostId(anyLong())).thenAnswer(invocation -> {
+            Long postId = invocation.getArgument(0);
+            table.removeIf(event -> event.getPostId().equals(postId));
+            return 0;
+        });
+        when(repository.deleteByUserId(anyLong())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            table.removeIf(event -> event.getRecipientId().equals(userId) || event.getActorId().equals(userId));
+            return 0;
+        });
+        UserDirectory userDirectory = mock(UserDirectory.class);
+        when(userDirectory.getAll(anySet())).thenReturn(Map.of());
+        service = new ActivityFeedService(repository, userDirectory, CAPACITY, 100, 300);
+    }
+
+    @Test
+    void bufferKeepsOrderWhenEventsArriveOutOfOrder() {
+        ActivityFeedService.ActivityBuffer buffer = new ActivityFeedService.ActivityBuffer(List.of(), 10);
+        buffer.add(event(3, 300));
+        buffer.add(event(1, 100));
+        buffer.add(event(5, 300));  // gleicher Zeitpunkt, größere ID => davor
+        buffer.add(event(4, 200));
+        buffer.add(event(4, 200));  // schon enthalten
+        List<ActivityEvent> page = buffer.page(PageCursor.parse(Optional.empty()), 10);
+        assertThat(page).extracting(ActivityEvent::getId).containsExactly(5L, 3L, 4L, 1L);
+    }
+
+    @Test
+    void fullBufferDropsTheOldestAndIgnoresOlderEvents() {
+        ActivityFeedService.ActivityBuffer buffer = new ActivityFeedService.ActivityBuffer(
+                List.of(event(3, 300), event(2, 200)), 2);
+        buffer.add(event(4, 400));
+        // (2, 200) ist herausgefallen und steht nur noch in der Datenbank - ein älteres Ereignis gehört dahinter
+        buffer.add(event(1, 100));
+        assertThat(buffer.page(PageCursor.parse(Optional.empty()), 2)).extracting(ActivityEvent::getId).containsExactly(4L, 3L);
+        // die nächste Seite reicht über den Puffer hinaus
+        assertThat(buffer.page(PageCursor.of(new Date(300), 3L), 2)).isNull();
+    }
+
+    @Test
+    void pagingOverBufferAndDatabaseMatchesTheTable() {
+        // 12 Ereignisse, jeweils zwei mit gleichem Zeitpunkt
+        for (long id = 1; id <= 12; id++) {
+            table.add(event(id, (id + 1) / 2 * 1000));
+        }
+        List<Long> expected = table.stream()
+                .sorted(Comparator.comparing(ActivityEvent::getCreateDate).thenComparing(ActivityEvent::getId).reversed())
+                .map(ActivityEvent::getPostId).toList();
+
+        List<Long> paged = new ArrayList<>();
+        PageCursor after = PageCursor.parse(Optional.empty());
+        int pages = 0;
+        while (true) {
+            CursorPage<ActivityResponse> page = service.getActivity(RECIPIENT, after, 2);
+            page.getItems().forEach(response -> paged.add(response.getPostId()));
+            pages++;
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            after = PageCursor.parse(Optional.of(page.getNextCursor()));
+        }
+        assertThat(paged).isEqualTo(expected);
+        assertThat(pages).isEqualTo(7);  // die letzte Seite ist leer
+        // eine Abfrage lädt den Puffer (5 Ereignisse = 2 Seiten), danach je Seite eine Abfrage
+        assertThat(queries.get()).isEqualTo(1 + 5);
+    }
+
+    @Test
+    void recordedEventsAppearOnTheFirstPage() {
+        table.add(event(1, 1000));
+        assertThat(service.getActivity(RECIPIENT, PageCursor.parse(Optional.empty()), 10).getItems()).hasSize(1);
+        service.record(ActivityType.COMMENTED, RECIPIENT, 2L, 77L);
+        List<ActivityResponse> items = service.getActivity(RECIPIENT, PageCursor.parse(Optional.empty()), 10).getItems();
+        assertThat(items).extracting(ActivityResponse::getPostId).containsExactly(77L, 1L);
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    void deletedPostsAndActorsDisappearFromTheBuffer() {
+        for (long id = 1; id <= 4; id++) {
+            table.add(event(id, id * 1000));
+        }
+        table.get(0).setActorId(3L);
+        assertThat(service.getActivity(RECIPIENT, PageCursor.parse(Optional.empty()), 10).getItems()).hasSize(4);
+
+        service.removePost(4L, RECIPIENT);
+        service.removeUser(3L);
+        List<ActivityResponse> items = service.getActivity(RECIPIENT, PageCursor.parse(Optional.empty()), 10).getItems();
+        assertThat(items).extracting(ActivityResponse::getPostId).containsExactly(3L, 2L);
+        assertThat(queries.get()).isEqualTo(1);  // aus dem Puffer
+
+        service.removeUser(RECIPIENT);
+        assertThat(service.getActivity(RECIPIENT, PageCursor.parse(Optional.empty()), 10).getItems()).isEmpty();
+    }
+
+    private List<ActivityEvent> findPage(Long recipientId, Date createDate, Long id, int limit) {
+        return table.stream()
+                .filter(event -> event.getRecipientId().equals(recipientId))
+                .filter(event -> event.getCreateDate().before(createDate)
+                        || (event.getCreateDate().equals(createDate) && event.getId() < id))
+                .sorted(Comparator.comparing(ActivityEvent::getCreateDate).thenComparing(ActivityEvent::getId).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static ActivityEvent event(long id, long createDate) {
+        ActivityEvent event = new ActivityEvent();
+        event.setId(id);
+        event.setType(ActivityType.LIKED);
+        event.setRecipientId(RECIPIENT);
+        event.setActorId(2L);
+        event.setPostId(id);
+        event.setCreateDate(new Date(createDate));
+        return event;
+    }
+}
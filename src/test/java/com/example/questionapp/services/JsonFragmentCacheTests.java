@@ -0,0 +1,237 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreateLikeRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.requests.PageCursor;
+import com.example.questionapp.security.JWTUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Antworten aus dem JsonFragmentCache gegen die ohne Cache, und das Entfernen der Einträge bei Änderungen
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class JsonFragmentCacheTests {
+
+    /** Seitenschlüssel der ersten Seite mit Standardgröße, wie in CommentService.getAllCommentsJson */
+    private static final String FIRST_PAGE = PageCursor.parse(Optional.empty()) + "/" + PageCursor.DEFAULT_LIMIT;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JsonFragmentCache jsonFragmentCache;
+
+    @Autowired
+    private PostCounterAccumulator accumulator;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private CommentService commentService;
+
+    private User reader;
+
+    @AfterEach
+    void enableCache() {
+        jsonFragmentCache.setEnabled(true);
+    }
+
+    @Test
+    void bodiesAreTheSameWithAndWithoutCache() throws Exception {
+        User author = createUser("json-author");
+        User fan = createUser("json-fan");
+        reader = fan;
+        Post first = createPost(author, "first");
+        Post second = createPost(author, "second");
+        likeService.createLike(likeRequest(fan, first));
+        likeService.createLike(likeRequest(author, first));
+        comment(fan, first, "erster");
+        comment(author, first, "zweiter");
+        comment(fan, second, "dritter");
+        accumulator.flush();  // sonst kann ein Flush zwischen den Abrufen die Versionen ändern
+
+        List<String> paths = List.of(
+                "/posts?limit=200",
+                "/posts?userId=" + author.getId(),
+                "/posts/" + first.getId(),
+                "/posts/" + second.getId(),
+                "/comments?postId=" + first.getId(),
+                "/comments?postId=" + first.getId() + "&limit=1",
+                "/comments?postId=" + second.getId());
+        jsonFragmentCache.setEnabled(true);
+        List<String> missed = bodies(paths);
+        List<String> cached = bodies(paths);  // jetzt aus dem Cache
+        assertThat(jsonFragmentCache.getPost(first.getId(), eTag("/posts/" + first.getId()))).isNotNull();
+
+        jsonFragmentCache.setEnabled(false);
+        List<String> uncached = bodies(paths);
+        assertThat(jsonFragmentCache.getPost(first.getId(), eTag("/posts/" + first.getId()))).isNull();
+
+        assertThat(cached).isEqualTo(missed);
+        assertThat(uncached).isEqualTo(cached);
+        assertThat(uncached.get(2)).contains("\"title\":\"first\"").contains("\"likeCount\":2").contains("\"commentCount\":2");
+    }
+
+    @Test
+    void writesRemoveCachedFragments() throws Exception {
+        User author = createUser("json-writer");
+        User fan = createUser("json-liker");
+        reader = fan;
+        Post post = createPost(author, "before");
+        Comment comment = comment(fan, post, "vorher");
+        String postPath = "/posts/" + post.getId();
+        String commentsPath = "/comments?postId=" + post.getId();
+
+        // Like
+        String eTag = cache(postPath);
+        mockMvc.perform(post("/likes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + fan.getId() + ",\"postId\":" + post.getId() + "}").with(user(JWTUserDetails.create(fan))))
+                .andExpect(status().isOk());
+        assertThat(jsonFragmentCache.getPost(post.getId(), eTag)).isNull();
+        mockMvc.perform(authenticated(get(postPath))).andExpect(jsonPath("$.likeCount").value(1));
+
+        // neuer Kommentar: Post (commentCount) und Kommentarseiten
+        eTag = cache(postPath);
+        String commentsETag = cache(commentsPath);
+        assertThat(jsonFragmentCache.getCommentPage(post.getId(), FIRST_PAGE, commentsETag)).isNotNull();
+        mockMvc.perform(post("/comments").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + author.getId() + ",\"postId\":" + post.getId() + ",\"text\":\"neu\"}")
+                        .with(user(JWTUserDetails.create(author))))
+                .andExpect(status().isOk());
+        assertThat(jsonFragmentCache.getPost(post.getId(), eTag)).isNull();
+        assertThat(jsonFragmentCache.getCommentPage(post.getId(), FIRST_PAGE, commentsETag)).isNull();
+        mockMvc.perform(authenticated(get(postPath))).andExpect(jsonPath("$.commentCount").value(2));
+        mockMvc.perform(authenticated(get(commentsPath))).andExpect(jsonPath("$[0].text").value("neu"));
+
+        // Post ändern
+        eTag = cache(postPath);
+        mockMvc.perform(authenticated(put(postPath)).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"after\",\"text\":\"geändert\"}"))
+                .andExpect(status().isOk());
+        assertThat(jsonFragmentCache.getPost(post.getId(), eTag)).isNull();
+        mockMvc.perform(authenticated(get(postPath))).andExpect(jsonPath("$.title").value("after"));
+        mockMvc.perform(authenticated(get("/posts?userId=" + author.getId()))).andExpect(jsonPath("$[0].title").value("after"));
+
+        // Kommentar ändern
+        commentsETag = cache(commentsPath);
+        mockMvc.perform(authenticated(put("/comments/" + comment.getId())).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"nachher\"}"))
+                .andExpect(status().isOk());
+        assertThat(jsonFragmentCache.getCommentPage(post.getId(), FIRST_PAGE, commentsETag)).isNull();
+        mockMvc.perform(authenticated(get(commentsPath))).andExpect(jsonPath("$[1].text").value("nachher"));
+    }
+
+    @Test
+    void renamingTheAuthorRemovesCachedFragments() throws Exception {
+        User author = createUser("json-rename");
+        reader = author;
+        Post post = createPost(author, "rename");
+        Post other = createPost(createUser("json-rename-other"), "other");
+        comment(author, other, "kommentar");
+        String postETag = cache("/posts/" + post.getId());
+        String commentsETag = cache("/comments?postId=" + other.getId());
+        mockMvc.perform(authenticated(get("/posts?userId=" + author.getId()))).andExpect(status().isOk());
+
+        User renamed = new User();
+        renamed.setUsername("json-renamed");
+        renamed.setPassword(author.getPassword());
+        userService.updateUserById(author.getId(), renamed);
+
+        assertThat(jsonFragmentCache.getPost(post.getId(), postETag)).isNull();
+        assertThat(jsonFragmentCache.getCommentPage(other.getId(), FIRST_PAGE, commentsETag)).isNull();
+        mockMvc.perform(authenticated(get("/posts?userId=" + author.getId())))
+                .andExpect(jsonPath("$[0].username").value("json-renamed"));
+        mockMvc.perform(authenticated(get("/comments?postId=" + other.getId())))
+                .andExpect(jsonPath("$[0].username").value("json-renamed"));
+    }
+
+    /** Ruft eine Ressource ab (legt sie damit in den Cache) und liefert ihren ETag ohne Anführungszeichen */
+    private String cache(String path) throws Exception {
+        return eTag(path);
+    }
+
+    private String eTag(String path) throws Exception {
+        String eTag = mockMvc.perform(authenticated(get(path))).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+        return eTag.replace("\"", "");
+    }
+
+    private List<String> bodies(List<String> paths) throws Exception {
+        List<String> bodies = new ArrayList<>();
+        for (String path : paths) {
+            MvcResult result = mockMvc.perform(authenticated(get(path))).andExpect(status().isOk()).andReturn();
+            bodies.add(result.getResponse().getContentAsString() + " next=" + result.getResponse().getHeader("X-Next-Cursor"));
+        }
+        return bodies;
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+        return request.with(user(JWTUserDetails.create(reader)));
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author, String title) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle(title);
+        request.setText("text of " + title);
+        return postService.createPost(request);
+    }
+
+    private static CreateLikeRequest likeRequest(User user, Post post) {
+        CreateLikeRequest request = new CreateLikeRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        return request;
+    }
+
+    private Comment comment(User user, Post post, String text) {
+        CreateCommentRequest request = new CreateCommentRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        request.setText(text);
+        return commentService.createComment(request);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.exceptions.LikeQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class LikeBatchWriterTests {
+
+    /** Likes auf diesen Post scheitern einzeln an der Datenbank, nicht an einer Integritätsbedingung */
+    private static final long BROKEN_POST = 2L;
+    /** Likes auf diesen Post verletzen einen Fremdschlüssel (Post gelöscht) */
+    private static final long DELETED_POST = 3L;
+
+    private PostCounterAccumulator accumulator;
+    private LikeBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                if (args.length > 3) {
+                    throw new DataIntegrityViolationException("batch contains a bad row");
+                }
+                long postId = (Long) args[1];
+                if (postId == BROKEN_POST) {
+                    throw new DataAccessResourceFailureException("connection reset");
+                }
+                if (postId == DELETED_POST) {
+                    throw new DataIntegrityViolationException("post does not exist");
+                }
+                return 1;
+            }
+
+            @Override
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                return requiredType.cast(0L);
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+            }
+        };
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        accumulator = new PostCounterAccumulator(mock(JdbcTemplate.class), transactionTemplate);
+        writer = new LikeBatchWriter(jdbcTemplate, transactionTemplate, accumulator, mock(ActivityFeedService.class),
+                mock(TrendingPosts.class), mock(JsonFragmentCache.class), true, 100, 500, 100, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.drainOnShutdown();
+    }
+
+    @Test
+    void rowByRowFallbackKeepsCommittedLikes() throws Exception {
+        CompletableFuture<Long> good = writer.submit(10L, 1L);
+        CompletableFuture<Long> broken = writer.submit(10L, BROKEN_POST);
+        CompletableFuture<Long> deleted = writer.submit(10L, DELETED_POST);
+        CompletableFuture<Long> alsoGood = writer.submit(11L, 1L);
+
+        assertThat(good.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(alsoGood.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(deleted.get(10, TimeUnit.SECONDS)).isNull();
+        assertThatThrownBy(() -> broken.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(DataAccessResourceFailureException.class);
+        // die geschriebenen Likes wurden gezählt
+        assertThat(accumulator.pendingLikes(1L)).isEqualTo(2);
+        assertThat(accumulator.pendingLikes(BROKEN_POST)).isZero();
+    }
+
+    @Test
+    void submitAfterShutdownIsRejected() throws Exception {
+        writer.drainOnShutdown();
+        assertThatThrownBy(() -> writer.submit(10L, 1L)).isInstanceOf(LikeQueueFullException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.LikeRepository;
+import com.example.questionapp.entities.Like;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.exceptions.DuplicateLikeException;
+import com.example.questionapp.requests.CreateLikeRequest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Synchrones createLike, wenn die Datenbank das Like abweist
+ */
+class LikeServiceTests {
+
+    private LikeRepository likeRepository;
+    private PostLikeIndex postLikeIndex;
+    private PostCounterAccumulator accumulator;
+    private LikeService likeService;
+
+    @BeforeEach
+    void setUp() {
+        likeRepository = mock(LikeRepository.class);
+        postLikeIndex = new PostLikeIndex(likeRepository, 1000, 300);
+        accumulator = new PostCounterAccumulator(mock(JdbcTemplate.class), new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        UserService userService = mock(UserService.class);
+        PostService postService = mock(PostService.class);
+        User author = new User();
+        author.setId(1L);
+        User fan = new User();
+        fan.setId(2L);
+        Post post = new Post();
+        post.setId(10L);
+        post.setUser(author);
+        when(userService.getUserById(2L)).thenReturn(fan);
+        when(postService.getPostById(10L)).thenReturn(post);
+        when(likeRepository.findUserIdsByPostId(10L)).thenReturn(List.of());
+        likeService = new LikeService(likeRepository, userService, postService, accumulator, mock(ActivityFeedService.class),
+                postLikeIndex, mock(LikeBatchWriter.class), mock(TrendingPosts.class), mock(JsonFragmentCache.class),
+                mock(EntityManager.class));
+    }
+
+    @Test
+    void existingLikeIsADuplicateAndStaysInTheIndex() {
+        when(likeRepository.save(any(Like.class))).thenThrow(new DataIntegrityViolationException("uk_post_like"));
+        when(likeRepository.existsByUserIdAndPostId(2L, 10L)).thenReturn(true);
+
+        assertThatThrownBy(() -> likeService.createLike(request())).isInstanceOf(DuplicateLikeException.class);
+        assertThat(postLikeIndex.contains(10L, 2L)).isTrue();
+        assertThat(accumulator.pendingLikes(10L)).isZero();
+    }
+
+    @Test
+    void otherViolationRemovesTheIndexEntry() {
+        // z.B. der Post wurde zwischen dem Laden und dem Speichern gelöscht
+        when(likeRepository.save(any(Like.class))).thenThrow(new DataIntegrityViolationException("fk_post_like_post"));
+        when(likeRepository.existsByUserIdAndPostId(2L, 10L)).thenReturn(false);
+
+        assertThatThrownBy(() -> likeService.createLike(request())).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(postLikeIndex.contains(10L, 2L)).isFalse();
+        assertThat(accumulator.pendingLikes(10L)).isZero();
+    }
+
+    private static CreateLikeRequest request() {
+        CreateLikeRequest request = new CreateLikeRequest();
+        request.setUserId(2L);
+        request.setPostId(10L);
+        return request;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.questionapp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostCounterAccumulatorTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private PostCounterAccumulator accumulator;
+    /** Post-ID -> {Likes, Kommentare}, Summe aller erfolgreich geschriebenen Batches */
+    private final Map<Long, long[]> written = new HashMap<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> record(invocation.getArgument(1)));
+        accumulator = new PostCounterAccumulator(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void stripedCellsSumAcrossThreads() throws Exception {
+        int threads = 16;
+        int perThread = 10_000;
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < perThread; i++) {
+                accumulator.addLikes(1L, 1);
+                accumulator.addComments(1L, i % 2 == 0 ? 1 : -1);
+            }
+        });
+        assertThat(accumulator.pendingLikes(1L)).isEqualTo((long) threads * perThread);
+        assertThat(accumulator.pendingComments(1L)).isZero();
+
+        accumulator.flush();
+        assertThat(written.get(1L)).containsExactly((long) threads * perThread, 0);
+        assertThat(batchSizes).containsExactly(1);
+        assertThat(accumulator.pendingLikes(1L)).isZero();
+    }
+
+    @Test
+    void addsDuringFlushAreNeitherLostNorCountedTwice() throws Exception {
+        // die Schreiber treffen laufend auf ausgemusterte (RETIRED) Zellen und legen neue an
+        int threads = 8;
+        int perThread = 50_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                accumulator.flush();
+            }
+        });
+        flusher.start();
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < perThread; i++) {
+                accumulator.addLikes((long) (i % 4), 1);
+            }
+        });
+        done.set(true);
+        flusher.join();
+        accumulator.flush();
+        long total = 0;
+        for (long[] delta : written.values()) {
+            total += delta[0];
+        }
+        assertThat(total).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForTheNextFlush() {
+        accumulator.addLikes(7L, 3);
+        accumulator.addComments(7L, -1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenAnswer(invocation -> record(invocation.getArgument(1)));
+
+        accumulator.flush();
+        assertThat(written).isEmpty();
+        assertThat(accumulator.pendingLikes(7L)).isEqualTo(3);
+        assertThat(accumulator.pendingComments(7L)).isEqualTo(-1);
+
+        accumulator.addLikes(7L, 1);
+        accumulator.flush();
+        assertThat(written.get(7L)).containsExactly(4, -1);
+        assertThat(accumulator.pendingLikes(7L)).isZero();
+    }
+
+    @Test
+    void pendingIncludesDeltasWhileFlushIsInFlight() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return record(invocation.getArgument(1));
+        });
+        accumulator.addLikes(5L, 2);
+        Thread flusher = new Thread(accumulator::flush);
+        flusher.start();
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // der Post ist schon ausgemustert, aber noch nicht committed - und bekommt währenddessen ein weiteres Like
+        accumulator.addLikes(5L, 1);
+        assertThat(accumulator.pendingLikes(5L)).isEqualTo(3);
+
+        release.countDown();
+        flusher.join();
+        assertThat(accumulator.pendingLikes(5L)).isEqualTo(1);
+        accumulator.flush();
+        assertThat(written.get(5L)[0]).isEqualTo(3);
+    }
+
+    @Test
+    void netZeroDeltaStillBumpsThePost() {
+        accumulator.addLikes(9L, 1);
+        accumulator.addLikes(9L, -1);
+        accumulator.flush();
+        assertThat(written.get(9L)).containsExactly(0, 0);
+    }
+
+    @Test
+    void changesOnlyGrowUntilTheFlush() {
+        long before = System.currentTimeMillis();
+        assertThat(accumulator.changes(9L)).isZero();
+        assertThat(accumulator.lastChange(9L)).isEqualTo(-1);
+
+        accumulator.addLikes(9L, 1);
+        accumulator.addLikes(9L, -1);
+        accumulator.addComments(9L, 1);
+        assertThat(accumulator.pendingLikes(9L)).isZero();
+        assertThat(accumulator.changes(9L)).isEqualTo(3);
+        assertThat(accumulator.commentChanges(9L)).isEqualTo(1);
+        assertThat(accumulator.lastChange(9L)).isBetween(before, System.currentTimeMillis());
+
+        accumulator.flush();
+        assertThat(accumulator.changes(9L)).isZero();
+        assertThat(accumulator.lastChange(9L)).isEqualTo(-1);
+    }
+
+    @Test
+    void failedFlushKeepsChanges() {
+        accumulator.addLikes(8L, 1);
+        accumulator.addLikes(8L, -1);
+        long lastChange = accumulator.lastChange(8L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        accumulator.flush();
+        assertThat(accumulator.changes(8L)).isEqualTo(2);
+        assertThat(accumulator.lastChange(8L)).isEqualTo(lastChange);
+    }
+
+    @Test
+    void writeMarkerIsUnsetWhileACountedWriteRuns() throws Exception {
+        long before = accumulator.writeMarker(3L);
+        assertThat(before).isGreaterThanOrEqualTo(0);
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch finishWrite = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = executor.submit(() -> accumulator.counted(3L, () -> {
+                writeStarted.countDown();
+                await(finishWrite);
+                accumulator.addLikes(3L, 1);
+                return null;
+            }));
+            assertThat(writeStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(accumulator.writeMarker(3L)).isEqualTo(-1);
+
+            // die laufende Änderung hält weder den Flush noch andere Änderungen auf
+            accumulator.flush();
+            Future<?> other = executor.submit(() -> accumulator.counted(List.of(3L, 4L), () -> null));
+            other.get(10, TimeUnit.SECONDS);
+
+            finishWrite.countDown();
+            write.get(10, TimeUnit.SECONDS);
+            assertThat(accumulator.writeMarker(3L)).isEqualTo(before + 2);
+            assertThat(accumulator.pendingLikes(3L)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void countedPassesExceptionsThrough() {
+        long before = accumulator.writeMarker(5L);
+        assertThatThrownBy(() -> accumulator.counted(5L, () -> {
+            throw new IllegalStateException("write failed");
+        })).isInstanceOf(IllegalStateException.class);
+        // die Änderung gilt als abgeschlossen
+        assertThat(accumulator.writeMarker(5L)).isEqualTo(before + 1);
+    }
+
+    @Test
+    void flushWaitsForWithoutFlush() throws Exception {
+        accumulator.addLikes(6L, 1);
+        CountDownLatch workStarted = new CountDownLatch(1);
+        CountDownLatch finishWork = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> work = executor.submit(() -> accumulator.withoutFlush(() -> {
+                workStarted.countDown();
+                await(finishWork);
+                return accumulator.pendingLikes(6L);
+            }));
+            assertThat(workStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<?> flush = executor.submit(accumulator::flush);
+            accumulator.addLikes(6L, 1);  // Änderungen warten nicht
+            Thread.sleep(100);
+            assertThat(flush.isDone()).isFalse();
+            finishWork.countDown();
+            assertThat(work.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+            flush.get(10, TimeUnit.SECONDS);
+            assertThat(written.get(6L)[0]).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int[] record(List<Object[]> batch) {
+        batchSizes.add(batch.size());
+        for (Object[] row : batch) {
+            long[] delta = written.computeIfAbsent((Long) row[3], id -> new long[2]);
+            delta[0] += (Long) row[0];
+            delta[1] += (Long) row[1];
+        }
+        return new int[batch.size()];
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreateLikeRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Abgleich der Zähler gegen die eingebettete Datenbank
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+class PostCounterReconcilerTests {
+
+    @Autowired
+    private PostCounterReconciler reconciler;
+
+    @Autowired
+    private PostCounterAccumulator accumulator;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reconcileRepairsDriftedCounters() {
+        User author = createUser("reconcile-author");
+        User fan = createUser("reconcile-fan");
+        Post post = createPost(author);
+        like(author, post);
+        like(fan, post);
+        comment(fan, post);
+        accumulator.flush();
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 2L).containsEntry("COMMENT_COUNT", 1L);
+
+        jdbcTemplate.update("update post set like_count = 40, comment_count = 7 where id = ?", post.getId());
+        long versionBefore = version(post);
+
+        assertThat(reconciler.reconcile()).isGreaterThanOrEqualTo(1);
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 2L).containsEntry("COMMENT_COUNT", 1L);
+        assertThat(version(post)).isGreaterThan(versionBefore);
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    @Test
+    void pendingDeltasAreNotCountedTwice() {
+        User author = createUser("reconcile-pending-author");
+        Post post = createPost(author);
+        like(author, post);  // Delta noch nicht geschrieben
+        comment(author, post);
+
+        reconciler.reconcile();
+        accumulator.flush();
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 1L).containsEntry("COMMENT_COUNT", 1L);
+    }
+
+    @Test
+    void postsWithARunningWriteAreSkipped() {
+        User author = createUser("reconcile-running-author");
+        Post post = createPost(author);
+        // Posts im selben Bucket der Schreibzähler würden mit übersprungen - einer aus einem anderen reicht
+        List<Post> others = List.of(createPost(author), createPost(author), createPost(author));
+        jdbcTemplate.update("update post set like_count = 40 where user_id = ?", author.getId());
+
+        Post other = accumulator.counted(post.getId(), () -> {
+            // die Zeile dieser Änderung wäre schon committed, ihr Delta noch nicht vorgemerkt
+            reconciler.reconcile();
+            return others.stream().filter(candidate -> accumulator.writeMarker(candidate.getId()) >= 0).findFirst().orElseThrow();
+        });
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 40L);
+        assertThat(counters(other)).containsEntry("LIKE_COUNT", 0L);
+
+        reconciler.reconcile();
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 0L);
+    }
+
+    @Test
+    void reconcileWalksAllBatches() {
+        User author = createUser("reconcile-batches-author");
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            posts.add(createPost(author));
+        }
+        for (Post post : posts) {
+            jdbcTemplate.update("update post set comment_count = 3 where id = ?", post.getId());
+        }
+        ReflectionTestUtils.setField(reconciler, "batchSize", 2);
+        try {
+            assertThat(reconciler.reconcile()).isGreaterThanOrEqualTo(posts.size());
+        } finally {
+            ReflectionTestUtils.setField(reconciler, "batchSize", 500);
+        }
+        for (Post post : posts) {
+            assertThat(counters(post)).containsEntry("COMMENT_COUNT", 0L);
+        }
+    }
+
+    @Test
+    void deletingAUserDecrementsTheCountersOfOtherPosts() {
+        User author = createUser("reconcile-delete-author");
+        User fan = createUser("reconcile-delete-fan");
+        Post post = createPost(author);
+        like(author, post);
+        like(fan, post);
+        comment(fan, post);
+        comment(fan, post);
+        Post own = createPost(fan);  // eigene Posts werden mitgelöscht, ihre Likes zählen nicht
+        like(fan, own);
+        like(author, own);
+        accumulator.flush();
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 2L).containsEntry("COMMENT_COUNT", 2L);
+
+        userService.deleteUserById(fan.getId());
+        assertThat(accumulator.pendingLikes(post.getId())).isEqualTo(-1);
+        assertThat(accumulator.pendingComments(post.getId())).isEqualTo(-2);
+        accumulator.flush();
+        assertThat(counters(post)).containsEntry("LIKE_COUNT", 1L).containsEntry("COMMENT_COUNT", 0L);
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("unused");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle("Zähler");
+        request.setText("Abgleich");
+        return postService.createPost(request);
+    }
+
+    private void like(User user, Post post) {
+        CreateLikeRequest request = new CreateLikeRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        assertThat(likeService.createLike(request)).isNotNull();
+    }
+
+    private void comment(User user, Post post) {
+        CreateCommentRequest request = new CreateCommentRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        request.setText("Kommentar");
+        assertThat(commentService.createComment(request)).isNotNull();
+    }
+
+    private Map<String, Object> counters(Post post) {
+        return jdbcTemplate.queryForMap("select like_count, comment_count from post where id = ?", post.getId());
+    }
+
+    private long version(Post post) {
+        return jdbcTemplate.queryForObject("select version from post where id = ?", Long.class, post.getId());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.LikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostLikeIndexTests {
+
+    private LikeRepository likeRepository;
+    private PostLikeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        likeRepository = mock(LikeRepository.class);
+        index = new PostLikeIndex(likeRepository, 1000, 300);
+    }
+
+    @Test
+    void addContainsAndRemove() {
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L, 200L));
+
+        assertThat(index.contains(1L, 100L)).isTrue();
+        assertThat(index.contains(1L, 300L)).isFalse();
+        assertThat(index.add(1L, 300L)).isTrue();
+        assertThat(index.add(1L, 300L)).isFalse();  // doppeltes Like
+        assertThat(index.add(1L, 100L)).isFalse();  // aus der Datenbank geladen
+        assertThat(index.contains(1L, 300L)).isTrue();
+
+        index.remove(1L, 300L);
+        assertThat(index.contains(1L, 300L)).isFalse();
+        assertThat(index.contains(1L, 100L)).isTrue();
+        // die Bitmap wurde einmal geladen und danach nur fortgeschrieben
+        verify(likeRepository, times(1)).findUserIdsByPostId(1L);
+    }
+
+    @Test
+    void likedPostsLoadsMissingBitmapsWithOneQuery() {
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L));
+        index.add(1L, 200L);
+        when(likeRepository.findPostAndUserIdsByPostIdIn(anyCollection())).thenReturn(List.of(
+                new Object[]{2L, 200L}, new Object[]{3L, 100L}));
+
+        assertThat(index.likedPosts(200L, List.of(3L, 2L, 1L, 4L))).containsExactly(2L, 1L);
+        assertThat(index.likedPosts(100L, List.of(1L, 2L, 3L, 4L))).containsExactly(1L, 3L);
+        // nur die fehlenden Posts 2, 3, 4 wurden nachgeladen, auch Post 4 ohne Likes bleibt danach im Speicher
+        verify(likeRepository, times(1)).findPostAndUserIdsByPostIdIn(anyCollection());
+        assertThat(index.likedPosts(300L, List.of(1L, 2L))).isEmpty();  // Benutzer ohne Likes
+    }
+
+    @Test
+    void ordinalsAreSharedAcrossPostsAndDistinctPerUser() {
+        // viele Benutzer mit weit auseinander liegenden Snowflake-IDs auf verschiedenen Posts
+        List<Long> users = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            users.add((i << 22) + 7);
+        }
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(users.subList(0, 500));
+        when(likeRepository.findUserIdsByPostId(2L)).thenReturn(users.subList(500, 1000));
+
+        for (int i = 0; i < users.size(); i++) {
+            Long user = users.get(i);
+            assertThat(index.contains(1L, user)).isEqualTo(i < 500);
+            assertThat(index.contains(2L, user)).isEqualTo(i >= 500);
+        }
+        // ein Benutzer behält sein Ordinal, egal ob es beim Laden oder beim Liken vergeben wurde
+        assertThat(index.add(2L, users.get(0))).isTrue();
+        assertThat(index.likedPosts(users.get(0), Set.of(1L, 2L))).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void bitmapIsReloadedAfterTtl() throws InterruptedException {
+        index = new PostLikeIndex(likeRepository, 1000, 1);
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L));
+        assertThat(index.contains(1L, 200L)).isFalse();
+
+        // Like auf einer anderen Instanz
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L, 200L));
+        assertThat(index.contains(1L, 200L)).isFalse();
+        Thread.sleep(1100);
+        assertThat(index.contains(1L, 200L)).isTrue();
+        verify(likeRepository, times(2)).findUserIdsByPostId(1L);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L));
+        assertThat(index.contains(1L, 100L)).isTrue();
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of());
+        index.invalidate(1L);
+        assertThat(index.contains(1L, 100L)).isFalse();
+    }
+
+    @Test
+    void removedUserLeavesAllBitmaps() {
+        when(likeRepository.findUserIdsByPostId(1L)).thenReturn(List.of(100L, 200L));
+        when(likeRepository.findUserIdsByPostId(2L)).thenReturn(List.of(100L));
+        assertThat(index.contains(1L, 100L)).isTrue();
+        assertThat(index.contains(2L, 100L)).isTrue();
+
+        index.removeUser(100L);
+        assertThat(index.contains(1L, 100L)).isFalse();
+        assertThat(index.contains(2L, 100L)).isFalse();
+        assertThat(index.contains(1L, 200L)).isTrue();
+        assertThat(index.likedPosts(100L, List.of(1L, 2L))).isEmpty();
+        // ein neues Ordinal trifft kein altes Bit
+        assertThat(index.add(2L, 300L)).isTrue();
+        assertThat(index.contains(2L, 300L)).isTrue();
+        index.removeUser(999L);  // ohne Likes
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void newTokenReplacesTheOldOne() {
+        User user = createUser("refresh-replace");
+        String first = refreshTokenService.createRefreshToken(user);
+        refreshTokenService.flush();
+        String second = refreshTokenService.createRefreshToken(user);
+        assertThat(refreshTokenService.isValid(user.getId(), first)).isFalse();
+        assertThat(refreshTokenService.isValid(user.getId(), second)).isTrue();
+        refreshTokenService.flush();
+        assertThat(refreshTokenService.isValid(user.getId(), second)).isTrue();
+        assertThat(refreshTokenService.isValid(user.getId() + 1, second)).isFalse();
+    }
+
+    @Test
+    void deletedUserLosesAPendingToken() {
+        User user = createUser("refresh-pending");
+        String token = refreshTokenService.createRefreshToken(user);
+        assertThat(refreshTokenService.isValid(user.getId(), token)).isTrue();
+
+        userService.deleteUserById(user.getId());
+        assertThat(refreshTokenService.isValid(user.getId(), token)).isFalse();
+        refreshTokenService.flush();  // der verworfene Token wird nicht mehr geschrieben
+        assertThat(refreshTokenService.isValid(user.getId(), token)).isFalse();
+    }
+
+    @Test
+    void deletedUserLosesAnIndexedToken() {
+        User user = createUser("refresh-indexed");
+        String token = refreshTokenService.createRefreshToken(user);
+        refreshTokenService.flush();
+        // aus dem Index, ohne Revalidierung gegen die Datenbank
+        assertThat(refreshTokenService.isValid(user.getId(), token)).isTrue();
+
+        userService.deleteUserById(user.getId());
+        assertThat(refreshTokenService.isValid(user.getId(), token)).isFalse();
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.questionapp.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTests {
+
+    @TempDir
+    Path directory;
+
+    /** Inhalt der Tabellen post und comment: ID -> {title, text} bzw. {postId, text} */
+    private final Map<Long, Object[]> posts = new TreeMap<>();
+    private final Map<Long, Object[]> comments = new TreeMap<>();
+
+    @Test
+    void tokenizeLowerCasesAndCountsTerms() {
+        Map<String, Integer> terms = SearchIndex.tokenize("Spring Boot, spring-boot & a JVM! Über 3 x42 größe");
+        assertThat(terms).containsExactly(
+                Map.entry("spring", 2), Map.entry("boot", 2), Map.entry("jvm", 1),
+                Map.entry("über", 1), Map.entry("x42", 1), Map.entry("größe", 1));
+        assertThat(SearchIndex.tokenize(null)).isEmpty();
+        assertThat(SearchIndex.tokenize("a".repeat(100)).keySet()).containsExactly("a".repeat(64));
+    }
+
+    @Test
+    void bm25PrefersFrequentTermsInShortDocuments() {
+        SearchIndex index = new SearchIndex(database(), "", 1000);
+        index.indexPost(1L, "kafka", "kafka streams");                       // tf 2, kurz
+        index.indexPost(2L, "kafka", "streams with many more words in a long text");  // tf 1, lang
+        index.indexPost(3L, "streams", "streams everywhere");                // nur der häufige Term
+        index.indexComment(10L, 3L, "kafka");                                 // tf 1, sehr kurz
+
+        List<SearchIndex.Hit> hits = index.search("kafka", null, 10);
+        assertThat(hits).extracting(SearchIndex.Hit::getId).containsExactly(1L, 10L, 2L);
+        assertThat(hits.get(1).isPost()).isFalse();
+        assertThat(hits.get(1).getPostId()).isEqualTo(3L);
+
+        // Cursor: die nächste Seite beginnt hinter dem letzten Treffer, ein zusätzlicher Treffer zeigt weitere Seiten an
+        List<SearchIndex.Hit> first = index.search("kafka", null, 1);
+        assertThat(first).hasSize(2);
+        assertThat(index.search("kafka", first.get(0), 5)).extracting(SearchIndex.Hit::getId).containsExactly(10L, 2L);
+    }
+
+    @Test
+    void bm25WeightsRareTermsHigher() {
+        SearchIndex index = new SearchIndex(database(), "", 1000);
+        index.indexPost(1L, "common", "filler");
+        index.indexPost(2L, "rare", "filler");
+        index.indexPost(3L, "common", "filler");
+        index.indexPost(4L, "common", "filler");
+        List<SearchIndex.Hit> hits = index.search("common rare", null, 10);
+        assertThat(hits).extracting(SearchIndex.Hit::getId).containsExactly(2L, 1L, 3L, 4L);  // Gleichstand nach ID
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+        assertThat(hits.get(1).getScore()).isEqualTo(hits.get(3).getScore());
+    }
+
+    @Test
+    void removePostRemovesItsComments() {
+        SearchIndex index = new SearchIndex(database(), "", 1000);
+        index.indexPost(1L, "java", "records");
+        index.indexComment(10L, 1L, "java records");
+        index.indexComment(11L, 1L, "java");
+        index.indexComment(12L, 2L, "java elsewhere");
+        index.removeComment(11L);
+        index.indexComment(10L, 1L, "java records edited");  // Änderung = Löschen plus neues Dokument
+
+        index.removePost(1L);
+        assertThat(index.search("java", null, 10)).extracting(SearchIndex.Hit::getId).containsExactly(12L);
+        assertThat(index.search("records", null, 10)).isEmpty();
+    }
+
+    @Test
+    void segmentRoundTripAndMergeRemapDeletedOrdinals() throws Exception {
+        Path file = directory.resolve("index").resolve("search.seg");
+        SearchIndex index = new SearchIndex(database(), file.toString(), 1000);
+        index.open();
+        index.indexPost(1L, "alpha", "shared");
+        index.indexPost(2L, "beta", "shared");
+        index.indexPost(3L, "gamma", "shared");
+        index.indexComment(10L, 3L, "alpha gamma");
+        index.removePost(2L);  // Ordinal 1 fällt beim Zusammenführen weg
+        index.merge();
+        assertThat(Files.exists(file)).isTrue();
+        // nach dem Zusammenführen zählt df keine gelöschten Dokumente mehr - wie ein Index der Post 2 nie gesehen hat
+        SearchIndex fresh = new SearchIndex(database(), "", 1000);
+        fresh.indexPost(1L, "alpha", "shared");
+        fresh.indexPost(3L, "gamma", "shared");
+        fresh.indexComment(10L, 3L, "alpha gamma");
+        assertHitsEqual(index.search("shared alpha gamma", null, 10), fresh.search("shared alpha gamma", null, 10));
+        assertThat(index.search("beta", null, 10)).isEmpty();
+
+        // Änderungen nach dem Zusammenführen: Segment-Dokument löschen, neues im Delta, erneut zusammenführen
+        index.removeComment(10L);
+        index.indexPost(4L, "delta", "shared alpha");
+        index.merge();
+        assertThat(index.search("alpha", null, 10)).extracting(SearchIndex.Hit::getId).containsExactlyInAnyOrder(1L, 4L);
+        List<SearchIndex.Hit> merged = index.search("shared alpha gamma", null, 10);
+
+        // ein neuer Index mappt dieselbe Datei und findet dasselbe, ohne etwas aus der Datenbank zu lesen
+        SearchIndex reopened = new SearchIndex(database(), file.toString(), 1000);
+        reopened.open();
+        assertHitsEqual(reopened.search("shared alpha gamma", null, 10), merged);
+        // removePost findet auch die Kommentare aus dem Segment
+        reopened.indexComment(11L, 4L, "omega");
+        reopened.merge();
+        reopened.removePost(4L);
+        assertThat(reopened.search("omega", null, 10)).isEmpty();
+    }
+
+    @Test
+    void openCatchesUpWithRowsCreatedSinceTheLastMerge() throws Exception {
+        Path file = directory.resolve("search.seg");
+        posts.put(1L, new Object[]{"first", "post"});
+        comments.put(10L, new Object[]{1L, "first comment"});
+        SearchIndex index = new SearchIndex(database(), file.toString(), 1000);
+        index.open();  // baut alles aus der Datenbank auf und schreibt das erste Segment
+        assertThat(index.search("first", null, 10)).extracting(SearchIndex.Hit::getId).containsExactlyInAnyOrder(1L, 10L);
+        index.mergeOnShutdown();
+
+        // während die Anwendung nicht lief
+        posts.put(2L, new Object[]{"second", "post"});
+        comments.put(11L, new Object[]{1L, "second comment"});
+        List<String> queries = new ArrayList<>();
+        SearchIndex restarted = new SearchIndex(database(queries), file.toString(), 1000);
+        restarted.open();
+        assertThat(restarted.search("second", null, 10)).extracting(SearchIndex.Hit::getId).containsExactlyInAnyOrder(2L, 11L);
+        assertThat(restarted.search("first", null, 10)).extracting(SearchIndex.Hit::getId).containsExactlyInAnyOrder(1L, 10L);
+        // nur nach den größten IDs aus dem Segment gefragt
+        assertThat(queries).containsExactly("post > 1", "comment > 10");
+    }
+
+    private static void assertHitsEqual(List<SearchIndex.Hit> actual, List<SearchIndex.Hit> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getId()).isEqualTo(expected.get(i).getId());
+            assertThat(actual.get(i).isPost()).isEqualTo(expected.get(i).isPost());
+            assertThat(actual.get(i).getPostId()).isEqualTo(expected.get(i).getPostId());
+            assertThat(actual.get(i).getScore()).isCloseTo(expected.get(i).getScore(), offset(1e-9));
+        }
+    }
+
+    private JdbcTemplate database() {
+        return database(new ArrayList<>());
+    }
+
+    /** Beantwortet die Nachindexierungs-Abfragen aus posts und comments, protokolliert Tabelle und Start-ID */
+    private JdbcTemplate database(List<String> queries) {
+        return new JdbcTemplate() {
+            @Override
+            public void query(PreparedStatementCreator creator, RowCallbackHandler handler) {
+                try {
+                    String[] sql = new String[1];
+                    long[] fromId = new long[1];
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    doAnswer(invocation -> fromId[0] = invocation.getArgument(1)).when(statement).setLong(anyInt(), anyLong());
+                    Connection connection = mock(Connection.class);
+                    when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+                        sql[0] = invocation.getArgument(0);
+                        return statement;
+                    });
+                    creator.createPreparedStatement(connection);
+                    boolean post = sql[0].contains("from post ");
+                    queries.add((post ? "post" : "comment") + " > " + fromId[0]);
+                    for (Map.Entry<Long, Object[]> row : (post ? posts : comments).entrySet()) {
+                        if (row.getKey() > fromId[0]) {
+                            handler.processRow(resultSet(row.getKey(), row.getValue()));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static ResultSet resultSet(long id, Object[] values) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(id);
+        if (values[0] instanceof Long postId) {
+            when(resultSet.getLong(2)).thenReturn(postId);
+        } else {
+            when(resultSet.getString(2)).thenReturn((String) values[0]);
+        }
+        when(resultSet.getString(3)).thenReturn((String) values[1]);
+        return resultSet;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.responses.TrendingPostResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * TrendingPosts mit einstellbarer Uhr: Buckets zu 60 s, Fenster 5 Buckets, Halbwertszeit ein Bucket, top.k 2
+ */
+class TrendingPostsTests {
+
+    private static final long BUCKET = 60_000;
+    private static final int WINDOW = 5;
+
+    private final AtomicLong now = new AtomicLong(1_000_000 * BUCKET);
+    private TrendingPosts trending;
+
+    @BeforeEach
+    void setUp() {
+        trending = new TrendingPosts(60, WINDOW, 60, 1024, 4, 2, 1, 3);
+        trending.useClock(now::get);
+    }
+
+    @Test
+    void scoresDecayByBucketAge() {
+        likes(1L, 8);
+        trending.recordComment(2L);  // Gewicht 3
+        assertThat(score(1L)).isEqualTo(8);
+        assertThat(score(2L)).isEqualTo(3);
+
+        advance(1);
+        assertThat(score(1L)).isCloseTo(4, offset(1e-9));
+        likes(2L, 2);  // im neuen Bucket mit vollem Gewicht
+        assertThat(score(2L)).isCloseTo(1.5 + 2, offset(1e-9));
+
+        advance(1);
+        assertThat(score(1L)).isCloseTo(2, offset(1e-9));
+        assertThat(score(2L)).isCloseTo(0.75 + 1, offset(1e-9));
+    }
+
+    @Test
+    void activityExpiresAfterTheWindow() {
+        likes(1L, 4);
+        advance(WINDOW - 1);
+        assertThat(score(1L)).isCloseTo(4 * Math.pow(0.5, WINDOW - 1), offset(1e-9));
+        advance(1);
+        assertThat(trending.top(10)).isEmpty();
+    }
+
+    @Test
+    void heapKeepsTwiceTopKCandidates() {
+        for (long post = 1; post <= 5; post++) {
+            likes(post, (int) post);
+        }
+        assertThat(trending.top(10)).extracting(TrendingPostResponse::getPostId).containsExactly(5L, 4L);
+        // Posts 2..4 sind nachrückende Kandidaten, Post 1 wurde beim fünften aus dem vollen Heap (2 x top.k) verdrängt
+        trending.remove(5L);
+        trending.remove(4L);
+        assertThat(trending.top(10)).extracting(TrendingPostResponse::getPostId).containsExactly(3L, 2L);
+        trending.remove(3L);
+        assertThat(trending.top(10)).extracting(TrendingPostResponse::getPostId).containsExactly(2L);
+    }
+
+    @Test
+    void removeDropsThePost() {
+        likes(1L, 3);
+        likes(2L, 1);
+        trending.remove(1L);
+        assertThat(trending.top(10)).extracting(TrendingPostResponse::getPostId).containsExactly(2L);
+        trending.remove(7L);  // unbekannter Post
+        assertThat(trending.top(10)).hasSize(1);
+    }
+
+    @Test
+    void lateRotationClearsSkippedBuckets() {
+        likes(1L, 8);
+        // der Scheduler kommt zwei Buckets zu spät: ein einziger Wechsel rechnet mit dem richtigen Alter
+        now.addAndGet(2 * BUCKET);
+        trending.rotate();
+        assertThat(score(1L)).isCloseTo(2, offset(1e-9));
+
+        // länger als das Fenster: alle Slots sind leer, auch der wiederverwendete des alten Buckets
+        now.addAndGet((WINDOW + 2) * BUCKET);
+        trending.rotate();
+        assertThat(trending.top(10)).isEmpty();
+        likes(1L, 1);
+        assertThat(score(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void rotateWithinTheSameBucketChangesNothing() {
+        likes(1L, 2);
+        now.addAndGet(BUCKET - 1);
+        trending.rotate();
+        assertThat(score(1L)).isEqualTo(2);
+    }
+
+    private void likes(long postId, int count) {
+        for (int i = 0; i < count; i++) {
+            trending.recordLike(postId);
+        }
+    }
+
+    private void advance(int buckets) {
+        for (int i = 0; i < buckets; i++) {
+            now.addAndGet(BUCKET);
+            trending.rotate();
+        }
+    }
+
+    private double score(long postId) {
+        return trending.top(10).stream()
+                .filter(post -> post.getPostId() == postId)
+                .mapToDouble(TrendingPostResponse::getScore)
+                .findFirst().orElse(0);
+    }
+}
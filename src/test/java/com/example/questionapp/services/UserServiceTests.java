@@ -0,0 +1,106 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.entities.Comment;
+import com.example.questionapp.entities.Post;
+import com.example.questionapp.entities.User;
+import com.example.questionapp.requests.CreateCommentRequest;
+import com.example.questionapp.requests.CreatePostRequest;
+import com.example.questionapp.responses.TrendingPostResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Löschen eines Benutzers: die Datenbank löscht seine Posts und Kommentare per Cascade, die Indizes im Speicher
+ * müssen sie ebenfalls verlieren
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tests;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("embedded")
+class UserServiceTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private TrendingPosts trendingPosts;
+
+    @Test
+    void deletedUserLeavesTheSearchIndex() {
+        User author = createUser("delete-search-author");
+        User other = createUser("delete-search-other");
+        Post own = createPost(author, "zaunkoenig");
+        Post foreign = createPost(other, "rotkehlchen");
+        comment(other, own, "zaunkoenigkommentar");
+        comment(author, foreign, "rotkehlchenkommentar");
+        assertThat(search("zaunkoenig")).hasSize(1);
+        assertThat(search("zaunkoenigkommentar")).hasSize(1);
+        assertThat(search("rotkehlchenkommentar")).hasSize(1);
+
+        userService.deleteUserById(author.getId());
+        assertThat(search("zaunkoenig")).isEmpty();
+        assertThat(search("zaunkoenigkommentar")).isEmpty();  // Kommentar eines anderen auf dem gelöschten Post
+        assertThat(search("rotkehlchenkommentar")).isEmpty();
+        assertThat(search("rotkehlchen")).extracting(SearchIndex.Hit::getId).containsExactly(foreign.getId());
+    }
+
+    @Test
+    void deletedUserLeavesTheTrendingPosts() {
+        User author = createUser("delete-trending-author");
+        User other = createUser("delete-trending-other");
+        Post own = createPost(author, "trending");
+        Post foreign = createPost(other, "trending");
+        for (int i = 0; i < 50; i++) {
+            trendingPosts.recordLike(own.getId());
+            trendingPosts.recordLike(foreign.getId());
+        }
+        assertThat(trendingIds()).contains(own.getId(), foreign.getId());
+
+        userService.deleteUserById(author.getId());
+        assertThat(trendingIds()).doesNotContain(own.getId()).contains(foreign.getId());
+    }
+
+    private List<Long> trendingIds() {
+        return trendingPosts.top(100).stream().map(TrendingPostResponse::getPostId).toList();
+    }
+
+    private List<SearchIndex.Hit> search(String query) {
+        return searchIndex.search(query, null, 10);
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu7eT1oW0rQkS3dPpXOSH2y3jF1Kq2a5y");
+        return userService.createUser(user);
+    }
+
+    private Post createPost(User author, String title) {
+        CreatePostRequest request = new CreatePostRequest();
+        request.setUserId(author.getId());
+        request.setTitle(title);
+        request.setText("text");
+        return postService.createPost(request);
+    }
+
+    private Comment comment(User user, Post post, String text) {
+        CreateCommentRequest request = new CreateCommentRequest();
+        request.setUserId(user.getId());
+        request.setPostId(post.getId());
+        request.setText(text);
+        return commentService.createComment(request);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.questionapp.services;
+
+import com.example.questionapp.dataAccess.PostRepository;
+import com.example.questionapp.requests.PageCursor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserTimelineIndexTests {
+
+    private static final long USER = 1L;
+    private static final PageCursor FIRST = PageCursor.parse(Optional.empty());
+
+    @Test
+    void ringWrapsAndDropsTheOldest() {
+        UserTimelineIndex.Timeline timeline = new UserTimelineIndex.Timeline(3);
+        // head läuft mehrmals um das Array
+        for (long id = 1; id <= 10; id++) {
+            timeline.add(id, id * 1000);
+        }
+        assertThat(ids(timeline.page(Long.MAX_VALUE, Long.MAX_VALUE, 3))).containsExactly(10L, 9L, 8L);
+        // der Ring ist nicht mehr vollständig: die Seite hinter dem letzten Eintrag kommt aus der Datenbank
+        UserTimelineIndex.TimelinePage first = timeline.page(Long.MAX_VALUE, Long.MAX_VALUE, 2);
+        assertThat(ids(first)).containsExactly(10L, 9L);
+        assertThat(first.getNextCursor().toString()).isEqualTo("9000,9");
+        assertThat(timeline.page(9000, 9, 2)).isNull();
+    }
+
+    @Test
+    void lateAddsAreSortedIntoAWrappedRing() {
+        UserTimelineIndex.Timeline timeline = new UserTimelineIndex.Timeline(4);
+        for (long id = 1; id <= 6; id++) {
+            timeline.add(id * 10, id * 1000);
+        }
+        timeline.add(45, 4500);   // zwischen 40 und 50, 30 fällt heraus
+        timeline.add(35, 3500);   // älter als alle Einträge des vollen Rings
+        timeline.add(55, 5000);   // gleiche Zeit wie 50, größere ID => davor
+        timeline.add(60, 6000);   // schon enthalten
+        assertThat(ids(timeline.page(Long.MAX_VALUE, Long.MAX_VALUE, 4))).containsExactly(60L, 55L, 50L, 45L);
+
+        timeline.remove(55);
+        timeline.remove(99);  // nicht enthalten
+        assertThat(ids(timeline.page(Long.MAX_VALUE, Long.MAX_VALUE, 3))).containsExactly(60L, 50L, 45L);
+        assertThat(timeline.page(5000, 50, 2)).isNull();
+    }
+
+    @Test
+    void completeRingAnswersTheLastPage() {
+        UserTimelineIndex.Timeline timeline = new UserTimelineIndex.Timeline(4);
+        timeline.add(1, 1000);
+        timeline.add(2, 2000);
+        UserTimelineIndex.TimelinePage page = timeline.page(Long.MAX_VALUE, Long.MAX_VALUE, 2);
+        assertThat(ids(page)).containsExactly(2L, 1L);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(ids(timeline.page(2000, 2, 5))).containsExactly(1L);
+    }
+
+    @Test
+    void postCreatedWhileTheRingLoadsIsNotMissed() throws Exception {
+        // die Abfrage hat Post 3 noch nicht gesehen
+        UserTimelineIndex index = whileLoading(List.of(row(2, 2000), row(1, 1000)),
+                timelineIndex -> timelineIndex.add(USER, 3L, new Date(3000)));
+        assertThat(ids(index.page(USER, FIRST, 10))).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void postDeletedWhileTheRingLoadsIsRemoved() throws Exception {
+        // die Abfrage hat Post 2 noch gesehen
+        UserTimelineIndex index = whileLoading(List.of(row(2, 2000), row(1, 1000)),
+                timelineIndex -> timelineIndex.remove(USER, 2L));
+        assertThat(ids(index.page(USER, FIRST, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void postInTheQueryAndAddedWhileLoadingAppearsOnce() throws Exception {
+        UserTimelineIndex index = whileLoading(List.of(row(2, 2000), row(1, 1000)),
+                timelineIndex -> timelineIndex.add(USER, 2L, new Date(2000)));
+        assertThat(ids(index.page(USER, FIRST, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void ringIsLoadedInAWritingTransaction() {
+        PostRepository repository = mock(PostRepository.class);
+        when(repository.findTimelineByUserId(anyLong(), any(Pageable.class))).thenReturn(List.<Object[]>of(row(1, 1000)));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        UserTimelineIndex index = new UserTimelineIndex(repository, transactionManager, 10, 100, 300);
+        assertThat(ids(index.page(USER, FIRST, 10))).containsExactly(1L);
+
+        // eigene, nicht lesende Transaktion => Primary, auch innerhalb von getAllPosts (readOnly = true)
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isFalse();
+        assertThat(definition.getValue().getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Baut den Ring von USER auf und ruft change auf, während die Abfrage läuft
+     * Wartet bis change an der Sperre des Rings blockiert, erst dann liefert die Abfrage rows.
+     */
+    private static UserTimelineIndex whileLoading(List<Object[]> rows, Consumer<UserTimelineIndex> change)
+            throws Exception {
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PostRepository repository = mock(PostRepository.class);
+        when(repository.findTimelineByUserId(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            queried.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            return new ArrayList<>(rows);
+        });
+        UserTimelineIndex index = new UserTimelineIndex(repository, mock(PlatformTransactionManager.class), 10, 100, 300);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread loader = new Thread(() -> {
+            try {
+                index.page(USER, FIRST, 10);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        loader.start();
+        assertThat(queried.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread writer = new Thread(() -> change.accept(index));
+        writer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (writer.getState() != Thread.State.BLOCKED && writer.isAlive() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(writer.getState()).isEqualTo(Thread.State.BLOCKED);
+        release.countDown();
+        loader.join(10_000);
+        writer.join(10_000);
+        assertThat(failure.get()).isNull();
+        return index;
+    }
+
+    private static Object[] row(long id, long createDate) {
+        return new Object[]{id, new Date(createDate)};
+    }
+
+    private static List<Long> ids(UserTimelineIndex.TimelinePage page) {
+        List<Long> ids = new ArrayList<>();
+        for (long id : page.getIds()) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
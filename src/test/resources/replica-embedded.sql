@@ -0,0 +1,10 @@
+-- Lese-Replika für das Profil "replica": eine eigene H2-Datenbank, deren Tabellen auf die des Primary verweisen
+-- (READONLY - ein versehentlich hierher geleiteter Schreibzugriff schlägt fehl). Läuft bei jeder neuen Verbindung
+-- des Replika-Pools, die Tabellen des Primary hat Hibernate bis dahin angelegt.
+CREATE LINKED TABLE IF NOT EXISTS user('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'USER') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS post('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'POST') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS comment('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'COMMENT') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS post_like('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'POST_LIKE') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS activity_event('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'ACTIVITY_EVENT') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS refresh_token('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'REFRESH_TOKEN') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS import_job('org.h2.Driver', 'jdbc:h2:mem:embedded;MODE=MySQL;NON_KEYWORDS=USER', 'sa', '', 'IMPORT_JOB') READONLY;